@@ -0,0 +1,15 @@
+package com.os.tid.forgerock.openam.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Asks {@link JsonCodecProcessor} for a {@code JsonCodec} of every model class of the annotated package, and for a
+ * {@code JsonCodecs} class looking them up by type. Only needed at build time.
+ */
+@Target(ElementType.PACKAGE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface GenerateJsonCodecs {
+}
@@ -0,0 +1,308 @@
+package com.os.tid.forgerock.openam.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates, for every model class of a package annotated with {@link GenerateJsonCodecs}, a {@code <Model>Codec}
+ * reading and writing its fields with the typed getters of fastjson's {@code JSONObject}, plus a {@code JsonCodecs}
+ * class returning the codec of a type. The nodes then decode the API responses without fastjson's reflection and
+ * runtime ASM deserializers. Every field is looked up with {@code JsonCodec.key}, which matches the keys as leniently
+ * as fastjson does.
+ * <p>
+ * A model class is public, concrete, has a public no-arg constructor, and each of its instance fields is of a
+ * {@link #ACCESSORS supported type}, read by a getter or a public field and written by a setter or a public field.
+ * The other classes of the package are reported and skipped, fastjson still decoding them if asked to.
+ * <p>
+ * The processor is compiled by its own execution of the compiler plugin before the rest of the sources, see the
+ * pom.xml.
+ */
+@SupportedAnnotationTypes("com.os.tid.forgerock.openam.codegen.GenerateJsonCodecs")
+public class JsonCodecProcessor extends AbstractProcessor {
+    private static final String CODEC_INTERFACE = "com.os.tid.forgerock.openam.utils.JsonCodec";
+
+    /**
+     * The JSONObject getter of each supported field type.
+     */
+    private static final Map<String, String> ACCESSORS = new HashMap<>();
+
+    static {
+        ACCESSORS.put("java.lang.String", "getString");
+        ACCESSORS.put("int", "getInteger");
+        ACCESSORS.put("java.lang.Integer", "getInteger");
+        ACCESSORS.put("long", "getLong");
+        ACCESSORS.put("java.lang.Long", "getLong");
+        ACCESSORS.put("boolean", "getBoolean");
+        ACCESSORS.put("java.lang.Boolean", "getBoolean");
+        ACCESSORS.put("double", "getDouble");
+        ACCESSORS.put("java.lang.Double", "getDouble");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateJsonCodecs.class)) {
+            if (element.getKind() == ElementKind.PACKAGE) {
+                processPackage((PackageElement) element);
+            }
+        }
+        return true;
+    }
+
+    private void processPackage(PackageElement packageElement) {
+        List<TypeElement> models = new ArrayList<>();
+        List<TypeElement> types = new ArrayList<>(ElementFilter.typesIn(packageElement.getEnclosedElements()));
+        types.sort(Comparator.comparing(type -> type.getSimpleName().toString()));
+        for (TypeElement type : types) {
+            List<Property> properties = properties(type);
+            if (properties == null) {
+                continue;
+            }
+            try {
+                writeCodec(packageElement, type, properties);
+                models.add(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write the codec: " + e, type);
+            }
+        }
+        try {
+            writeRegistry(packageElement, models);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write JsonCodecs: " + e, packageElement);
+        }
+    }
+
+    /**
+     * @return the properties of the model, null if the class is not a model
+     */
+    private List<Property> properties(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (type.getKind() != ElementKind.CLASS || !modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            return null;
+        }
+        List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+        boolean instantiable = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC));
+        if (!instantiable) {
+            skip(type, "no public no-arg constructor");
+            return null;
+        }
+        List<Property> properties = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            String typeName = field.asType().toString();
+            String accessor = ACCESSORS.get(typeName);
+            if (accessor == null) {
+                skip(type, "unsupported type of " + name + ": " + typeName);
+                return null;
+            }
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            boolean publicField = field.getModifiers().contains(Modifier.PUBLIC);
+            String reader = getter(methods, field.asType(), "get" + capitalized);
+            if (reader == null && field.asType().toString().equals("boolean")) {
+                reader = getter(methods, field.asType(), "is" + capitalized);
+            }
+            if (reader == null && publicField) {
+                reader = name;
+            }
+            String writer = setter(methods, field.asType(), "set" + capitalized);
+            if (writer == null && publicField && !field.getModifiers().contains(Modifier.FINAL)) {
+                writer = name;
+            }
+            if (reader == null || writer == null) {
+                skip(type, name + " cannot be " + (reader == null ? "read" : "written"));
+                return null;
+            }
+            properties.add(new Property(name, typeName, accessor, reader, writer));
+        }
+        return properties;
+    }
+
+    private static String getter(List<ExecutableElement> methods, TypeMirror type, String name) {
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty()
+                    && method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+                    && method.getReturnType().toString().equals(type.toString())) {
+                return name + "()";
+            }
+        }
+        return null;
+    }
+
+    private static String setter(List<ExecutableElement> methods, TypeMirror type, String name) {
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+                    && method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+                    && method.getParameters().get(0).asType().toString().equals(type.toString())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private void skip(TypeElement type, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "No JsonCodec for " + type.getSimpleName() + ": " + reason, type);
+    }
+
+    private void writeCodec(PackageElement packageElement, TypeElement type, List<Property> properties) throws IOException {
+        String packageName = packageElement.getQualifiedName().toString();
+        String model = type.getSimpleName().toString();
+        String codec = model + "Codec";
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName + "." + codec, type).openWriter())) {
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("import com.alibaba.fastjson.JSONObject;");
+            out.println("import " + CODEC_INTERFACE + ";");
+            out.println();
+            out.println("import javax.annotation.processing.Generated;");
+            out.println();
+            out.println("@Generated(\"" + JsonCodecProcessor.class.getName() + "\")");
+            out.println("public final class " + codec + " implements JsonCodec<" + model + "> {");
+            out.println("    public static final " + codec + " INSTANCE = new " + codec + "();");
+            out.println();
+            out.println("    private " + codec + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + model + " decode(JSONObject json) {");
+            out.println("        if (json == null) {");
+            out.println("            return null;");
+            out.println("        }");
+            out.println("        " + model + " model = new " + model + "();");
+            for (Property property : properties) {
+                String local = property.name + "Value";
+                out.println("        " + property.boxedType() + " " + local + " = json." + property.accessor
+                        + "(JsonCodec.key(json, \"" + property.name + "\", " + property.isBoolean() + "));");
+                out.println("        if (" + local + " != null) {");
+                out.println("            " + property.write(local) + ";");
+                out.println("        }");
+            }
+            out.println("        return model;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public JSONObject encode(" + model + " model) {");
+            out.println("        if (model == null) {");
+            out.println("            return null;");
+            out.println("        }");
+            out.println("        JSONObject json = new JSONObject(true);");
+            for (Property property : properties) {
+                if (property.isPrimitive()) {
+                    out.println("        json.put(\"" + property.name + "\", model." + property.reader + ");");
+                } else {
+                    out.println("        if (model." + property.reader + " != null) {");
+                    out.println("            json.put(\"" + property.name + "\", model." + property.reader + ");");
+                    out.println("        }");
+                }
+            }
+            out.println("        return json;");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private void writeRegistry(PackageElement packageElement, List<TypeElement> models) throws IOException {
+        String packageName = packageElement.getQualifiedName().toString();
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName + ".JsonCodecs", packageElement).openWriter())) {
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("import " + CODEC_INTERFACE + ";");
+            out.println();
+            out.println("import javax.annotation.processing.Generated;");
+            out.println();
+            out.println("@Generated(\"" + JsonCodecProcessor.class.getName() + "\")");
+            out.println("public final class JsonCodecs {");
+            out.println();
+            out.println("    private JsonCodecs() {");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * @return the generated codec of the type, null if it has none");
+            out.println("     */");
+            out.println("    @SuppressWarnings(\"unchecked\")");
+            out.println("    public static <T> JsonCodec<T> forType(Class<T> type) {");
+            for (TypeElement model : models) {
+                String name = model.getSimpleName().toString();
+                out.println("        if (type == " + name + ".class) {");
+                out.println("            return (JsonCodec<T>) " + name + "Codec.INSTANCE;");
+                out.println("        }");
+            }
+            out.println("        return null;");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private static final class Property {
+        private final String name;
+        private final String type;
+        private final String accessor;
+        private final String reader;
+        private final String writer;
+
+        private Property(String name, String type, String accessor, String reader, String writer) {
+            this.name = name;
+            this.type = type;
+            this.accessor = accessor;
+            this.reader = reader;
+            this.writer = writer;
+        }
+
+        private boolean isBoolean() {
+            return type.equals("boolean") || type.equals("java.lang.Boolean");
+        }
+
+        private boolean isPrimitive() {
+            return !type.contains(".");
+        }
+
+        private String boxedType() {
+            switch (type) {
+                case "int":
+                    return "Integer";
+                case "long":
+                    return "Long";
+                case "boolean":
+                    return "Boolean";
+                case "double":
+                    return "Double";
+                default:
+                    return type.startsWith("java.lang.") ? type.substring("java.lang.".length()) : type;
+            }
+        }
+
+        private String write(String value) {
+            return writer.equals(name) ? "model." + name + " = " + value : "model." + writer + "(" + value + ")";
+        }
+    }
+}
@@ -93,11 +93,13 @@ public class Constants {
     public static final String OSTID_CRONTO_FORMULA = "%1$s;%2$s;001;%3$s;%4$s;%5$s";
     public static final String OSTID_RESPONSE_CHECK_ACTIVATION_STATUS = "activationStatus";
     public static final String OSTID_ERROR_MESSAGE = "ostid_error_message";
+    public static final String OSTID_ERROR_RECORD = "ostid_error_record";
 
     public static final String OSTID_CDDC_JSON = "ostid_cddc_json";
     public static final String OSTID_CDDC_HASH = "ostid_cddc_hash";
     public static final String OSTID_CDDC_IP = "ostid_cddc_ip";
     public static final String OSTID_CDDC_HAS_PUSHED_JS = "ostid_cddc_has_pushed_js";
+    public static final String OSTID_CDDC_REF = "ostid_cddc_ref";
     public static final String OSTID_USERNAME_IN_SHARED_STATE = "ostid_username_in_shared_state";
 
     public static final String OSTID_DIGI_SERIAL = "ostid_digi_serial";
@@ -122,6 +124,8 @@ public class Constants {
     public static final String OSTID_CRONTO_PUSH_JS = "ostid_cronto_push_js";
 
     public static final String OSTID_LOG_CORRELATION_ID = "log-correlation-id";
+    public static final String OSTID_TRACEPARENT_HEADER = "traceparent";
+    public static final String OSTID_TRACEPARENT = "ostid_traceparent";
 
     /**
      * Default Values for OneSpan Auth Tree Nodes
@@ -142,4 +146,47 @@ public class Constants {
 
     public static final int OSTID_DEFAULT_CHECK_ACTIVATION_TIMEOUT = 0;
     public static final int OSTID_DEFAULT_EVENT_EXPIRY = 60;
+    public static final int OSTID_DEFAULT_CDDC_STORE_TTL_SECONDS = 600;
+    public static final int OSTID_DEFAULT_CDDC_STORE_SIZE = 10000;
+    public static final int OSTID_DEFAULT_NEGATIVE_CACHE_SIZE = 10000;
+    public static final int OSTID_DEFAULT_REGISTRATION_CACHE_SIZE = 100000;
+    public static final int OSTID_DEFAULT_REGISTRATION_STATUS_TTL_SECONDS = 300;
+    public static final int OSTID_DEFAULT_WARMUP_ITERATIONS = 0;
+    public static final int OSTID_DEFAULT_WARMUP_CONNECTIONS = 0;
+    public static final String OSTID_DEFAULT_TRACING_ENDPOINT = "http://localhost:4318/v1/traces";
+    public static final int OSTID_DEFAULT_HEDGING_PERCENTILE = 95;
+    public static final int OSTID_DEFAULT_HEDGING_MIN_DELAY_MILLIS = 20;
+    public static final int OSTID_DEFAULT_HEDGING_MAX_IN_FLIGHT = 16;
+    public static final int OSTID_DEFAULT_HTTP2_CONNECTIONS = 2;
+    public static final int OSTID_DEFAULT_ROUTING_PROBE_INTERVAL_SECONDS = 10;
+    public static final int OSTID_DEFAULT_DNS_TTL_SECONDS = 60;
+    public static final int OSTID_DEFAULT_DNS_CONNECT_TIMEOUT_MILLIS = 1000;
+    public static final int OSTID_DEFAULT_HTTP2_MAX_STREAMS = 100;
+    public static final int OSTID_DEFAULT_API_CONNECT_TIMEOUT_SECONDS = 10;
+    public static final int OSTID_DEFAULT_API_REQUEST_TIMEOUT_SECONDS = 30;
+    public static final String OSTID_TRANSPORT_HTTP2 = "http2";
+
+    /**
+     * JVM system properties read once on plugin startup
+     */
+    public static final String OSTID_PROPERTY_WARMUP_ENABLED = "onespan.warmup.enabled";
+    public static final String OSTID_PROPERTY_WARMUP_ITERATIONS = "onespan.warmup.iterations";
+    public static final String OSTID_PROPERTY_WARMUP_CONNECTIONS = "onespan.warmup.connections";
+    public static final String OSTID_PROPERTY_CDDC_STORE_SIZE = "onespan.cddcStore.size";
+    public static final String OSTID_PROPERTY_REGISTRATION_CACHE_SIZE = "onespan.registrationCache.size";
+    public static final String OSTID_PROPERTY_REGISTRATION_CACHE_OFF_HEAP = "onespan.registrationCache.offHeap";
+    public static final String OSTID_PROPERTY_TRACING_ENABLED = "onespan.tracing.enabled";
+    public static final String OSTID_PROPERTY_TRACING_ENDPOINT = "onespan.tracing.endpoint";
+    public static final String OSTID_PROPERTY_TRACING_TRUST_INCOMING = "onespan.tracing.trustIncoming";
+    public static final String OSTID_PROPERTY_HEDGING_ENABLED = "onespan.hedging.enabled";
+    public static final String OSTID_PROPERTY_HEDGING_PERCENTILE = "onespan.hedging.percentile";
+    public static final String OSTID_PROPERTY_HEDGING_MIN_DELAY_MILLIS = "onespan.hedging.minDelayMillis";
+    public static final String OSTID_PROPERTY_HEDGING_MAX_IN_FLIGHT = "onespan.hedging.maxInFlight";
+    public static final String OSTID_PROPERTY_TRANSPORT = "onespan.transport";
+    public static final String OSTID_PROPERTY_HTTP2_CONNECTIONS = "onespan.http2.connections";
+    public static final String OSTID_PROPERTY_HTTP2_MAX_STREAMS = "onespan.http2.maxStreams";
+    public static final String OSTID_PROPERTY_ROUTING_PROBE_INTERVAL_SECONDS = "onespan.routing.probeIntervalSeconds";
+    public static final String OSTID_PROPERTY_DNS_ENABLED = "onespan.dns.enabled";
+    public static final String OSTID_PROPERTY_DNS_TTL_SECONDS = "onespan.dns.ttlSeconds";
+    public static final String OSTID_PROPERTY_DNS_CONNECT_TIMEOUT_MILLIS = "onespan.dns.connectTimeoutMillis";
 }
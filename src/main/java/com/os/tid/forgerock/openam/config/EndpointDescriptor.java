@@ -0,0 +1,190 @@
+package com.os.tid.forgerock.openam.config;
+
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+import com.os.tid.forgerock.openam.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable view of the OneSpan TID endpoint of a tenant: the base URL and the pre-parsed API paths.
+ * Descriptors are cached per tenant, environment and base endpoints, so realms sharing a tenant with the same
+ * configuration share one descriptor, and realms pointing it to other endpoints each get their own. When several
+ * base endpoints are configured, every URL goes to the one picked by the {@link EndpointRouter} of the descriptor
+ * at that time. The cache is dropped, and the routers closed, when the configuration changes, see {@link #clear()}.
+ */
+public final class EndpointDescriptor {
+    public static final PathTemplate USER_REGISTER = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_USER_REGISTER);
+    public static final PathTemplate USER_UNREGISTER = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_USER_UNREGISTER);
+    public static final PathTemplate USER_LOGIN = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_USER_LOGIN);
+    public static final PathTemplate EVENT_VALIDATION = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_EVENT_VALIDATION);
+    public static final PathTemplate SEND_TRANSACTION = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_SEND_TRANSACTION);
+    public static final PathTemplate ADD_DEVICE = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_ADD_DEVICE);
+    public static final PathTemplate GENERATE_CHALLENGE = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_GENERATE_CHALLENGE);
+    public static final PathTemplate ACTIVATE_DEVICE = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_ACTIVATE_DEVICE);
+    public static final PathTemplate CHECK_ACTIVATION = PathTemplate.parse(Constants.OSTID_API_CHECK_ACTIVATION);
+    public static final PathTemplate CHECK_SESSION_STATUS = PathTemplate.parse(Constants.OSTID_API_CHECK_SESSION_STATUS);
+    public static final PathTemplate VISUAL_CODE_RENDER = PathTemplate.parse(Constants.OSTID_API_ADAPTIVE_CRTONTO_RENDER);
+    public static final PathTemplate RISK_SEND_TRANSACTION = PathTemplate.parse(Constants.OSTID_API_RISK_SEND_TRANSACTION);
+
+    private static final PathTemplate[] PATHS = {
+            USER_REGISTER, USER_UNREGISTER, USER_LOGIN, EVENT_VALIDATION, SEND_TRANSACTION, ADD_DEVICE, GENERATE_CHALLENGE,
+            ACTIVATE_DEVICE, CHECK_ACTIVATION, CHECK_SESSION_STATUS, VISUAL_CODE_RENDER, RISK_SEND_TRANSACTION
+    };
+
+    private static final ConcurrentHashMap<Key, EndpointDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    private final String tenantName;
+    private final OSConfigurationsService.EnvOptions environment;
+    private final List<String> baseUrls;
+    private final String baseUrl;
+    private final EndpointRouter router;
+
+    private EndpointDescriptor(String tenantName, OSConfigurationsService.EnvOptions environment, List<String> baseEndpoints) {
+        this.tenantName = tenantName;
+        this.environment = environment;
+        List<String> baseUrls = new ArrayList<>(baseEndpoints.size());
+        for (String baseEndpoint : baseEndpoints) {
+            String trimmed = baseEndpoint.trim();
+            if (!trimmed.isEmpty()) {
+                baseUrls.add(trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed);
+            }
+        }
+        if (baseUrls.isEmpty()) {
+            baseUrls.add(StringUtils.getAPIEndpoint(tenantName, environment == null ? null : environment.name()));
+        }
+        this.baseUrls = Collections.unmodifiableList(baseUrls);
+        this.baseUrl = baseUrls.get(0);
+        this.router = baseUrls.size() == 1 ? null : EndpointRouter.of(baseUrls,
+                Integer.getInteger(Constants.OSTID_PROPERTY_ROUTING_PROBE_INTERVAL_SECONDS, Constants.OSTID_DEFAULT_ROUTING_PROBE_INTERVAL_SECONDS));
+    }
+
+    /**
+     * @param serviceConfig the OneSpan realm configuration
+     * @return the descriptor of the configured tenant and environment
+     */
+    public static EndpointDescriptor of(OSConfigurationsService serviceConfig) {
+        String tenantName = serviceConfig.tenantNameToLowerCase();
+        OSConfigurationsService.EnvOptions environment = serviceConfig.environment();
+        List<String> baseEndpoints = serviceConfig.baseEndpoints() == null ? Collections.emptyList() : serviceConfig.baseEndpoints();
+        if (tenantName == null) {
+            return new EndpointDescriptor(null, environment, baseEndpoints);
+        }
+        Key key = new Key(tenantName, environment, baseEndpoints);
+        EndpointDescriptor descriptor = descriptors.get(key);
+        if (descriptor == null) {
+            //computeIfAbsent builds a single descriptor, and so a single router, per key
+            descriptor = descriptors.computeIfAbsent(key, k -> new EndpointDescriptor(tenantName, environment, k.baseEndpoints));
+        }
+        return descriptor;
+    }
+
+    /**
+     * Drops the cached descriptors and closes their routers. Descriptors still held by running nodes keep
+     * answering, from the last measures of their router.
+     */
+    public static void clear() {
+        for (Map.Entry<Key, EndpointDescriptor> entry : descriptors.entrySet()) {
+            EndpointRouter router = entry.getValue().router;
+            if (descriptors.remove(entry.getKey(), entry.getValue()) && router != null) {
+                router.close();
+            }
+        }
+    }
+
+    /**
+     * Finds the API path a URL was expanded from, so it can be reported without the user specific parts.
+     *
+     * @return the path template, null if the URL does not address a known API
+     */
+    public static PathTemplate templateOf(String url) {
+        int scheme = url.indexOf("://");
+        int pathStart = url.indexOf('/', scheme < 0 ? 0 : scheme + 3);
+        if (pathStart < 0) {
+            return null;
+        }
+        for (PathTemplate path : PATHS) {
+            if (path.matches(url, pathStart)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the tenant name in lower case
+     */
+    public String getTenantName() {
+        return tenantName;
+    }
+
+    public OSConfigurationsService.EnvOptions getEnvironment() {
+        return environment;
+    }
+
+    /**
+     * @return every base URL of the tenant, without the trailing slash
+     */
+    public List<String> getBaseUrls() {
+        return baseUrls;
+    }
+
+    /**
+     * @return the base URL the next call should go to
+     */
+    public String getBaseUrl() {
+        return router == null ? baseUrl : router.select();
+    }
+
+    public String url(PathTemplate path) {
+        return url(path, null, null);
+    }
+
+    public String url(PathTemplate path, String arg1) {
+        return url(path, arg1, null);
+    }
+
+    public String url(PathTemplate path, String arg1, String arg2) {
+        String baseUrl = getBaseUrl();
+        int argsLength = (arg1 == null ? 0 : arg1.length()) + (arg2 == null ? 0 : arg2.length());
+        StringBuilder builder = new StringBuilder(baseUrl.length() + path.getLiteralLength() + argsLength * 2);
+        return path.appendTo(builder.append(baseUrl), arg1, arg2).toString();
+    }
+
+    /**
+     * Expands a path addressing a user of this tenant, such as {@link #USER_LOGIN}.
+     */
+    public String userUrl(PathTemplate path, String username) {
+        return url(path, username, tenantName);
+    }
+
+    private static final class Key {
+        private final String tenantName;
+        private final OSConfigurationsService.EnvOptions environment;
+        private final List<String> baseEndpoints;
+
+        private Key(String tenantName, OSConfigurationsService.EnvOptions environment, List<String> baseEndpoints) {
+            this.tenantName = tenantName;
+            this.environment = environment;
+            this.baseEndpoints = baseEndpoints;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return tenantName.equals(other.tenantName) && environment == other.environment && baseEndpoints.equals(other.baseEndpoints);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantName, environment, baseEndpoints);
+        }
+    }
+}
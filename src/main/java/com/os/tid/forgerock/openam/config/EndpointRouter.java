@@ -0,0 +1,229 @@
+package com.os.tid.forgerock.openam.config;
+
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.RestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the base endpoint of a tenant among the ones configured in the realm, e.g. regional or private link hosts.
+ * <p>
+ * Every endpoint is probed in the background with a plain GET of its base URL, and the round trip times feed an
+ * exponentially weighted moving average. The router prefers the endpoints in their configured order, and only
+ * moves to a later one which is at least {@value #SWITCH_MARGIN_PERCENT}% faster. An endpoint whose calls fail
+ * {@value #FAILURE_THRESHOLD} times in a row, with an I/O error or a 5xx status, is skipped until a probe
+ * succeeds again. Only a 2xx or 3xx response resets the count, a 4xx leaves it unchanged. A probe only checks
+ * that the endpoint answers, so any status below 500 counts as a success. If no endpoint is healthy, the first
+ * one is used.
+ * <p>
+ * Endpoints are tracked by base URL and shared by the routers of all realms, so the API calls report their
+ * outcome with {@link #record(String, int)} without knowing the router they went through. An endpoint is probed at the
+ * interval of the last router built over it, until every router using it is closed.
+ */
+public final class EndpointRouter {
+    static final int FAILURE_THRESHOLD = 3;
+    static final int SWITCH_MARGIN_PERCENT = 20;
+    private static final double EWMA_WEIGHT = 0.3;
+    private static final int PROBE_TIMEOUT_MILLIS = 5000;
+
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final ConcurrentHashMap<String, Edge> edges = new ConcurrentHashMap<>();
+    private static volatile ScheduledExecutorService prober;
+
+    private final Edge[] candidates;
+    //guarded by the edges map
+    private boolean closed;
+
+    private EndpointRouter(List<String> baseUrls) {
+        this.candidates = new Edge[baseUrls.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = edges.computeIfAbsent(baseUrls.get(i), Edge::new);
+        }
+    }
+
+    /**
+     * @param baseUrls the base endpoints without trailing slash, in order of preference
+     * @return a router probing the endpoints every {@code probeIntervalSeconds}
+     */
+    public static EndpointRouter of(List<String> baseUrls, long probeIntervalSeconds) {
+        ScheduledExecutorService executor = prober();
+        synchronized (edges) {
+            EndpointRouter router = new EndpointRouter(baseUrls);
+            for (Edge edge : router.candidates) {
+                edge.routers++;
+                if (edge.probe == null || edge.probeIntervalSeconds != probeIntervalSeconds) {
+                    if (edge.probe != null) {
+                        edge.probe.cancel(false);
+                    }
+                    edge.probeIntervalSeconds = probeIntervalSeconds;
+                    edge.probe = executor.scheduleWithFixedDelay(edge::probe, 0, probeIntervalSeconds, TimeUnit.SECONDS);
+                }
+            }
+            return router;
+        }
+    }
+
+    /**
+     * Stops probing the endpoints of this router which no other router uses, once it has been replaced.
+     */
+    public void close() {
+        synchronized (edges) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Edge edge : candidates) {
+                if (--edge.routers == 0) {
+                    edge.probe.cancel(false);
+                    edges.remove(edge.baseUrl, edge);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the base URL the next call should go to
+     */
+    public String select() {
+        Edge best = null;
+        for (Edge edge : candidates) {
+            if (!edge.isHealthy()) {
+                continue;
+            }
+            if (best == null || edge.ewmaMillis * 100 < best.ewmaMillis * (100 - SWITCH_MARGIN_PERCENT)) {
+                best = edge;
+            }
+        }
+        return (best == null ? candidates[0] : best).baseUrl;
+    }
+
+    /**
+     * Records the outcome of an API call, if its endpoint is routed.
+     *
+     * @param status the HTTP status of the response, 0 if the call failed without a response
+     */
+    public static void record(String url, int status) {
+        if (edges.isEmpty()) {
+            return;
+        }
+        Edge edge = edgeOf(url);
+        if (edge != null) {
+            if (status == 0 || status >= 500) {
+                edge.failed();
+            } else if (status < 400) {
+                edge.failures = 0;
+            }
+        }
+    }
+
+    /**
+     * @return the edge with the longest base URL the given URL starts with, null if none
+     */
+    private static Edge edgeOf(String url) {
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        int originEnd = origin(path).length();
+        while (true) {
+            Edge edge = edges.get(path);
+            if (edge != null) {
+                return edge;
+            }
+            int slash = path.lastIndexOf('/');
+            if (slash < originEnd) {
+                return null;
+            }
+            path = path.substring(0, slash);
+        }
+    }
+
+    /**
+     * @return the scheme, host and port of a URL
+     */
+    public static String origin(String url) {
+        int start = url.indexOf("://");
+        int end = url.indexOf('/', start < 0 ? 0 : start + 3);
+        return end < 0 ? url : url.substring(0, end);
+    }
+
+    private static ScheduledExecutorService prober() {
+        ScheduledExecutorService executor = prober;
+        if (executor == null) {
+            synchronized (EndpointRouter.class) {
+                executor = prober;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "OneSpan-Endpoint-Prober");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    prober = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static final class Edge {
+        private final String baseUrl;
+        //guarded by the edges map
+        private int routers;
+        private long probeIntervalSeconds;
+        private ScheduledFuture<?> probe;
+        //unmeasured endpoints are the slowest, so the first configured one wins until the probes report
+        private volatile double ewmaMillis = Double.MAX_VALUE;
+        private volatile int failures;
+
+        private Edge(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        private boolean isHealthy() {
+            return failures < FAILURE_THRESHOLD;
+        }
+
+        private void failed() {
+            //racy increments only delay the failover by a call
+            if (++failures == FAILURE_THRESHOLD) {
+                logger.warn("EndpointRouter {} failed {} times in a row, failing over", baseUrl, FAILURE_THRESHOLD);
+            }
+        }
+
+        private void probe() {
+            long start = System.nanoTime();
+            try {
+                HttpURLConnection conn = RestUtils.openConnection(baseUrl + "/");
+                conn.setConnectTimeout(PROBE_TIMEOUT_MILLIS);
+                conn.setReadTimeout(PROBE_TIMEOUT_MILLIS);
+                conn.setRequestMethod("GET");
+                int status = conn.getResponseCode();
+                InputStream in = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
+                if (in != null) {
+                    try (InputStream body = in) {
+                        body.readAllBytes();
+                    }
+                }
+                if (status >= 500) {
+                    failures = FAILURE_THRESHOLD;
+                    return;
+                }
+                double millis = (System.nanoTime() - start) / 1e6;
+                ewmaMillis = ewmaMillis == Double.MAX_VALUE ? millis : EWMA_WEIGHT * millis + (1 - EWMA_WEIGHT) * ewmaMillis;
+                if (!isHealthy()) {
+                    logger.info("EndpointRouter {} is back", baseUrl);
+                }
+                failures = 0;
+            } catch (IOException e) {
+                failures = FAILURE_THRESHOLD;
+                logger.debug("EndpointRouter probe of {} failed: {}", baseUrl, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.os.tid.forgerock.openam.config;
+
+import com.iplanet.sso.SSOException;
+import com.iplanet.sso.SSOToken;
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+import com.os.tid.forgerock.openam.utils.ApiTimeouts;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.RestInterceptors;
+import com.sun.identity.security.AdminTokenAction;
+import com.sun.identity.sm.SMSException;
+import com.sun.identity.sm.ServiceConfigManager;
+import com.sun.identity.sm.ServiceListener;
+import org.forgerock.openam.core.realms.Realm;
+import org.forgerock.openam.sm.AnnotatedServiceRegistry;
+
+import java.security.AccessController;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes one {@link OSConfigurationSnapshot} per realm. Snapshots are built on first use and the whole
+ * snapshot map is swapped out as soon as the SMS notifies a change of {@link OSConfigurationsService},
+ * so the nodes pick up a new tenant or environment without restarting AM.
+ * <p>
+ * The transport interceptors and the API timeouts of a realm are registered for its base URLs when its snapshot is
+ * built. Realms sharing a base URL share these settings: the first realm loaded registers them, and the others are
+ * logged and ignored if they configure other ones. A change of the configuration drops them with the snapshots.
+ */
+public final class OSConfigurationRegistry {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final String SERVICE_NAME = OSConfigurationsService.class.getSimpleName();
+
+    private static volatile ConcurrentHashMap<Realm, OSConfigurationSnapshot> snapshots = new ConcurrentHashMap<>();
+    private static final Map<String, OSConfigurationSnapshot> transportByBaseUrl = new HashMap<>();
+    private static ServiceConfigManager serviceConfigManager;
+    private static String listenerId;
+
+    private OSConfigurationRegistry() {
+    }
+
+    /**
+     * @param realm           the realm of the node
+     * @param serviceRegistry the registry used to load the configuration on a cache miss
+     * @return the current configuration snapshot of the realm
+     */
+    public static OSConfigurationSnapshot getSnapshot(Realm realm, AnnotatedServiceRegistry serviceRegistry) throws SSOException, SMSException {
+        ConcurrentHashMap<Realm, OSConfigurationSnapshot> current = snapshots;
+        OSConfigurationSnapshot snapshot = current.get(realm);
+        if (snapshot == null) {
+            //a snapshot built while the configuration changes lands in the discarded map
+            snapshot = new OSConfigurationSnapshot(serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get());
+            current.put(realm, snapshot);
+            registerTransport(realm, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drops every snapshot, the next lookup of each realm reloads its configuration. The cached endpoints, the
+     * transport interceptors and the API timeouts go with them.
+     */
+    public static void invalidate() {
+        snapshots = new ConcurrentHashMap<>();
+        synchronized (transportByBaseUrl) {
+            transportByBaseUrl.clear();
+            RestInterceptors.clear();
+            ApiTimeouts.clear();
+        }
+        EndpointDescriptor.clear();
+    }
+
+    private static void registerTransport(Realm realm, OSConfigurationSnapshot snapshot) {
+        synchronized (transportByBaseUrl) {
+            for (String baseUrl : snapshot.getEndpoint().getBaseUrls()) {
+                OSConfigurationSnapshot registered = transportByBaseUrl.putIfAbsent(baseUrl, snapshot);
+                if (registered == null) {
+                    RestInterceptors.register(baseUrl, RestInterceptors.parse(snapshot.transportInterceptors()));
+                    ApiTimeouts.register(baseUrl, snapshot.apiConnectTimeout(), snapshot.apiRequestTimeout());
+                } else if (!registered.transportInterceptors().equals(snapshot.transportInterceptors())
+                        || registered.apiConnectTimeout() != snapshot.apiConnectTimeout()
+                        || registered.apiRequestTimeout() != snapshot.apiRequestTimeout()) {
+                    logger.warn("OSConfigurationRegistry ignores the transport settings of realm {} for {}, registered by another realm",
+                            realm.asPath(), baseUrl);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts listening for changes of the OneSpan configuration service.
+     */
+    public static synchronized void registerListener() {
+        if (listenerId != null) {
+            return;
+        }
+        try {
+            SSOToken adminToken = AccessController.doPrivileged(AdminTokenAction.getInstance());
+            serviceConfigManager = new ServiceConfigManager(SERVICE_NAME, adminToken);
+            listenerId = serviceConfigManager.addListener(new ConfigurationListener());
+        } catch (SSOException | SMSException e) {
+            logger.error("OSConfigurationRegistry failed to listen for configuration changes: {}", e.getMessage());
+        }
+    }
+
+    public static synchronized void removeListener() {
+        if (listenerId != null) {
+            serviceConfigManager.removeListener(listenerId);
+            listenerId = null;
+            serviceConfigManager = null;
+        }
+        invalidate();
+    }
+
+    private static class ConfigurationListener implements ServiceListener {
+        @Override
+        public void schemaChanged(String serviceName, String version) {
+            onChange(serviceName);
+        }
+
+        @Override
+        public void globalConfigChanged(String serviceName, String version, String groupName, String serviceComponent, int type) {
+            onChange(serviceName);
+        }
+
+        @Override
+        public void organizationConfigChanged(String serviceName, String version, String orgName, String groupName, String serviceComponent, int type) {
+            onChange(serviceName);
+        }
+
+        private void onChange(String serviceName) {
+            if (SERVICE_NAME.equals(serviceName)) {
+                logger.debug("OSConfigurationRegistry configuration changed, invalidating snapshots");
+                invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.os.tid.forgerock.openam.config;
+
+import com.google.common.collect.ImmutableList;
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+
+import java.util.List;
+
+/**
+ * Immutable copy of the OneSpan realm configuration together with the values derived from it.
+ * Reading a snapshot never goes back to the SMS proxy, see {@link OSConfigurationRegistry}.
+ */
+public final class OSConfigurationSnapshot implements OSConfigurationsService {
+    private final String tenantName;
+    private final String tenantNameToLowerCase;
+    private final EnvOptions environment;
+    private final String applicationRef;
+    private final int sharedStateCompressionThreshold;
+    private final boolean sharedStateMeasurement;
+    private final List<String> baseEndpoints;
+    private final List<String> transportInterceptors;
+    private final int apiConnectTimeout;
+    private final int apiRequestTimeout;
+    private final EndpointDescriptor endpoint;
+
+    OSConfigurationSnapshot(OSConfigurationsService serviceConfig) {
+        this.tenantNameToLowerCase = serviceConfig.tenantNameToLowerCase();
+        this.environment = serviceConfig.environment();
+        this.applicationRef = serviceConfig.applicationRef();
+        this.sharedStateCompressionThreshold = serviceConfig.sharedStateCompressionThreshold();
+        this.sharedStateMeasurement = serviceConfig.sharedStateMeasurement();
+        this.baseEndpoints = serviceConfig.baseEndpoints() == null ? ImmutableList.of() : ImmutableList.copyOf(serviceConfig.baseEndpoints());
+        this.transportInterceptors = serviceConfig.transportInterceptors() == null ? ImmutableList.of() : ImmutableList.copyOf(serviceConfig.transportInterceptors());
+        this.apiConnectTimeout = serviceConfig.apiConnectTimeout();
+        this.apiRequestTimeout = serviceConfig.apiRequestTimeout();
+        String tenantName = serviceConfig.tenantName();
+        this.tenantName = tenantName == null ? tenantNameToLowerCase : tenantName;
+        this.endpoint = EndpointDescriptor.of(this);
+    }
+
+    @Override
+    public String tenantName() {
+        return tenantName;
+    }
+
+    @Override
+    public EnvOptions environment() {
+        return environment;
+    }
+
+    @Override
+    public String applicationRef() {
+        return applicationRef;
+    }
+
+    @Override
+    public int sharedStateCompressionThreshold() {
+        return sharedStateCompressionThreshold;
+    }
+
+    @Override
+    public boolean sharedStateMeasurement() {
+        return sharedStateMeasurement;
+    }
+
+    @Override
+    public List<String> baseEndpoints() {
+        return baseEndpoints;
+    }
+
+    @Override
+    public List<String> transportInterceptors() {
+        return transportInterceptors;
+    }
+
+    @Override
+    public int apiConnectTimeout() {
+        return apiConnectTimeout;
+    }
+
+    @Override
+    public int apiRequestTimeout() {
+        return apiRequestTimeout;
+    }
+
+    @Override
+    public String tenantNameToLowerCase() {
+        return tenantNameToLowerCase;
+    }
+
+    /**
+     * @return the endpoint of the configured tenant and environment
+     */
+    public EndpointDescriptor getEndpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,101 @@
+package com.os.tid.forgerock.openam.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pre-parsed API path such as {@link Constants#OSTID_API_ADAPTIVE_USER_LOGIN}. The positional
+ * {@code %n$s} placeholders are resolved once, so expanding the template only appends strings and
+ * yields exactly what {@link String#format(String, Object...)} would.
+ */
+public final class PathTemplate {
+    private final String template;
+    private final String[] literals;
+    private final int[] argIndexes;
+    private final int literalLength;
+
+    private PathTemplate(String template, String[] literals, int[] argIndexes) {
+        this.template = template;
+        this.literals = literals;
+        this.argIndexes = argIndexes;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @param template a format string which only uses positional {@code %1$s} and {@code %2$s} placeholders
+     * @return the parsed template
+     */
+    public static PathTemplate parse(String template) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> argIndexes = new ArrayList<>();
+        int start = 0;
+        int index = template.indexOf('%');
+        while (index >= 0) {
+            if (index + 3 >= template.length() || template.charAt(index + 2) != '$'
+                    || (template.charAt(index + 3) != 's' && template.charAt(index + 3) != 'd')) {
+                throw new IllegalArgumentException("Unsupported placeholder in path template: " + template);
+            }
+            int argIndex = template.charAt(index + 1) - '0';
+            if (argIndex < 1 || argIndex > 2) {
+                throw new IllegalArgumentException("Unsupported argument index in path template: " + template);
+            }
+            literals.add(template.substring(start, index));
+            argIndexes.add(argIndex);
+            start = index + 4;
+            index = template.indexOf('%', start);
+        }
+        literals.add(template.substring(start));
+        return new PathTemplate(template, literals.toArray(new String[0]), argIndexes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public StringBuilder appendTo(StringBuilder builder, String arg1, String arg2) {
+        builder.append(literals[0]);
+        for (int i = 0; i < argIndexes.length; i++) {
+            builder.append(argIndexes[i] == 1 ? arg1 : arg2).append(literals[i + 1]);
+        }
+        return builder;
+    }
+
+    /**
+     * @param path a string holding an expanded path
+     * @param from the index of the path in the string
+     * @return whether the path, up to the end of the string, is an expansion of this template with non empty arguments
+     */
+    public boolean matches(String path, int from) {
+        if (!path.startsWith(literals[0], from)) {
+            return false;
+        }
+        int position = from + literals[0].length();
+        for (int i = 1; i < literals.length; i++) {
+            String literal = literals[i];
+            int index = i == literals.length - 1
+                    ? (path.endsWith(literal) ? path.length() - literal.length() : -1)
+                    : path.indexOf(literal, position + 1);
+            if (index <= position) {
+                return false;
+            }
+            position = index + literal.length();
+        }
+        return position == path.length();
+    }
+
+    /**
+     * @return the number of characters of the template without its placeholders
+     */
+    public int getLiteralLength() {
+        return literalLength;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,177 @@
+package com.os.tid.forgerock.openam.models;
+
+import com.google.common.hash.Hashing;
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.utils.LogRedactor;
+import org.forgerock.json.JsonValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Error returned by the OneSpan API, as kept in shared state for the rest of the journey.
+ * <p>
+ * The request payload is redacted by {@link LogRedactor}, so credentials and the CDDC fingerprint are masked, then
+ * reduced to an excerpt of its first {@value #MAX_PAYLOAD_EXCERPT} characters, its length and its SHA-256 hash,
+ * which match the payload written to the debug log. The messages of the server are capped to
+ * {@value #MAX_MESSAGE_LENGTH} characters.
+ * <p>
+ * The record is stored as a JSON object in {@link Constants#OSTID_ERROR_RECORD} and only formatted when it is
+ * displayed, see {@link #lines()}.
+ */
+public class ErrorRecord {
+    static final int MAX_MESSAGE_LENGTH = 512;
+    static final int MAX_PAYLOAD_EXCERPT = 256;
+
+    private static final String MESSAGE = "message";
+    private static final String ERROR_CODE = "errorCode";
+    private static final String LOG_CORRELATION_ID = "logCorrelationId";
+    private static final String VALIDATION_MESSAGE = "validationMessage";
+    private static final String PAYLOAD = "payload";
+    private static final String PAYLOAD_LENGTH = "payloadLength";
+    private static final String PAYLOAD_SHA256 = "payloadSha256";
+
+    private final String message;
+    private final int errorCode;
+    private final String logCorrelationId;
+    private final String validationMessage;
+    private final String payload;
+    private final int payloadLength;
+    private final String payloadSha256;
+
+    private ErrorRecord(String message, int errorCode, String logCorrelationId, String validationMessage,
+                        String payload, int payloadLength, String payloadSha256) {
+        this.message = message;
+        this.errorCode = errorCode;
+        this.logCorrelationId = logCorrelationId;
+        this.validationMessage = validationMessage;
+        this.payload = payload;
+        this.payloadLength = payloadLength;
+        this.payloadSha256 = payloadSha256;
+    }
+
+    /**
+     * @param errorCode the HTTP status of the response
+     * @param validationMessage the first validation error, null if there is none
+     * @param requestJSON the method, URL and payload of the failed request, redacted before it is kept
+     */
+    public static ErrorRecord of(String message, int errorCode, String logCorrelationId, String validationMessage, String requestJSON) {
+        String payload = null;
+        String payloadSha256 = null;
+        int payloadLength = 0;
+        if (requestJSON != null) {
+            requestJSON = LogRedactor.redact(requestJSON);
+            payloadLength = requestJSON.length();
+            payload = truncate(requestJSON, MAX_PAYLOAD_EXCERPT);
+            payloadSha256 = Hashing.sha256().hashString(requestJSON, StandardCharsets.UTF_8).toString();
+        }
+        return new ErrorRecord(truncate(message, MAX_MESSAGE_LENGTH), errorCode, logCorrelationId,
+                truncate(validationMessage, MAX_MESSAGE_LENGTH), payload, payloadLength, payloadSha256);
+    }
+
+    /**
+     * @return the record stored in the {@link Constants#OSTID_ERROR_RECORD} attribute, null if there is none
+     */
+    public static ErrorRecord from(JsonValue value) {
+        if (!value.isMap()) {
+            return null;
+        }
+        return new ErrorRecord(value.get(MESSAGE).asString(),
+                asInt(value.get(ERROR_CODE)),
+                value.get(LOG_CORRELATION_ID).asString(),
+                value.get(VALIDATION_MESSAGE).asString(),
+                value.get(PAYLOAD).asString(),
+                asInt(value.get(PAYLOAD_LENGTH)),
+                value.get(PAYLOAD_SHA256).asString());
+    }
+
+    /**
+     * Stores the record into the shared state, replacing any previous error, including a plain
+     * {@link Constants#OSTID_ERROR_MESSAGE}.
+     */
+    public void putInto(JsonValue sharedState) {
+        sharedState.remove(Constants.OSTID_ERROR_MESSAGE);
+        sharedState.put(Constants.OSTID_ERROR_RECORD, toMap());
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(MESSAGE, message);
+        map.put(ERROR_CODE, errorCode);
+        map.put(LOG_CORRELATION_ID, logCorrelationId);
+        if (validationMessage != null) {
+            map.put(VALIDATION_MESSAGE, validationMessage);
+        }
+        if (payload != null) {
+            map.put(PAYLOAD, payload);
+            map.put(PAYLOAD_LENGTH, payloadLength);
+            map.put(PAYLOAD_SHA256, payloadSha256);
+        }
+        return map;
+    }
+
+    /**
+     * @return the lines displayed to the user, in the order of the former error messages
+     */
+    public List<String> lines() {
+        List<String> lines = new ArrayList<>(5);
+        lines.add("Error Message: " + message + ";");
+        if (errorCode != 0) {
+            lines.add("Error Code: " + errorCode + ";");
+        }
+        if (payload != null) {
+            lines.add(payload.length() < payloadLength
+                    ? "Request Payload: " + payload + "... (" + payloadLength + " characters, SHA-256 " + payloadSha256 + ");"
+                    : "Request Payload: " + payload + ";");
+        }
+        if (validationMessage != null) {
+            lines.add("Validation Message: " + validationMessage + ";");
+        }
+        lines.add("Log Correction ID: " + logCorrelationId + ";");
+        return lines;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    public String getLogCorrelationId() {
+        return logCorrelationId;
+    }
+
+    public String getValidationMessage() {
+        return validationMessage;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public int getPayloadLength() {
+        return payloadLength;
+    }
+
+    public String getPayloadSha256() {
+        return payloadSha256;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("<br />", lines());
+    }
+
+    private static int asInt(JsonValue value) {
+        return value.isNumber() ? value.asInteger() : 0;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Responses of the OneSpan API, decoded by the codecs generated at build time.
+ */
+@GenerateJsonCodecs
+package com.os.tid.forgerock.openam.models;
+
+import com.os.tid.forgerock.openam.codegen.GenerateJsonCodecs;
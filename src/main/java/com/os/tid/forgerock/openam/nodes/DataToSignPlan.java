@@ -0,0 +1,250 @@
+package com.os.tid.forgerock.openam.nodes;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.nodes.OS_Auth_ValidateTransactionNode.DataToSign;
+import org.forgerock.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The configuration of a {@link OS_Auth_ValidateTransactionNode} compiled once into the list of shared state keys
+ * to read and the JSON fragments to write around their values, with the field names already escaped.
+ * A request then reads each key once and appends straight to the payload. Plans are immutable and the node
+ * configuration is never modified.
+ */
+public final class DataToSignPlan {
+    private static final String[] FIDO = segments(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_FIDO);
+    private static final String[] STANDARD = segments(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_STANDARD);
+    private static final String[] SECURE_CHANNEL = segments(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_SECURECHANNEL);
+    private static final String[] TRANSACTION_MESSAGE = segments(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_TRANSACTIONMESSAGE);
+    private static final String[] DATA_FIELD = segments(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_TRANSACTIONMESSAGE_DATAFIELDS);
+    private static final String[] REQUEST_ID = segments(Constants.OSTID_JSON_ADAPTIVE_REQUESTID);
+
+    private final DataToSign dataToSign;
+    private final Field[] optionalAttributes;
+    private final Field[] adaptiveAttributes;
+    private final Field[] dataFields;
+    private final String[] standardKeys;
+    private final String signatureKey;
+    private final String fidoProtocolKey;
+    private final String authenticationResponseKey;
+    private final String relationshipRefKey;
+
+    private DataToSignPlan(OS_Auth_ValidateTransactionNode.Config config) {
+        this.dataToSign = config.dataToSign();
+        this.signatureKey = config.signatureInSharedData();
+
+        List<Field> optional = new ArrayList<>();
+        for (Map.Entry<String, String> entry : config.optionalAttributes().entrySet()) {
+            optional.add(new Field(entry.getValue(), "\"" + escape(entry.getKey()) + "\":\"", "\","));
+        }
+        this.optionalAttributes = optional.toArray(new Field[0]);
+
+        Map<String, String> fido = config.fidoDataToSign();
+        this.fidoProtocolKey = fido.getOrDefault("fidoProtocol", "");
+        this.authenticationResponseKey = fido.getOrDefault("authenticationResponse", "");
+
+        List<String> standard = config.standardDataToSign();
+        this.standardKeys = standard == null ? new String[0] : standard.toArray(new String[0]);
+
+        Map<String, String> adaptive = config.adaptiveAttributes();
+        List<Field> attributes = new ArrayList<>();
+        for (Map.Entry<String, String> entry : adaptive.entrySet()) {
+            attributes.add(new Field(entry.getValue(), "\"" + escape(entry.getKey()) + "\":\"", "\""));
+        }
+        this.adaptiveAttributes = attributes.toArray(new Field[0]);
+        this.relationshipRefKey = adaptive.getOrDefault("relationshipRef", "relationshipRef");
+
+        //the transaction details shown to the user always come from the adaptive attributes, so they cannot be tampered with
+        Map<String, String> dataToSignMap = new LinkedHashMap<>(config.adaptiveDataToSign());
+        dataToSignMap.put("login", config.userNameInSharedData());
+        dataToSignMap.put("beneficiary", adaptive.get("creditorName"));
+        dataToSignMap.put("iban", adaptive.get("creditorIBAN"));
+        dataToSignMap.put("amount", adaptive.get("amount"));
+        dataToSignMap.put("currency", adaptive.get("currency"));
+        List<Field> fields = new ArrayList<>();
+        for (Map.Entry<String, String> entry : dataToSignMap.entrySet()) {
+            fields.add(new Field(entry.getValue(), DATA_FIELD[0] + escape(entry.getKey()) + DATA_FIELD[1], DATA_FIELD[2]));
+        }
+        this.dataFields = fields.toArray(new Field[0]);
+    }
+
+    public static DataToSignPlan compile(OS_Auth_ValidateTransactionNode.Config config) {
+        return new DataToSignPlan(config);
+    }
+
+    /**
+     * Appends the optional attributes, each followed by a comma.
+     *
+     * @return false if an attribute is missing from shared state
+     */
+    public boolean appendOptionalAttributes(JsonValue sharedState, StringBuilder out) {
+        boolean complete = true;
+        for (Field field : optionalAttributes) {
+            complete &= field.appendTo(sharedState, out);
+        }
+        return complete;
+    }
+
+    /**
+     * Appends the {@code data} member of the payload.
+     *
+     * @return false if a value is missing from shared state, the content of {@code out} is undefined then
+     */
+    public boolean appendDataToSign(JsonValue sharedState, StringBuilder out) {
+        switch (dataToSign) {
+            case fido:
+                return appendFido(sharedState, out);
+            case standard:
+                return appendStandard(sharedState, out);
+            case secureChannel:
+                return appendSecureChannel(sharedState, out);
+            case transactionMessage:
+                out.append(TRANSACTION_MESSAGE[0]);
+                boolean complete = true;
+                for (int i = 0; i < dataFields.length; i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    complete &= dataFields[i].appendTo(sharedState, out);
+                }
+                out.append(TRANSACTION_MESSAGE[1]);
+                return complete;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Appends the adaptive attributes separated by commas; only used with {@link DataToSign#transactionMessage}.
+     *
+     * @return false if an attribute is missing from shared state
+     */
+    public boolean appendAdaptiveAttributes(JsonValue sharedState, StringBuilder out) {
+        boolean complete = true;
+        for (int i = 0; i < adaptiveAttributes.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            complete &= adaptiveAttributes[i].appendTo(sharedState, out);
+        }
+        return complete;
+    }
+
+    public DataToSign getDataToSign() {
+        return dataToSign;
+    }
+
+    /**
+     * @return the shared state key of the relationship reference
+     */
+    public String getRelationshipRefKey() {
+        return relationshipRefKey;
+    }
+
+    private boolean appendFido(JsonValue sharedState, StringBuilder out) {
+        JsonValue protocol = sharedState.get(fidoProtocolKey);
+        JsonValue response = sharedState.get(authenticationResponseKey);
+        boolean isFido2 = protocol.isString() && protocol.asString().equalsIgnoreCase("FIDO2");
+        JsonValue requestId = sharedState.get(Constants.OSTID_REQUEST_ID);
+        if (!protocol.isString() || !response.isString() || (isFido2 && requestId.isNull())) {
+            return false;
+        }
+        out.append(FIDO[0]);
+        if (isFido2) {
+            out.append(REQUEST_ID[0]).append(requestId.asString()).append(REQUEST_ID[1]);
+        }
+        out.append(FIDO[1]).append(protocol.asString()).append(FIDO[2]).append(response.asString()).append(FIDO[3]);
+        return true;
+    }
+
+    private boolean appendStandard(JsonValue sharedState, StringBuilder out) {
+        out.append(STANDARD[0]);
+        boolean complete = true;
+        boolean first = true;
+        for (String key : standardKeys) {
+            JsonValue value = sharedState.get(key);
+            if (!value.isString()) {
+                complete = false;
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            out.append('"').append(value.asString()).append('"');
+            first = false;
+        }
+        JsonValue signature = sharedState.get(signatureKey);
+        if (!signature.isString()) {
+            return false;
+        }
+        out.append(STANDARD[1]).append(signature.asString()).append(STANDARD[2]);
+        return complete;
+    }
+
+    private boolean appendSecureChannel(JsonValue sharedState, StringBuilder out) {
+        JsonValue requestId = sharedState.get(Constants.OSTID_REQUEST_ID);
+        JsonValue signature = sharedState.get(signatureKey);
+        if (!requestId.isString() || !signature.isString()) {
+            return false;
+        }
+        out.append(SECURE_CHANNEL[0]).append(requestId.asString())
+                .append(SECURE_CHANNEL[1]).append(signature.asString()).append(SECURE_CHANNEL[2]);
+        return true;
+    }
+
+    /**
+     * Splits a template on its {@code %n$s} placeholders, in the order they appear.
+     */
+    private static String[] segments(String template) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int index = template.indexOf('%');
+        while (index >= 0) {
+            segments.add(template.substring(start, index));
+            start = template.indexOf('s', index) + 1;
+            index = template.indexOf('%', start);
+        }
+        segments.add(template.substring(start));
+        return segments.toArray(new String[0]);
+    }
+
+    private static String escape(String name) {
+        StringBuilder escaped = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * A shared state value and the JSON written around it.
+     */
+    private static final class Field {
+        private final String key;
+        private final String prefix;
+        private final String suffix;
+
+        private Field(String key, String prefix, String suffix) {
+            this.key = key;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        private boolean appendTo(JsonValue sharedState, StringBuilder out) {
+            JsonValue value = key == null ? null : sharedState.get(key);
+            if (value == null || !value.isString()) {
+                return false;
+            }
+            out.append(prefix).append(value.asString()).append(suffix);
+            return true;
+        }
+    }
+}
@@ -24,6 +24,8 @@ import java.util.Map;
 import com.google.common.collect.ImmutableList;
 import com.iplanet.sso.SSOException;
 import com.iplanet.sso.SSOToken;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.utils.PluginWarmUp;
 import com.sun.identity.security.AdminTokenAction;
 import com.sun.identity.sm.SMSException;
 import com.sun.identity.sm.ServiceManager;
@@ -126,17 +128,26 @@ public class OSAuthNodePlugin extends AbstractNodeAmPlugin {
 	 * {@link #onInstall()}, {@link #onAmUpgrade(String, String)} and
 	 * {@link #upgrade(String)} have been called (if relevant).
 	 *
-	 * No need to implement this unless your AuthNode has specific requirements on
-	 * startup.
+	 * Starts the configuration listener and the background warm-up of the nodes.
 	 *
 	 * @param startupType The type of startup that is taking place.
 	 */
 	@Override
 	public void onStartup(StartupType startupType) throws PluginException {
 		pluginTools.startService(serviceClass);
+		OSConfigurationRegistry.registerListener();
+		PluginWarmUp.start();
 		super.onStartup(startupType);
 	}
 
+	/**
+	 * Handle plugin shutdown. Stops the background threads started by the nodes and the configuration listener.
+	 */
+	@Override
+	public void onShutdown() {
+		OSConfigurationRegistry.removeListener();
+		super.onShutdown();
+	}
 
 
 	/**
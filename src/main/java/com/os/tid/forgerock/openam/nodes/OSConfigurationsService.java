@@ -15,10 +15,14 @@
  */
 package com.os.tid.forgerock.openam.nodes;
 
+import com.os.tid.forgerock.openam.config.Constants;
 import com.sun.identity.sm.RequiredValueValidator;
 import org.forgerock.openam.annotations.sm.Attribute;
 import org.forgerock.openam.annotations.sm.Config;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Common Configurations for the OneSpan Auth Tree Nodes.
  */
@@ -34,6 +38,36 @@ public interface OSConfigurationsService {
     @Attribute(order = 300, validators = RequiredValueValidator.class)
     String applicationRef();
 
+    @Attribute(order = 400)
+    default int sharedStateCompressionThreshold() {
+        return 0;
+    }
+
+    @Attribute(order = 500)
+    default boolean sharedStateMeasurement() {
+        return false;
+    }
+
+    @Attribute(order = 600)
+    default List<String> baseEndpoints() {
+        return Collections.emptyList();
+    }
+
+    @Attribute(order = 700)
+    default List<String> transportInterceptors() {
+        return Collections.emptyList();
+    }
+
+    @Attribute(order = 800)
+    default int apiConnectTimeout() {
+        return Constants.OSTID_DEFAULT_API_CONNECT_TIMEOUT_SECONDS;
+    }
+
+    @Attribute(order = 900)
+    default int apiRequestTimeout() {
+        return Constants.OSTID_DEFAULT_API_REQUEST_TIMEOUT_SECONDS;
+    }
+
     default String tenantNameToLowerCase() {return tenantName().toLowerCase();}
 
     enum EnvOptions {
@@ -15,18 +15,22 @@
  */
 package com.os.tid.forgerock.openam.nodes;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
-import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.authentication.callbacks.ScriptTextOutputCallback;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
@@ -34,15 +38,11 @@ import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.security.auth.callback.Callback;
 import java.io.IOException;
 import java.util.List;
-import java.util.Objects;
 import java.util.ResourceBundle;
-import java.util.stream.Stream;
 
 /**
  * This node invokes the Activate Device API, which finalizes the OCA provisioning process.
@@ -52,9 +52,9 @@ import java.util.stream.Stream;
                 configClass = OS_Auth_ActivateDeviceNode.Config.class,
                 tags = {"OneSpan", "mfa", "basic authentication"})
 public class OS_Auth_ActivateDeviceNode implements Node {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_ActivateDeviceNode";
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OS Auth Activate Device Node.
@@ -65,7 +65,7 @@ public class OS_Auth_ActivateDeviceNode implements Node {
     @Inject
     public OS_Auth_ActivateDeviceNode(@Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -73,10 +73,14 @@ public class OS_Auth_ActivateDeviceNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_ActivateDeviceNode started");
+        Tracing.attach(context, "OS_Auth_ActivateDeviceNode");
         JsonValue sharedState = context.sharedState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         JsonValue registration_id = sharedState.get(Constants.OSTID_REGISTRATION_ID);
         JsonValue signature = sharedState.get(Constants.OSTID_SIGNATURE);
@@ -107,36 +111,21 @@ public class OS_Auth_ActivateDeviceNode implements Node {
             );
 
             try {
-                String url = StringUtils.getAPIEndpoint(tenantName,environment) + String.format(Constants.OSTID_API_ADAPTIVE_ACTIVATE_DEVICE,registration_id.asString());
-                HttpEntity httpEntity = RestUtils.doPostJSON(url, activateDeviceJSON);
-                JSONObject responseJSON = httpEntity.getResponseJSON();
-                if(httpEntity.isSuccess()) {
+                String url = endpoint.url(EndpointDescriptor.ACTIVATE_DEVICE, registration_id.asString());
+                ApiResult<JSONObject> result = ApiExecutor.getInstance().execute(
+                        ApiRequest.post(url, activateDeviceJSON, JSONObject.class).requireErrorFields("error"));
+                if(result.isSuccess()) {
                     //sharedState.put(Constants.OSTID_CRONTO_STATUS, OSTIDActivateDeviceOutcome.success.name());
 //                    return Action.send(getStopCrontoCallback()).replaceSharedState(sharedState).build();
                     return goTo(OSTIDActivateDeviceOutcome.success).replaceSharedState(sharedState).build();
                 }else{
-                    String error = responseJSON.getString("error");
-                    String message = responseJSON.getString("message");
-                    String requestJSON = "POST "+ url + " : " + activateDeviceJSON;
-
-                    String log_correction_id = httpEntity.getLog_correlation_id();
-
-                    if(Stream.of(message, error, log_correction_id).anyMatch(Objects::isNull)){
-                        throw new NodeProcessException(JSON.toJSONString(responseJSON));
-                    }else {
-                        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
-                        if(validationErrors != null && validationErrors.size() > 0 && validationErrors.getJSONObject(0).getString("message") != null){
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithValidation(message,log_correction_id,validationErrors.getJSONObject(0).getString("message"),requestJSON));         //error return from IAA server
-                        }else{
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithoutValidation(message,log_correction_id,requestJSON));         //error return from IAA server
-                        }
-                        return goTo(OSTIDActivateDeviceOutcome.error)
-                                .replaceSharedState(sharedState)
-                                .build();
-                    }
+                    result.getError().putInto(sharedState);         //error return from IAA server
+                    return goTo(OSTIDActivateDeviceOutcome.error)
+                            .replaceSharedState(sharedState)
+                            .build();
                 }
             } catch (IOException | NodeProcessException e) {
-                logger.debug("OS_Auth_ActivateDeviceNode exception: " + e.getMessage());
+                logger.debug("OS_Auth_ActivateDeviceNode exception: {}", e.getMessage());
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE,"OneSpan OCA Activate Device process: " + e.getMessage());     //general error msg
                 return goTo(OSTIDActivateDeviceOutcome.error)
                         .replaceSharedState(sharedState)
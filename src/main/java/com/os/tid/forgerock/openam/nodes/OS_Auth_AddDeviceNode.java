@@ -15,33 +15,32 @@
  */
 package com.os.tid.forgerock.openam.nodes;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.models.AddDeviceOutput;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
-import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Objects;
 import java.util.ResourceBundle;
-import java.util.stream.Stream;
 
 /**
  * This node invokes the Add Device API, which continues and proceeds the OCA provisioning process.
@@ -51,9 +50,9 @@ import java.util.stream.Stream;
                 configClass = OS_Auth_AddDeviceNode.Config.class,
                 tags = {"OneSpan", "mfa", "basic authentication"})
 public class OS_Auth_AddDeviceNode implements Node {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_AddDeviceNode";
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OS Auth Add Device Node.
@@ -64,7 +63,7 @@ public class OS_Auth_AddDeviceNode implements Node {
     @Inject
     public OS_Auth_AddDeviceNode(@Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -72,10 +71,14 @@ public class OS_Auth_AddDeviceNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_AddDeviceNode started");
+        Tracing.attach(context, "OS_Auth_AddDeviceNode");
         JsonValue sharedState = context.sharedState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         JsonValue registration_id = sharedState.get(Constants.OSTID_REGISTRATION_ID);
         JsonValue device_code = sharedState.get(Constants.OSTID_DEVICE_CODE);
@@ -95,11 +98,11 @@ public class OS_Auth_AddDeviceNode implements Node {
             );
 
             try {
-                String url = StringUtils.getAPIEndpoint(tenantName,environment) + String.format(Constants.OSTID_API_ADAPTIVE_ADD_DEVICE,registration_id.asString());
-                HttpEntity httpEntity = RestUtils.doPostJSON(url, deviceCodeJSON);
-                JSONObject responseJSON = httpEntity.getResponseJSON();
-                if(httpEntity.isSuccess()) {
-                    AddDeviceOutput addDeviceOutput = JSON.toJavaObject(responseJSON, AddDeviceOutput.class);
+                String url = endpoint.url(EndpointDescriptor.ADD_DEVICE, registration_id.asString());
+                ApiResult<AddDeviceOutput> result = ApiExecutor.getInstance().execute(
+                        ApiRequest.post(url, deviceCodeJSON, AddDeviceOutput.class).requireErrorFields("error"));
+                if(result.isSuccess()) {
+                    AddDeviceOutput addDeviceOutput = result.getValue();
                     sharedState.put(Constants.OSTID_CRONTO_MSG, addDeviceOutput.getActivationMessage2());
                     sharedState.put(Constants.OSTID_ACTIVATION_MESSAGE2, addDeviceOutput.getActivationMessage2());
 
@@ -107,28 +110,13 @@ public class OS_Auth_AddDeviceNode implements Node {
                             .replaceSharedState(sharedState)
                             .build();
                 }else{
-                    String error = responseJSON.getString("error");
-                    String message = responseJSON.getString("message");
-                    String requestJSON = "POST "+ url + " : " + deviceCodeJSON;
-
-                    String log_correction_id = httpEntity.getLog_correlation_id();
-
-                    if(Stream.of(message, error, log_correction_id).anyMatch(Objects::isNull)){
-                        throw new NodeProcessException(JSON.toJSONString(responseJSON));
-                    }else {
-                        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
-                        if(validationErrors != null && validationErrors.size() > 0 && validationErrors.getJSONObject(0).getString("message") != null){
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithValidation(message,log_correction_id,validationErrors.getJSONObject(0).getString("message"),requestJSON));         //error return from IAA server
-                        }else{
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithoutValidation(message,log_correction_id,requestJSON));         //error return from IAA server
-                        }
-                        return goTo(AddDeviceOutcome.error)
-                                .replaceSharedState(sharedState)
-                                .build();
-                    }
+                    result.getError().putInto(sharedState);         //error return from IAA server
+                    return goTo(AddDeviceOutcome.error)
+                            .replaceSharedState(sharedState)
+                            .build();
                 }
             } catch (IOException | NodeProcessException e) {
-                logger.debug("OS_Auth_AddDeviceNode exception: " + e.getMessage());
+                logger.debug("OS_Auth_AddDeviceNode exception: {}", e.getMessage());
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE,"OneSpan OCA Add Device process: " + e.getMessage());     //general error msg
                 return goTo(AddDeviceOutcome.error)
                         .replaceSharedState(sharedState)
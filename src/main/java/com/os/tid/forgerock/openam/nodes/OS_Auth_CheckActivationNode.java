@@ -15,25 +15,29 @@
  */
 package com.os.tid.forgerock.openam.nodes;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
 import com.os.tid.forgerock.openam.utils.DateUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
-import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.RequestHedger;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.ResourceBundle;
@@ -46,9 +50,9 @@ import java.util.ResourceBundle;
                 configClass = OS_Auth_CheckActivationNode.Config.class,
                 tags = {"OneSpan", "basic authentication", "mfa", "risk"})
 public class OS_Auth_CheckActivationNode implements Node {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_CheckActivationNode";
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OS Auth Check Activate Node.
@@ -59,7 +63,7 @@ public class OS_Auth_CheckActivationNode implements Node {
     @Inject
     public OS_Auth_CheckActivationNode(@Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -67,10 +71,14 @@ public class OS_Auth_CheckActivationNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_CheckActivationNode started");
+        boolean traceStarted = Tracing.attach(context, "OS_Auth_CheckActivationNode");
         JsonValue sharedState = context.sharedState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         //1. go to next
         JsonValue ostid_cronto_status = sharedState.get(Constants.OSTID_CRONTO_STATUS);
@@ -98,21 +106,19 @@ public class OS_Auth_CheckActivationNode implements Node {
                     Constants.OSTID_DEFAULT_CHECK_ACTIVATION_TIMEOUT         //param2
             );
             try {
-                HttpEntity httpEntity = RestUtils.doPostJSON(StringUtils.getAPIEndpoint(tenantName,environment) + Constants.OSTID_API_CHECK_ACTIVATION, checkActivationJSON);
-                JSONObject checkActivationResponseJSON = httpEntity.getResponseJSON();
-                if(httpEntity.isSuccess()){
-                    String activationStatus = checkActivationResponseJSON.getString(Constants.OSTID_RESPONSE_CHECK_ACTIVATION_STATUS);
+                String url = endpoint.url(EndpointDescriptor.CHECK_ACTIVATION);
+                ApiRequest<JSONObject> request = ApiRequest.post(url, checkActivationJSON, JSONObject.class);
+                ApiResult<JSONObject> result = RequestHedger.getInstance().send(url,
+                        connector -> ApiExecutor.getInstance().execute(request, connector));
+                if(result.isSuccess()){
+                    String activationStatus = result.getValue().getString(Constants.OSTID_RESPONSE_CHECK_ACTIVATION_STATUS);
                     activationStatusEnum = ActivationStatusOutcome.valueOf(activationStatus);
                 }else{
-                    String message = checkActivationResponseJSON.getString("message");
-                    if(message == null){
-                        throw new NodeProcessException("Fail to parse response: " + JSON.toJSONString(checkActivationResponseJSON));
-                    }
                     activationStatusEnum = ActivationStatusOutcome.error;
-                    sharedState.put(Constants.OSTID_ERROR_MESSAGE,message);
+                    result.getError().putInto(sharedState);         //error return from IAA server
                 }
             } catch (Exception e) {
-                logger.debug("OS_Auth_CheckActivationNode exception: " + e.getMessage());
+                logger.debug("OS_Auth_CheckActivationNode exception: {}", e.getMessage());
                 activationStatusEnum = ActivationStatusOutcome.error;
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE,"OneSpan Auth Check Activation: Fail to check user's activation status!");
             }
@@ -120,9 +126,10 @@ public class OS_Auth_CheckActivationNode implements Node {
 
         switch (activationStatusEnum) {
             case pending:
-                return goTo(ActivationStatusOutcome.pending).build();
+                //the journey starting here keeps its trace context for the next polls
+                return keepTrace(goTo(ActivationStatusOutcome.pending), traceStarted, sharedState).build();
             case activated:
-                return goTo(ActivationStatusOutcome.activated).build();
+                return keepTrace(goTo(ActivationStatusOutcome.activated), traceStarted, sharedState).build();
             case error:
                 return goTo(ActivationStatusOutcome.error).replaceSharedState(sharedState).build();
             case timeout:
@@ -132,10 +139,14 @@ public class OS_Auth_CheckActivationNode implements Node {
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE,"OneSpan Auth Check Activation: Status Unknown!");
                 return goTo(ActivationStatusOutcome.unknown).replaceSharedState(sharedState).build();
             default:
-                return goTo(ActivationStatusOutcome.pending).build();
+                return keepTrace(goTo(ActivationStatusOutcome.pending), traceStarted, sharedState).build();
         }
     }
 
+    private static Action.ActionBuilder keepTrace(Action.ActionBuilder action, boolean traceStarted, JsonValue sharedState) {
+        return traceStarted ? action.replaceSharedState(sharedState) : action;
+    }
+
     private Action.ActionBuilder goTo(ActivationStatusOutcome outcome) {
         return Action.goTo(outcome.name());
     }
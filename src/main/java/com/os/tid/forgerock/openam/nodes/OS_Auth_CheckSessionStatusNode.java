@@ -22,19 +22,23 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.utils.DateUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
-import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.PollingClient;
+import com.os.tid.forgerock.openam.utils.RequestHedger;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.ResourceBundle;
 
@@ -46,9 +50,20 @@ import java.util.ResourceBundle;
                 configClass = OS_Auth_CheckSessionStatusNode.Config.class,
                 tags = {"OneSpan", "basic authentication", "mfa", "risk"})
 public class OS_Auth_CheckSessionStatusNode implements Node {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_CheckSessionStatusNode";
-    private final OSConfigurationsService serviceConfig;
+    private static final byte[] SESSION_STATUS_FIELD = PollingClient.fieldName("sessionStatus");
+    private static final CheckSessionStatusOutcome[] OUTCOMES = CheckSessionStatusOutcome.values();
+    private static final byte[][] OUTCOME_NAMES = new byte[OUTCOMES.length][];
+    static {
+        for (int i = 0; i < OUTCOMES.length; i++) {
+            OUTCOME_NAMES[i] = OUTCOMES[i].name().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+    //the outcomes which leave the shared state untouched are built once and shared by the polls of a traced journey
+    private static final Action PENDING_ACTION = Action.goTo(CheckSessionStatusOutcome.pending.name()).build();
+    private static final Action ACCEPTED_ACTION = Action.goTo(CheckSessionStatusOutcome.accepted.name()).build();
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OS Auth Check Session Status Node.
@@ -60,7 +75,7 @@ public class OS_Auth_CheckSessionStatusNode implements Node {
     @Inject
     public OS_Auth_CheckSessionStatusNode(@Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -68,10 +83,14 @@ public class OS_Auth_CheckSessionStatusNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_CheckSessionStatusNode started");
+        boolean traceStarted = Tracing.attach(context, "OS_Auth_CheckSessionStatusNode");
         JsonValue sharedState = context.sharedState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         JsonValue eventExpiryJsonValue = sharedState.get(Constants.OSTID_EVENT_EXPIRY_DATE);
         JsonValue requestIdJsonValue = sharedState.get(Constants.OSTID_REQUEST_ID);
@@ -84,12 +103,16 @@ public class OS_Auth_CheckSessionStatusNode implements Node {
             checkSessionStatusEnum = CheckSessionStatusOutcome.timeout;
         }else {
             try {
-                HttpEntity httpEntity = RestUtils.doGet(StringUtils.getAPIEndpoint(tenantName,environment) + String.format(Constants.OSTID_API_CHECK_SESSION_STATUS,requestIdJsonValue.asString()));
-                JSONObject checkSessionStatusResponseJSON = httpEntity.getResponseJSON();
-                if(httpEntity.isSuccess()){
-                    String sessionStatus = checkSessionStatusResponseJSON.getString("sessionStatus");
-                    checkSessionStatusEnum = CheckSessionStatusOutcome.valueOf(sessionStatus);
+                String url = endpoint.url(EndpointDescriptor.CHECK_SESSION_STATUS, requestIdJsonValue.asString());
+                PollingClient.Response response = RequestHedger.getInstance().send(endpoint.getBaseUrl() + EndpointDescriptor.CHECK_SESSION_STATUS.getTemplate(),
+                        connector -> PollingClient.get(url, SESSION_STATUS_FIELD, OUTCOME_NAMES, connector));
+                if(response.isSuccess()){
+                    if(response.getMatched() < 0){
+                        throw new NodeProcessException("Fail to parse session status");
+                    }
+                    checkSessionStatusEnum = OUTCOMES[response.getMatched()];
                 }else{
+                    JSONObject checkSessionStatusResponseJSON = response.toJSON();
                     String message = checkSessionStatusResponseJSON.getString("message");
                     if(message == null){
                         throw new NodeProcessException("Fail to parse response: " + JSON.toJSONString(checkSessionStatusResponseJSON));
@@ -98,7 +121,7 @@ public class OS_Auth_CheckSessionStatusNode implements Node {
                     sharedState.put(Constants.OSTID_ERROR_MESSAGE,message);
                 }
             } catch (Exception e) {
-                logger.debug("OS_Auth_CheckSessionStatusNode exception: " + e.getMessage());
+                logger.debug("OS_Auth_CheckSessionStatusNode exception: {}", e.getMessage());
                 checkSessionStatusEnum = CheckSessionStatusOutcome.error;
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE,"OneSpan Auth Check Session Status: Fail to check user's session status!");
             }
@@ -106,9 +129,10 @@ public class OS_Auth_CheckSessionStatusNode implements Node {
 
         switch (checkSessionStatusEnum) {
             case pending:
-                return goTo(CheckSessionStatusOutcome.pending).build();
+                //the journey starting here keeps its trace context for the next polls
+                return traceStarted ? goTo(CheckSessionStatusOutcome.pending).replaceSharedState(sharedState).build() : PENDING_ACTION;
             case accepted:
-                return goTo(CheckSessionStatusOutcome.accepted).build();
+                return traceStarted ? goTo(CheckSessionStatusOutcome.accepted).replaceSharedState(sharedState).build() : ACCEPTED_ACTION;
             case refused:
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE,"OneSpan Auth Check Session Status: End user refused to validate the event!");
                 return goTo(CheckSessionStatusOutcome.refused).replaceSharedState(sharedState).build();
@@ -124,7 +148,7 @@ public class OS_Auth_CheckSessionStatusNode implements Node {
             case error:
                 return goTo(CheckSessionStatusOutcome.error).replaceSharedState(sharedState).build();
             default:
-                return goTo(CheckSessionStatusOutcome.pending).build();
+                return traceStarted ? goTo(CheckSessionStatusOutcome.pending).replaceSharedState(sharedState).build() : PENDING_ACTION;
         }
     }
 
@@ -15,18 +15,22 @@
  */
 package com.os.tid.forgerock.openam.nodes;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.models.GenerateChallengeOutput;
-import com.os.tid.forgerock.openam.models.HttpEntity;
-import com.os.tid.forgerock.openam.utils.RestUtils;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
 import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.RequiredValueValidator;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
@@ -35,12 +39,9 @@ import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * This node invokes the Generate Challenge API, which generates a random challenge.
@@ -49,9 +50,9 @@ import java.util.stream.Stream;
                 configClass = OS_Auth_GenerateChallengeNode.Config.class,
                 tags = {"OneSpan", "mfa", "basic authentication"})
 public class OS_Auth_GenerateChallengeNode implements Node {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_GenerateChallengeNode";
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
     private final OS_Auth_GenerateChallengeNode.Config config;
 
     /**
@@ -86,7 +87,7 @@ public class OS_Auth_GenerateChallengeNode implements Node {
     public OS_Auth_GenerateChallengeNode(@Assisted OS_Auth_GenerateChallengeNode.Config config, @Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         this.config = config;
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -94,10 +95,14 @@ public class OS_Auth_GenerateChallengeNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_GenerateChallengeNode started");
+        Tracing.attach(context, "OS_Auth_GenerateChallengeNode");
         JsonValue sharedState = context.sharedState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
         JsonValue usernameJsonValue = sharedState.get(config.userNameInSharedData());
 
         String generateChallengeJSON = String.format(Constants.OSTID_JSON_ADAPTIVE_GENERATE_CHALLENGE,
@@ -105,11 +110,11 @@ public class OS_Auth_GenerateChallengeNode implements Node {
                 config.checkDigit()                                 //param2
         );
         try {
-            String url = StringUtils.getAPIEndpoint(tenantName, environment) + String.format(Constants.OSTID_API_ADAPTIVE_GENERATE_CHALLENGE, usernameJsonValue.asString(), tenantName);
-            HttpEntity httpEntity = RestUtils.doPostJSON(url, generateChallengeJSON);
-            JSONObject responseJSON = httpEntity.getResponseJSON();
-            if (httpEntity.isSuccess()) {
-                GenerateChallengeOutput generateChallengeOutput = JSON.toJavaObject(responseJSON, GenerateChallengeOutput.class);
+            String url = endpoint.userUrl(EndpointDescriptor.GENERATE_CHALLENGE, usernameJsonValue.asString());
+            ApiResult<GenerateChallengeOutput> result = ApiExecutor.getInstance().execute(
+                    ApiRequest.post(url, generateChallengeJSON, GenerateChallengeOutput.class).requireErrorFields("error"));
+            if (result.isSuccess()) {
+                GenerateChallengeOutput generateChallengeOutput = result.getValue();
                 sharedState.put(Constants.OSTID_REQUEST_ID, generateChallengeOutput.getRequestID());
                 sharedState.put(Constants.OSTID_CRONTO_MSG, StringUtils.stringToHex2(generateChallengeOutput.getChallenge()));
 
@@ -117,28 +122,13 @@ public class OS_Auth_GenerateChallengeNode implements Node {
                         .replaceSharedState(sharedState)
                         .build();
             } else {
-                String error = responseJSON.getString("error");
-                String message = responseJSON.getString("message");
-                String requestJSON = "POST "+ url + " : " + generateChallengeJSON;
-
-                String log_correction_id = httpEntity.getLog_correlation_id();
-
-                if (Stream.of(message, error, log_correction_id).anyMatch(Objects::isNull)) {
-                    throw new NodeProcessException(JSON.toJSONString(responseJSON));
-                } else {
-                    JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
-                    if(validationErrors != null && validationErrors.size() > 0 && validationErrors.getJSONObject(0).getString("message") != null){
-                        sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithValidation(message,log_correction_id,validationErrors.getJSONObject(0).getString("message"),requestJSON));         //error return from IAA server
-                    }else{
-                        sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithoutValidation(message,log_correction_id,requestJSON));         //error return from IAA server
-                    }
-                    return goTo(OS_Auth_GenerateChallengeNode.GenerateChallengeOutcome.error)
-                            .replaceSharedState(sharedState)
-                            .build();
-                }
+                result.getError().putInto(sharedState);         //error return from IAA server
+                return goTo(OS_Auth_GenerateChallengeNode.GenerateChallengeOutcome.error)
+                        .replaceSharedState(sharedState)
+                        .build();
             }
         } catch (IOException | NodeProcessException e) {
-            logger.debug("OS_Auth_GenerateChallengeNode exception: " + e.getMessage());
+            logger.debug("OS_Auth_GenerateChallengeNode exception: {}", e.getMessage());
             sharedState.put(Constants.OSTID_ERROR_MESSAGE, "OneSpan OCA Generate Challenge process: " + e.getMessage());     //general error msg
             return goTo(OS_Auth_GenerateChallengeNode.GenerateChallengeOutcome.error)
                     .replaceSharedState(sharedState)
@@ -16,18 +16,27 @@
 package com.os.tid.forgerock.openam.nodes;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.models.GeneralResponseOutput;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
+import com.os.tid.forgerock.openam.utils.CDDCStore;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
 import com.os.tid.forgerock.openam.utils.DateUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
+import com.os.tid.forgerock.openam.utils.NegativeCache;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.SessionIdGenerator;
+import com.os.tid.forgerock.openam.utils.SharedStateCodec;
 import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.RequiredValueValidator;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
@@ -36,12 +45,9 @@ import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * This node invokes the User Login API, which validates and processes the login request.
@@ -51,9 +57,9 @@ import java.util.stream.Stream;
                 tags = {"OneSpan", "basic authentication", "mfa", "risk"})
 public class OS_Auth_UserLoginNode implements Node {
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_UserLoginNode";
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Auth_UserLoginNode.Config config;
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OS Auth User Login Node.
@@ -122,13 +128,21 @@ public class OS_Auth_UserLoginNode implements Node {
         default VisualCodeMessageOptions visualCodeMessageOptions() {
             return VisualCodeMessageOptions.sessionID;
         }
+
+        /**
+         * Seconds during which a user rejected by this API as unknown (404) is rejected again without calling it. 0 disables the cache.
+         */
+        @Attribute(order = 900)
+        default int negativeCacheTtl() {
+            return 0;
+        }
     }
 
     @Inject
     public OS_Auth_UserLoginNode(@Assisted Config config, @Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         this.config = config;
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -136,17 +150,32 @@ public class OS_Auth_UserLoginNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_UserLoginNode started");
+        Tracing.attach(context, "OS_Auth_UserLoginNode");
         JsonValue sharedState = context.sharedState;
         JsonValue transientState = context.transientState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         JsonValue usernameJsonValue = sharedState.get(config.userNameInSharedData());
-        JsonValue cddcJsonJsonValue = sharedState.get(Constants.OSTID_CDDC_JSON);
+        sharedState.put(Constants.OSTID_USERNAME_IN_SHARED_STATE, config.userNameInSharedData());
+        if (config.negativeCacheTtl() > 0 && usernameJsonValue.isString()) {
+            //a cached rejection is answered before the payload and its session ID are built
+            NegativeCache.Rejection rejection = NegativeCache.get(endpoint.getTenantName(), EndpointDescriptor.USER_LOGIN, usernameJsonValue.asString());
+            if (rejection != null) {
+                rejection.toErrorRecord("POST " + endpoint.userUrl(EndpointDescriptor.USER_LOGIN, usernameJsonValue.asString())).putInto(sharedState);
+                logger.debug("OS_Auth_UserLoginNode user login outcome from negative cache:{}", UserLoginOutcome.Error.name());
+                return goTo(UserLoginOutcome.Error)
+                        .replaceSharedState(sharedState)
+                        .build();
+            }
+        }
+        JsonValue cddcJsonJsonValue = CDDCStore.resolve(sharedState);
         JsonValue cddcHashJsonValue = sharedState.get(Constants.OSTID_CDDC_HASH);
         JsonValue cddcIpJsonValue = sharedState.get(Constants.OSTID_CDDC_IP);
-        sharedState.put(Constants.OSTID_USERNAME_IN_SHARED_STATE, config.userNameInSharedData());
 
         boolean missOptionalAttr = false;
         StringBuilder optionalAttributesStringBuilder = new StringBuilder(1000);
@@ -172,7 +201,7 @@ public class OS_Auth_UserLoginNode implements Node {
                     .replaceSharedState(sharedState)
                     .build();
         } else {
-            String APIUrl = String.format(Constants.OSTID_API_ADAPTIVE_USER_LOGIN, usernameJsonValue.asString(), tenantName);
+            String url = endpoint.userUrl(EndpointDescriptor.USER_LOGIN, usernameJsonValue.asString());
             /**
              * 1.objectType
              * 2.credentials
@@ -224,7 +253,7 @@ public class OS_Auth_UserLoginNode implements Node {
             //param5: for now, API timeout will always set to 0, timeout specified in config will be used for visual code time out
             String timeout = String.format(Constants.OSTID_JSON_ADAPTIVE_TIMEOUT, 0);
             //param6
-            String sessionID = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : StringUtils.stringToHex(UUID.randomUUID().toString());
+            String sessionID = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : SessionIdGenerator.generate();
             String IAA = String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN_IAA,
                     cddcIpJsonValue.asString(),                         //param6.1
                     cddcHashJsonValue.asString(),                       //param6.2
@@ -245,19 +274,19 @@ public class OS_Auth_UserLoginNode implements Node {
                     optionalAttributesStringBuilder.toString(),                     //param7
                     fido                                                            //param8
             );
-            logger.debug("OS_Auth_UserLoginNode user login JSON:" + userLoginJSON);
+            logger.debugPayload("OS_Auth_UserLoginNode user login JSON:{}", userLoginJSON);
 
             try {
-                HttpEntity httpEntity = RestUtils.doPostJSON(StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl, userLoginJSON);
-                JSONObject responseJSON = httpEntity.getResponseJSON();
+                ApiResult<GeneralResponseOutput> result = ApiExecutor.getInstance().execute(
+                        ApiRequest.post(url, userLoginJSON, GeneralResponseOutput.class));
 
-                if (httpEntity.isSuccess()) {
-                    GeneralResponseOutput loginOutput = JSON.toJavaObject(responseJSON, GeneralResponseOutput.class);
+                if (result.isSuccess()) {
+                    GeneralResponseOutput loginOutput = result.getValue();
                     int irmResponse = loginOutput.getRiskResponseCode();
                     sharedState.put(Constants.OSTID_IRM_RESPONSE,irmResponse);
                     sharedState.put(Constants.OSTID_SESSIONID,sessionID);
                     sharedState.put(Constants.OSTID_REQUEST_ID, org.apache.commons.lang.StringUtils.isEmpty(loginOutput.getRequestID())? requestID : loginOutput.getRequestID());
-                    sharedState.put(Constants.OSTID_COMMAND,loginOutput.getRequestMessage());
+                    SharedStateCodec.put(sharedState, Constants.OSTID_COMMAND, loginOutput.getRequestMessage(), serviceConfig);
                     sharedState.put(Constants.OSTID_EVENT_EXPIRY_DATE, DateUtils.getMilliStringAfterCertainSecs(config.timeout()));
 
                     UserLoginOutcome userLoginOutcome = UserLoginOutcome.Error;
@@ -297,34 +326,22 @@ public class OS_Auth_UserLoginNode implements Node {
                         }
                     }
 
-                    logger.debug("OS_Auth_UserLoginNode user login outcome:" + userLoginOutcome.name());
+                    logger.debug("OS_Auth_UserLoginNode user login outcome:{}", userLoginOutcome.name());
                     return goTo(userLoginOutcome)
                             .replaceSharedState(sharedState)
                             .build();
                 } else {
-                    String log_correction_id = httpEntity.getLog_correlation_id();
-                    String message = responseJSON.getString("message");
-                    String requestJSON = "POST " + StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl + " : " + userLoginJSON;
-
-                    if (Stream.of(log_correction_id, message).anyMatch(Objects::isNull)) {
-                        throw new NodeProcessException("Fail to parse response: " + JSON.toJSONString(responseJSON));
-                    } else {
-                        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
-                        if(validationErrors != null && validationErrors.size() > 0 && validationErrors.getJSONObject(0).getString("message") != null){
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithValidation(message,log_correction_id,validationErrors.getJSONObject(0).getString("message"),requestJSON));         //error return from IAA server
-                        }else{
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithoutValidation(message,log_correction_id,requestJSON));         //error return from IAA server
-                        }
+                    result.getError().putInto(sharedState);         //error return from IAA server
+                    NegativeCache.put(endpoint.getTenantName(), EndpointDescriptor.USER_LOGIN, usernameJsonValue.asString(), result.getHttpEntity(), config.negativeCacheTtl());
 
-                        logger.debug("OS_Auth_UserLoginNode user login outcome:" + UserLoginOutcome.Error.name());
+                    logger.debug("OS_Auth_UserLoginNode user login outcome:{}", UserLoginOutcome.Error.name());
 
-                        return goTo(UserLoginOutcome.Error)
-                                .replaceSharedState(sharedState)
-                                .build();
-                    }
+                    return goTo(UserLoginOutcome.Error)
+                            .replaceSharedState(sharedState)
+                            .build();
                 }
             } catch (Exception e) {
-                logger.debug("OS_Auth_UserLoginNode exception: " + e.getMessage());
+                logger.debug("OS_Auth_UserLoginNode exception: {}", e.getMessage());
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE, "Fail to Login!");                            //general error msg
                 return goTo(UserLoginOutcome.Error)
                         .replaceSharedState(sharedState)
@@ -16,18 +16,27 @@
 package com.os.tid.forgerock.openam.nodes;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.models.UserRegisterOutputEx;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
+import com.os.tid.forgerock.openam.utils.CDDCStore;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
 import com.os.tid.forgerock.openam.utils.DateUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
+import com.os.tid.forgerock.openam.utils.NegativeCache;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.RegistrationStatusCache;
+import com.os.tid.forgerock.openam.utils.SessionIdGenerator;
 import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.RequiredValueValidator;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
@@ -36,12 +45,9 @@ import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * This node invokes the User Register/Unregister API, which validates and processes the registration/unregistration of a user.
@@ -51,9 +57,9 @@ import java.util.stream.Stream;
                 tags = {"OneSpan", "basic authentication", "mfa", "risk"})
 public class OS_Auth_UserRegisterNode implements Node {
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_UserRegisterNode";
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Auth_UserRegisterNode.Config config;
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OneSpan Auth User Register Node.
@@ -112,13 +118,29 @@ public class OS_Auth_UserRegisterNode implements Node {
         default int activationTokenExpiry() {
             return Constants.OSTID_DEFAULT_EVENT_EXPIRY;
         }
+
+        /**
+         * Go to Error without calling the API when the user is known to be registered already (or unregistered already when unregistering).
+         */
+        @Attribute(order = 800)
+        default boolean skipKnownRegistrations() {
+            return false;
+        }
+
+        /**
+         * Seconds during which a registration status learnt by this node is trusted.
+         */
+        @Attribute(order = 900)
+        default int registrationStatusTtl() {
+            return Constants.OSTID_DEFAULT_REGISTRATION_STATUS_TTL_SECONDS;
+        }
     }
 
     @Inject
     public OS_Auth_UserRegisterNode(@Assisted Config config, @Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         this.config = config;
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -126,14 +148,18 @@ public class OS_Auth_UserRegisterNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_UserRegisterNode started");
+        Tracing.attach(context, "OS_Auth_UserRegisterNode");
         JsonValue sharedState = context.sharedState;
         JsonValue transientState = context.transientState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         JsonValue usernameJsonValue = sharedState.get(config.userNameInSharedData());
-        JsonValue cddcJsonJsonValue = sharedState.get(Constants.OSTID_CDDC_JSON);
+        JsonValue cddcJsonJsonValue = CDDCStore.resolve(sharedState);
         JsonValue cddcHashJsonValue = sharedState.get(Constants.OSTID_CDDC_HASH);
         JsonValue cddcIpJsonValue = sharedState.get(Constants.OSTID_CDDC_IP);
 
@@ -176,10 +202,27 @@ public class OS_Auth_UserRegisterNode implements Node {
                     .replaceSharedState(sharedState)
                     .build();
         } else {
-            String APIUrl = config.nodeFunction() == NodeFunction.UserRegister ?
-                    Constants.OSTID_API_ADAPTIVE_USER_REGISTER
+            String tenantName = endpoint.getTenantName();
+            if (config.skipKnownRegistrations()) {
+                int registrationStatus = RegistrationStatusCache.get(tenantName, usernameJsonValue.asString());
+                if (config.nodeFunction() == NodeFunction.UserRegister && registrationStatus == RegistrationStatusCache.REGISTERED) {
+                    logger.debug("OS_Auth_UserRegisterNode user is already registered");
+                    sharedState.put(Constants.OSTID_ERROR_MESSAGE, "OneSpan Auth User Register: User is already registered!");
+                    return goTo(UserRegisterOutcome.Error)
+                            .replaceSharedState(sharedState)
+                            .build();
+                } else if (config.nodeFunction() == NodeFunction.UserUnregister && registrationStatus == RegistrationStatusCache.UNREGISTERED) {
+                    logger.debug("OS_Auth_UserRegisterNode user is not registered");
+                    sharedState.put(Constants.OSTID_ERROR_MESSAGE, "OneSpan Auth User Register: User is not registered!");
+                    return goTo(UserRegisterOutcome.Error)
+                            .replaceSharedState(sharedState)
+                            .build();
+                }
+            }
+            String url = config.nodeFunction() == NodeFunction.UserRegister ?
+                    endpoint.url(EndpointDescriptor.USER_REGISTER)
                     :
-                    String.format(Constants.OSTID_API_ADAPTIVE_USER_UNREGISTER,usernameJsonValue.asString(),tenantName);
+                    endpoint.userUrl(EndpointDescriptor.USER_UNREGISTER, usernameJsonValue.asString());
             //param 1
             String objectType = "";
             switch(config.objectType()) {
@@ -193,7 +236,7 @@ public class OS_Auth_UserRegisterNode implements Node {
             //param 7
             String applicationRef = config.objectType() == ObjectType.IAA ? String.format(Constants.OSTID_JSON_ADAPTIVE_APPLICATIONREF, serviceConfig.applicationRef()) : "";
             //param 8
-            String sessionId = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : StringUtils.stringToHex(UUID.randomUUID().toString());
+            String sessionId = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : SessionIdGenerator.generate();
             sessionId = config.objectType() == ObjectType.IAA ? String.format(Constants.OSTID_JSON_ADAPTIVE_SESSIONID, sessionId) : "";
             //param 9
             String relationshipRef = sharedState.get("relationshipRef").isString() ? sharedState.get("relationshipRef").asString():usernameJsonValue.asString();
@@ -214,14 +257,16 @@ public class OS_Auth_UserRegisterNode implements Node {
                     activationType,                                                                  //param10
                     optionalAttributesStringBuilder.toString()                                       //param11
             );
-            logger.debug("OS_Auth_UserRegisterNode userRegisterJSON:" + userRegisterJSON);
+            logger.debugPayload("OS_Auth_UserRegisterNode userRegisterJSON:{}", userRegisterJSON);
 
             try {
-                HttpEntity httpEntity = RestUtils.doPostJSON(StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl, userRegisterJSON);
-                JSONObject responseJSON = httpEntity.getResponseJSON();
+                ApiResult<UserRegisterOutputEx> result = ApiExecutor.getInstance().execute(
+                        ApiRequest.post(url, userRegisterJSON, UserRegisterOutputEx.class));
 
-                if (httpEntity.isSuccess()) {
-                    UserRegisterOutputEx userRegisterOutputEx = JSON.toJavaObject(responseJSON, UserRegisterOutputEx.class);
+                if (result.isSuccess()) {
+                    NegativeCache.invalidate(tenantName, usernameJsonValue.asString());
+                    updateRegistrationStatus(tenantName, usernameJsonValue.asString());
+                    UserRegisterOutputEx userRegisterOutputEx = result.getValue();
                     String activationCode = userRegisterOutputEx.getActivationPassword();
                     if (config.nodeFunction() == NodeFunction.UserRegister && config.objectType() == ObjectType.IAA) {
                         //"02;user01211;111;duoliang11071-mailin;3zE6RNH5;duoliang11071-mailin"
@@ -256,26 +301,17 @@ public class OS_Auth_UserRegisterNode implements Node {
                             .replaceTransientState(transientState)
                             .build();
                 } else {
-                    String log_correction_id = httpEntity.getLog_correlation_id();
-                    String message = responseJSON.getString("message");
-                    String requestJSON = "POST " + StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl + " : " + userRegisterJSON;
-
-                    if (Stream.of(log_correction_id, message).anyMatch(Objects::isNull)) {
-                        throw new NodeProcessException("Fail to parse response: " + JSON.toJSONString(responseJSON));
-                    } else {
-                        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
-                        if(validationErrors != null && validationErrors.size() > 0 && validationErrors.getJSONObject(0).getString("message") != null){
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithValidation(message,log_correction_id,validationErrors.getJSONObject(0).getString("message"),requestJSON));         //error return from IAA server
-                        }else{
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithoutValidation(message,log_correction_id,requestJSON));         //error return from IAA server
-                        }
-                        return goTo(UserRegisterOutcome.Error)
-                                .replaceSharedState(sharedState)
-                                .build();
+                    if ((result.getHttpStatus() == 409 && config.nodeFunction() == NodeFunction.UserRegister)
+                            || (result.getHttpStatus() == 404 && config.nodeFunction() == NodeFunction.UserUnregister)) {
+                        updateRegistrationStatus(tenantName, usernameJsonValue.asString());
                     }
+                    result.getError().putInto(sharedState);         //error return from IAA server
+                    return goTo(UserRegisterOutcome.Error)
+                            .replaceSharedState(sharedState)
+                            .build();
                 }
             } catch (Exception e) {
-                logger.debug("OS_Auth_UserRegisterNode exception: " + e.getMessage());
+                logger.debug("OS_Auth_UserRegisterNode exception: {}", e.getMessage());
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE, "Fail to Register User to OneSpan TID!");                            //general error msg
                 return goTo(UserRegisterOutcome.Error)
                         .replaceSharedState(sharedState)
@@ -284,6 +320,17 @@ public class OS_Auth_UserRegisterNode implements Node {
         }
     }
 
+    /**
+     * Records the state the user is in once the node function has been applied, or found to be applied already.
+     */
+    private void updateRegistrationStatus(String tenantName, String username) {
+        if (config.nodeFunction() == NodeFunction.UserRegister) {
+            RegistrationStatusCache.markRegistered(tenantName, username, config.registrationStatusTtl());
+        } else {
+            RegistrationStatusCache.markUnregistered(tenantName, username, config.registrationStatusTtl());
+        }
+    }
+
     public enum ObjectType {
         IAA, OCA
     }
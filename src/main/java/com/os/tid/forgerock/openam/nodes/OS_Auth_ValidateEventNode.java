@@ -16,18 +16,27 @@
 package com.os.tid.forgerock.openam.nodes;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.models.GeneralResponseOutput;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
+import com.os.tid.forgerock.openam.utils.CDDCStore;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
 import com.os.tid.forgerock.openam.utils.DateUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
+import com.os.tid.forgerock.openam.utils.NegativeCache;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.SessionIdGenerator;
+import com.os.tid.forgerock.openam.utils.SharedStateCodec;
 import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.RequiredValueValidator;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
@@ -36,12 +45,9 @@ import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * This node invokes the Validate Event API, which validates and processes the authentication for a non-monetary request.
@@ -51,9 +57,9 @@ import java.util.stream.Stream;
                 tags = {"OneSpan", "basic authentication", "mfa", "risk"})
 public class OS_Auth_ValidateEventNode implements Node {
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_ValidateEventNode";
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Auth_ValidateEventNode.Config config;
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OneSpan Auth Validate Event Node.
@@ -138,13 +144,21 @@ public class OS_Auth_ValidateEventNode implements Node {
         default VisualCodeMessageOptions visualCodeMessageOptions() {
             return VisualCodeMessageOptions.sessionID;
         }
+
+        /**
+         * Seconds during which a user rejected by this API as unknown (404) is rejected again without calling it. 0 disables the cache.
+         */
+        @Attribute(order = 1100)
+        default int negativeCacheTtl() {
+            return 0;
+        }
     }
 
     @Inject
     public OS_Auth_ValidateEventNode(@Assisted Config config, @Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         this.config = config;
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -152,17 +166,32 @@ public class OS_Auth_ValidateEventNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_ValidateEventNode started");
+        Tracing.attach(context, "OS_Auth_ValidateEventNode");
         JsonValue sharedState = context.sharedState;
         JsonValue transientState = context.transientState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         JsonValue usernameJsonValue = sharedState.get(config.userNameInSharedData());
-        JsonValue cddcJsonJsonValue = sharedState.get(Constants.OSTID_CDDC_JSON);
+        sharedState.put(Constants.OSTID_USERNAME_IN_SHARED_STATE, config.userNameInSharedData());
+        if (config.negativeCacheTtl() > 0 && usernameJsonValue.isString()) {
+            //a cached rejection is answered before the payload and its session ID are built
+            NegativeCache.Rejection rejection = NegativeCache.get(endpoint.getTenantName(), EndpointDescriptor.EVENT_VALIDATION, usernameJsonValue.asString());
+            if (rejection != null) {
+                rejection.toErrorRecord("POST " + endpoint.userUrl(EndpointDescriptor.EVENT_VALIDATION, usernameJsonValue.asString())).putInto(sharedState);
+                logger.debug("OS_Auth_ValidateEventNode event validation outcome from negative cache:{}", EventValidationOutcome.Error.name());
+                return goTo(EventValidationOutcome.Error)
+                        .replaceSharedState(sharedState)
+                        .build();
+            }
+        }
+        JsonValue cddcJsonJsonValue = CDDCStore.resolve(sharedState);
         JsonValue cddcHashJsonValue = sharedState.get(Constants.OSTID_CDDC_HASH);
         JsonValue cddcIpJsonValue = sharedState.get(Constants.OSTID_CDDC_IP);
-        sharedState.put(Constants.OSTID_USERNAME_IN_SHARED_STATE, config.userNameInSharedData());
 
         boolean missOptionalAttr = false;
         StringBuilder optionalAttributesStringBuilder = new StringBuilder(1000);
@@ -188,7 +217,7 @@ public class OS_Auth_ValidateEventNode implements Node {
                     .replaceSharedState(sharedState)
                     .build();
         } else {
-            String APIUrl = String.format(Constants.OSTID_API_ADAPTIVE_EVENT_VALIDATION, usernameJsonValue.asString(), tenantName);
+            String url = endpoint.userUrl(EndpointDescriptor.EVENT_VALIDATION, usernameJsonValue.asString());
             /**
              * 1.eventType
              * 2.credentials
@@ -250,7 +279,7 @@ public class OS_Auth_ValidateEventNode implements Node {
             //param5: for now, API timeout will always set to 0, timeout specified in config will be used for visual code time out
             String timeout = String.format(Constants.OSTID_JSON_ADAPTIVE_TIMEOUT, 0);
             //param6
-            String sessionID = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : StringUtils.stringToHex(UUID.randomUUID().toString());
+            String sessionID = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : SessionIdGenerator.generate();
             String IAA = String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN_IAA,
                     cddcIpJsonValue.asString(),                         //param6.1
                     cddcHashJsonValue.asString(),                       //param6.2
@@ -270,19 +299,19 @@ public class OS_Auth_ValidateEventNode implements Node {
                     optionalAttributesStringBuilder.toString(),                     //param7
                     fido                                                            //param8
             );
-            logger.debug("OS_Auth_ValidateEventNode request JSON:" + eventValidationJSON);
+            logger.debugPayload("OS_Auth_ValidateEventNode request JSON:{}", eventValidationJSON);
 
             try {
-                HttpEntity httpEntity = RestUtils.doPostJSON(StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl, eventValidationJSON);
-                JSONObject responseJSON = httpEntity.getResponseJSON();
+                ApiResult<GeneralResponseOutput> result = ApiExecutor.getInstance().execute(
+                        ApiRequest.post(url, eventValidationJSON, GeneralResponseOutput.class));
 
-                if (httpEntity.isSuccess()) {
-                    GeneralResponseOutput responseOutput = JSON.toJavaObject(responseJSON, GeneralResponseOutput.class);
+                if (result.isSuccess()) {
+                    GeneralResponseOutput responseOutput = result.getValue();
                     int irmResponse = responseOutput.getRiskResponseCode();
                     sharedState.put(Constants.OSTID_IRM_RESPONSE,irmResponse);
                     sharedState.put(Constants.OSTID_SESSIONID,sessionID);
                     sharedState.put(Constants.OSTID_REQUEST_ID, StringUtils.isEmpty(responseOutput.getRequestID())? requestID : responseOutput.getRequestID());
-                    sharedState.put(Constants.OSTID_COMMAND,responseOutput.getRequestMessage());
+                    SharedStateCodec.put(sharedState, Constants.OSTID_COMMAND, responseOutput.getRequestMessage(), serviceConfig);
                     sharedState.put(Constants.OSTID_EVENT_EXPIRY_DATE, DateUtils.getMilliStringAfterCertainSecs(config.timeout()));
 
                     EventValidationOutcome eventValidationOutcome = EventValidationOutcome.Error;
@@ -319,33 +348,21 @@ public class OS_Auth_ValidateEventNode implements Node {
                                 break;
                         }
                     }
-                    logger.debug("OS_Auth_ValidateEventNode user login outcome:" + eventValidationOutcome.name());
+                    logger.debug("OS_Auth_ValidateEventNode user login outcome:{}", eventValidationOutcome.name());
                     return goTo(eventValidationOutcome)
                             .replaceSharedState(sharedState)
                             .build();
                 } else {
-                    String log_correction_id = httpEntity.getLog_correlation_id();
-                    String message = responseJSON.getString("message");
-                    String requestJSON = "POST " + StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl + " : " + eventValidationJSON;
-
-                    if (Stream.of(log_correction_id, message).anyMatch(Objects::isNull)) {
-                        throw new NodeProcessException("Fail to parse response: " + JSON.toJSONString(responseJSON));
-                    } else {
-                        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
-                        if(validationErrors != null && validationErrors.size() > 0 && validationErrors.getJSONObject(0).getString("message") != null){
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithValidation(message,log_correction_id,validationErrors.getJSONObject(0).getString("message"),requestJSON));         //error return from IAA server
-                        }else{
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithoutValidation(message,log_correction_id,requestJSON));         //error return from IAA server
-                        }
-                        logger.debug("OS_Auth_ValidateEventNode outcome:" + EventValidationOutcome.Error.name());
+                    result.getError().putInto(sharedState);         //error return from IAA server
+                    NegativeCache.put(endpoint.getTenantName(), EndpointDescriptor.EVENT_VALIDATION, usernameJsonValue.asString(), result.getHttpEntity(), config.negativeCacheTtl());
+                    logger.debug("OS_Auth_ValidateEventNode outcome:{}", EventValidationOutcome.Error.name());
 
-                        return goTo(EventValidationOutcome.Error)
-                                .replaceSharedState(sharedState)
-                                .build();
-                    }
+                    return goTo(EventValidationOutcome.Error)
+                            .replaceSharedState(sharedState)
+                            .build();
                 }
             } catch (Exception e) {
-                logger.debug("OS_Auth_ValidateEventNode exception: " + e.getMessage());
+                logger.debug("OS_Auth_ValidateEventNode exception: {}", e.getMessage());
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE, "Fail to validate event!");                            //general error msg
                 return goTo(EventValidationOutcome.Error)
                         .replaceSharedState(sharedState)
@@ -16,19 +16,27 @@
 package com.os.tid.forgerock.openam.nodes;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.models.GeneralResponseOutput;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
+import com.os.tid.forgerock.openam.utils.CDDCStore;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
 import com.os.tid.forgerock.openam.utils.DateUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.SessionIdGenerator;
+import com.os.tid.forgerock.openam.utils.SharedStateCodec;
 import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.RequiredValueValidator;
 import com.sun.identity.sm.SMSException;
 import org.forgerock.json.JsonValue;
@@ -37,12 +45,9 @@ import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * This node invokes the Validate Transaction API, which validates and processes the authentication for a transaction request.
@@ -52,9 +57,10 @@ import java.util.stream.Stream;
                 tags = {"OneSpan", "basic authentication", "mfa", "risk"})
 public class OS_Auth_ValidateTransactionNode implements Node {
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Auth_ValidateTransactionNode";
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Auth_ValidateTransactionNode.Config config;
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
+    private final DataToSignPlan dataToSignPlan;
 
     /**
      * Configuration for the OneSpan Auth Validate Transaction Node.
@@ -171,144 +177,62 @@ public class OS_Auth_ValidateTransactionNode implements Node {
     public OS_Auth_ValidateTransactionNode(@Assisted Config config, @Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         this.config = config;
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
+        this.dataToSignPlan = DataToSignPlan.compile(config);
     }
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_ValidateTransactionNode started");
+        Tracing.attach(context, "OS_Auth_ValidateTransactionNode");
         JsonValue sharedState = context.sharedState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         JsonValue usernameJsonValue = sharedState.get(config.userNameInSharedData());
         sharedState.put(Constants.OSTID_USERNAME_IN_SHARED_STATE, config.userNameInSharedData());
 
-        boolean missOptionalAttr = false;
         StringBuilder optionalAttributesStringBuilder = new StringBuilder(1000);
-        Map<String, String> optionalAttributesMap = config.optionalAttributes();
-        for (Map.Entry<String, String> entrySet : optionalAttributesMap.entrySet()) {
-            JsonValue jsonValue = sharedState.get(entrySet.getValue());
-            if (jsonValue.isString()) {
-                optionalAttributesStringBuilder.append("\"").append(entrySet.getKey()).append("\":\"").append(jsonValue.asString()).append("\",");
-            } else {
-                missOptionalAttr = true;
-            }
-        }
+        boolean missOptionalAttr = !dataToSignPlan.appendOptionalAttributes(sharedState, optionalAttributesStringBuilder);
 
-        String sessionID = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : StringUtils.stringToHex(UUID.randomUUID().toString());
+        String sessionID = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : SessionIdGenerator.generate();
+        StringBuilder dataJSONBuilder = new StringBuilder(512);
+        boolean hasNullValue = !dataToSignPlan.appendDataToSign(sharedState, dataJSONBuilder);
         String dataJSON = "";
         String IAAJson = "";
-        boolean hasNullValue = false;
-        switch (config.dataToSign()){
-            case fido:
-                Map<String, String> fidoDataToSign = config.fidoDataToSign();
-                String fidoProtocol = fidoDataToSign.getOrDefault("fidoProtocol", "");
-                String authenticationResponse = fidoDataToSign.getOrDefault("authenticationResponse", "");
-                boolean isFido2 = sharedState.get(fidoProtocol).asString().equalsIgnoreCase("FIDO2");
-                hasNullValue = CollectionsUtils.hasAnyNullValues(ImmutableList.of(
-                        sharedState.get(fidoProtocol),
-                        sharedState.get(authenticationResponse)
-                )) ||  (isFido2 && sharedState.get(Constants.OSTID_REQUEST_ID).isNull());
-                if(!hasNullValue){
-                    dataJSON = String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_FIDO,
-                            sharedState.get(fidoProtocol).asString(),                                                                                   //param1
-                            sharedState.get(authenticationResponse).asString(),                                                                         //param2
-                            isFido2? String.format(Constants.OSTID_JSON_ADAPTIVE_REQUESTID,sharedState.get(Constants.OSTID_REQUEST_ID).asString()):""   //param3
-                    );
-                }
-                break;
-            case standard:
-                List<String> dataValues = new ArrayList<>();
-                List<String> standardDataToSign = config.standardDataToSign();
-                for (String dataToSign : standardDataToSign) {
-                    if(!sharedState.get(dataToSign).isString()){
-                        hasNullValue = true;
-                    }else{
-                        dataValues.add("\""+sharedState.get(dataToSign).asString()+"\"");
-                    }
-                }
-                hasNullValue |= !sharedState.get(config.signatureInSharedData()).isString();
-                if(!hasNullValue){
-                    dataJSON = String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_STANDARD,
-                            String.join(",", dataValues),                           //param1
-                            sharedState.get(config.signatureInSharedData()).asString()          //param2
-                    );
-                }
-                break;
-            case secureChannel:
-                hasNullValue = CollectionsUtils.hasAnyNullValues(ImmutableList.of(
-                        sharedState.get(Constants.OSTID_REQUEST_ID),
-                        sharedState.get(config.signatureInSharedData())
+        if (dataToSignPlan.getDataToSign() == DataToSign.transactionMessage) {
+            StringBuilder adaptiveAttributesBuilder = new StringBuilder(512);
+            hasNullValue |= !dataToSignPlan.appendAdaptiveAttributes(sharedState, adaptiveAttributesBuilder);
+            JsonValue cddcJsonJsonValue = CDDCStore.resolve(sharedState);
+            if(config.objectType() == ObjectType.AdaptiveTransactionValidationInput) {
+                hasNullValue |= CollectionsUtils.hasAnyNullValues(ImmutableList.of(
+                        cddcJsonJsonValue,
+                        sharedState.get(Constants.OSTID_CDDC_HASH),
+                        sharedState.get(Constants.OSTID_CDDC_IP)
                 ));
-                if(!hasNullValue){
-                    dataJSON = String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_SECURECHANNEL,
-                            sharedState.get(Constants.OSTID_REQUEST_ID).asString(),             //param1
-                            sharedState.get(config.signatureInSharedData()).asString()          //param2
-                    );
-                }
-                break;
-            case transactionMessage:
-                List<String> adaptiveAttributesList = new ArrayList<>();
-                List<String> dataFieldsList = new ArrayList<>();
-                Map<String, String> adaptiveAttributes = config.adaptiveAttributes();
-                for (Map.Entry<String, String> entry : adaptiveAttributes.entrySet()) {
-                    String nameInSharedState = entry.getValue();
-                    if(!sharedState.get(nameInSharedState).isString()){
-                        hasNullValue = true;
-                    }else{
-                        adaptiveAttributesList.add("\""+entry.getKey()+"\":\""+sharedState.get(nameInSharedState).asString()+"\"");
-                    }
-                }
-
-                //override transaction date to make sure the transaction date doesn't get tempered
-                Map<String, String> dataToSignMap = config.adaptiveDataToSign();
-                dataToSignMap.put("login",config.userNameInSharedData());
-                dataToSignMap.put("beneficiary",config.adaptiveAttributes().get("creditorName"));
-                dataToSignMap.put("iban",config.adaptiveAttributes().get("creditorIBAN"));
-                dataToSignMap.put("amount",config.adaptiveAttributes().get("amount"));
-                dataToSignMap.put("currency",config.adaptiveAttributes().get("currency"));
-
-                for (Map.Entry<String, String> entry : dataToSignMap.entrySet()) {
-                    String key = entry.getKey();
-                    String value = entry.getValue();
-                    logger.debug("OSS data key= " + key);
-                    logger.debug("OSS data value name= " + value);
-                    if(!sharedState.get(value).isString()){
-                        hasNullValue = true;
-                    }else{
-                        logger.debug("OSS data value value= " + sharedState.get(value).asString());
-                        dataFieldsList.add(String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_TRANSACTIONMESSAGE_DATAFIELDS,
-                                key,
-                                sharedState.get(value).asString()));
-                    }
-                }
-
-                if(config.objectType() == ObjectType.AdaptiveTransactionValidationInput) {
-                    hasNullValue |= CollectionsUtils.hasAnyNullValues(ImmutableList.of(
-                            sharedState.get(Constants.OSTID_CDDC_JSON),
-                            sharedState.get(Constants.OSTID_CDDC_HASH),
-                            sharedState.get(Constants.OSTID_CDDC_IP)
-                    ));
-                }
-                if(!hasNullValue){
-                    String applicationRef = serviceConfig.applicationRef() != null ? serviceConfig.applicationRef() : "";
-                    String relationshipRefNameInSharedState = config.adaptiveAttributes().containsKey("relationshipRef") ? config.adaptiveAttributes().get("relationshipRef") : "relationshipRef";
-                    String relationshipRef = sharedState.get(relationshipRefNameInSharedState).isString() ? sharedState.get(relationshipRefNameInSharedState).asString():usernameJsonValue.asString();
-                    IAAJson = String.join(",",adaptiveAttributesList)+","+String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN_IAA,
-                            sharedState.get(Constants.OSTID_CDDC_IP).asString(),
-                            sharedState.get(Constants.OSTID_CDDC_HASH).asString(),
-                            sharedState.get(Constants.OSTID_CDDC_JSON).asString(),
-                            relationshipRef,
-                            sessionID,
-                            applicationRef
-                            );
-                    dataJSON = String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_TRANSACTIONMESSAGE, String.join(",",dataFieldsList));
-                }
-                break;
+            }
+            if(!hasNullValue){
+                String applicationRef = serviceConfig.applicationRef() != null ? serviceConfig.applicationRef() : "";
+                JsonValue relationshipRefJsonValue = sharedState.get(dataToSignPlan.getRelationshipRefKey());
+                String relationshipRef = relationshipRefJsonValue.isString() ? relationshipRefJsonValue.asString() : usernameJsonValue.asString();
+                IAAJson = adaptiveAttributesBuilder.append(',').append(String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN_IAA,
+                        sharedState.get(Constants.OSTID_CDDC_IP).asString(),
+                        sharedState.get(Constants.OSTID_CDDC_HASH).asString(),
+                        cddcJsonJsonValue.asString(),
+                        relationshipRef,
+                        sessionID,
+                        applicationRef
+                        )).toString();
+            }
+        }
+        if (!hasNullValue) {
+            dataJSON = dataJSONBuilder.toString();
         }
 
         if (usernameJsonValue.isNull() || missOptionalAttr || hasNullValue){  //missing data
@@ -318,7 +242,7 @@ public class OS_Auth_ValidateTransactionNode implements Node {
                     .replaceSharedState(sharedState)
                     .build();
         } else {
-            String APIUrl = String.format(Constants.OSTID_API_ADAPTIVE_SEND_TRANSACTION, usernameJsonValue.asString(), tenantName);
+            String url = endpoint.userUrl(EndpointDescriptor.SEND_TRANSACTION, usernameJsonValue.asString());
             /**
              * 1.objectType
              * 2.dataToSign
@@ -353,19 +277,19 @@ public class OS_Auth_ValidateTransactionNode implements Node {
                     timeout,                                                        //param4
                     IAAJson                                                         //param5
             );
-            logger.debug("OS_Auth_ValidateTransactionNode JSON:" + sendTransactionJSON);
+            logger.debugPayload("OS_Auth_ValidateTransactionNode JSON:{}", sendTransactionJSON);
 
             try {
-                HttpEntity httpEntity = RestUtils.doPostJSON(StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl, sendTransactionJSON);
-                JSONObject responseJSON = httpEntity.getResponseJSON();
+                ApiResult<GeneralResponseOutput> result = ApiExecutor.getInstance().execute(
+                        ApiRequest.post(url, sendTransactionJSON, GeneralResponseOutput.class));
 
-                if (httpEntity.isSuccess()) {
-                    GeneralResponseOutput loginOutput = JSON.toJavaObject(responseJSON, GeneralResponseOutput.class);
+                if (result.isSuccess()) {
+                    GeneralResponseOutput loginOutput = result.getValue();
                     int irmResponse = loginOutput.getRiskResponseCode();
                     sharedState.put(Constants.OSTID_IRM_RESPONSE,irmResponse);
                     sharedState.put(Constants.OSTID_SESSIONID,sessionID);
                     sharedState.put(Constants.OSTID_REQUEST_ID, loginOutput.getRequestID());
-                    sharedState.put(Constants.OSTID_COMMAND,loginOutput.getRequestMessage());
+                    SharedStateCodec.put(sharedState, Constants.OSTID_COMMAND, loginOutput.getRequestMessage(), serviceConfig);
                     sharedState.put(Constants.OSTID_EVENT_EXPIRY_DATE, DateUtils.getMilliStringAfterCertainSecs(config.timeout()));
 
                     SendTransactionOutcome sendTransactionOutcome = SendTransactionOutcome.Error;
@@ -408,26 +332,13 @@ public class OS_Auth_ValidateTransactionNode implements Node {
                             .replaceSharedState(sharedState)
                             .build();
                 } else {
-                    String log_correction_id = httpEntity.getLog_correlation_id();
-                    String message = responseJSON.getString("message");
-                    String requestJSON = "POST " + StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl + " : " + sendTransactionJSON;
-
-                    if (Stream.of(log_correction_id, message).anyMatch(Objects::isNull)) {
-                        throw new NodeProcessException("Fail to parse response: " + JSON.toJSONString(responseJSON));
-                    } else {
-                        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
-                        if(validationErrors != null && validationErrors.size() > 0 && validationErrors.getJSONObject(0).getString("message") != null){
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithValidation(message,log_correction_id,validationErrors.getJSONObject(0).getString("message"),requestJSON));         //error return from IAA server
-                        }else{
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithoutValidation(message,log_correction_id,requestJSON));         //error return from IAA server
-                        }
-                        return goTo(SendTransactionOutcome.Error)
-                                .replaceSharedState(sharedState)
-                                .build();
-                    }
+                    result.getError().putInto(sharedState);         //error return from IAA server
+                    return goTo(SendTransactionOutcome.Error)
+                            .replaceSharedState(sharedState)
+                            .build();
                 }
             } catch (Exception e) {
-                logger.debug("OS_Auth_ValidateTransactionNode exception: " + e.getMessage());
+                logger.debug("OS_Auth_ValidateTransactionNode exception: {}", e.getMessage());
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE, "Fail to Send Transaction!");                            //general error msg
                 return goTo(SendTransactionOutcome.Error)
                         .replaceSharedState(sharedState)
@@ -19,8 +19,12 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.utils.DateUtils;
-import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
 import com.sun.identity.authentication.callbacks.HiddenValueCallback;
 import com.sun.identity.authentication.callbacks.ScriptTextOutputCallback;
 import com.sun.identity.sm.SMSException;
@@ -29,8 +33,6 @@ import org.forgerock.openam.annotations.sm.Attribute;
 import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.security.auth.callback.Callback;
 import java.util.ArrayList;
@@ -45,9 +47,9 @@ import java.util.List;
                 configClass = OS_Auth_VisualCodeNode.Config.class,
                 tags = {"OneSpan", "mfa", "utilities", "basic authentication"})
 public class OS_Auth_VisualCodeNode extends SingleOutcomeNode {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Auth_VisualCodeNode.Config config;
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OneSpan Auth Visual Code Node.
@@ -155,7 +157,7 @@ public class OS_Auth_VisualCodeNode extends SingleOutcomeNode {
     public OS_Auth_VisualCodeNode(@Assisted OS_Auth_VisualCodeNode.Config config, @Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         this.config = config;
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -163,10 +165,13 @@ public class OS_Auth_VisualCodeNode extends SingleOutcomeNode {
 
     @Override
     public Action process(TreeContext context) throws NodeProcessException {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) throws NodeProcessException {
         logger.debug("OS_Auth_VisualCodeNode started");
         JsonValue sharedState = context.sharedState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         JsonValue crontoMsgJsonValue = config.visualCodeMessageOption() == VisualCodeMessageOptions.CustomCrontoMessage ? sharedState.get(config.customMessageInSharedState()) : sharedState.get(Constants.OSTID_CRONTO_MSG);
         boolean hasConsumed = false;
@@ -180,7 +185,7 @@ public class OS_Auth_VisualCodeNode extends SingleOutcomeNode {
 
         //1. throw exception, if user input is not intact
         if(!crontoMsgJsonValue.isString() ){
-            logger.debug("OS_Auth_VisualCodeNode crontoMsgJsonValue is null: " + crontoMsgJsonValue.isNull());
+            logger.debug("OS_Auth_VisualCodeNode crontoMsgJsonValue is null: {}", crontoMsgJsonValue.isNull());
             throw new NodeProcessException("Can't find Cronto Message in shared state!");
         }
         //2. go to next
@@ -195,7 +200,7 @@ public class OS_Auth_VisualCodeNode extends SingleOutcomeNode {
             //return visual code URL as hiddenValueCallback
             String crontURL = "";
             if (sharedState.get(config.visualCodeHiddenValueId()).isNull()) {
-                crontURL = StringUtils.getAPIEndpoint(tenantName,environment) + String.format(Constants.OSTID_API_ADAPTIVE_CRTONTO_RENDER,
+                crontURL = endpoint.url(EndpointDescriptor.VISUAL_CODE_RENDER,
                         config.visualCodeType().name().toUpperCase(),
                         crontoMsgJsonValue.asString());
                 sharedState.put(config.visualCodeHiddenValueId(), crontURL);
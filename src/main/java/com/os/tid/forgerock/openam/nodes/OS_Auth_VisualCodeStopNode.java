@@ -15,11 +15,11 @@
  */
 package com.os.tid.forgerock.openam.nodes;
 
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
 import com.sun.identity.authentication.callbacks.ScriptTextOutputCallback;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.auth.node.api.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.security.auth.callback.Callback;
 
@@ -31,7 +31,7 @@ import javax.security.auth.callback.Callback;
                 configClass = OS_Auth_VisualCodeStopNode.Config.class,
                 tags = {"OneSpan", "mfa", "utilities", "basic authentication"})
 public class OS_Auth_VisualCodeStopNode extends SingleOutcomeNode {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
 
     /**
      * Configuration for the OneSpan Auth Stop Visual Code Node.
@@ -41,6 +41,10 @@ public class OS_Auth_VisualCodeStopNode extends SingleOutcomeNode {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Auth_VisualCodeNode started");
         JsonValue sharedState = context.sharedState;
 
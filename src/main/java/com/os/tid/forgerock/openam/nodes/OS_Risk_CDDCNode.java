@@ -18,15 +18,16 @@ package com.os.tid.forgerock.openam.nodes;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.assistedinject.Assisted;
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.utils.CDDCStore;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
 import com.os.tid.forgerock.openam.utils.ScriptUtils;
 import com.sun.identity.authentication.callbacks.HiddenValueCallback;
 import com.sun.identity.authentication.callbacks.ScriptTextOutputCallback;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.annotations.sm.Attribute;
 import org.forgerock.openam.auth.node.api.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.security.auth.callback.Callback;
@@ -39,12 +40,13 @@ import java.util.Map;
 /**
  * A node which collects CDDC information through script callback.
  * Places the result in the shared state as 'osstid_cddc_json', 'osstid_cddc_hash' and 'osstid_cddc_ip'.
+ * The CDDC Json can be kept on the server instead, in which case the shared state holds 'ostid_cddc_ref'.
  */
 @Node.Metadata( outcomeProvider = SingleOutcomeNode.OutcomeProvider.class,
                 configClass = OS_Risk_CDDCNode.Config.class,
                 tags = {"OneSpan", "mfa", "risk", "contextual"})
 public class OS_Risk_CDDCNode extends SingleOutcomeNode {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Risk_CDDCNode.Config config;
 
     /**
@@ -74,6 +76,22 @@ public class OS_Risk_CDDCNode extends SingleOutcomeNode {
         default String CDDCHashHiddenValueId() {
             return Constants.OSTID_CDDC_HASH;
         }
+
+        /**
+         * If true, keeps the CDDC Json on the server and only a reference to it in the shared state
+         */
+        @Attribute(order = 400)
+        default boolean storeCDDCJsonServerSide() {
+            return false;
+        }
+
+        /**
+         * How long the CDDC Json stored on the server can be resolved
+         */
+        @Attribute(order = 500)
+        default int CDDCJsonStoreTtl() {
+            return Constants.OSTID_DEFAULT_CDDC_STORE_TTL_SECONDS;
+        }
     }
 
     @Inject
@@ -83,6 +101,10 @@ public class OS_Risk_CDDCNode extends SingleOutcomeNode {
 
     @Override
     public Action process(TreeContext context) throws NodeProcessException {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) throws NodeProcessException {
         logger.debug("OS_Risk_CDDCNode started");
         JsonValue sharedState = context.sharedState.copy();
 
@@ -109,7 +131,14 @@ public class OS_Risk_CDDCNode extends SingleOutcomeNode {
                 CDDCIp = "127.0.0.1";
             }
 
-            sharedState.put(Constants.OSTID_CDDC_JSON,CDDCJson);
+            String CDDCRef = config.storeCDDCJsonServerSide() ? CDDCStore.put(CDDCJson, config.CDDCJsonStoreTtl()) : null;
+            if(CDDCRef != null){
+                sharedState.remove(Constants.OSTID_CDDC_JSON);
+                sharedState.put(Constants.OSTID_CDDC_REF, CDDCRef);
+            }else{                                                                //not stored or the store is full
+                sharedState.remove(Constants.OSTID_CDDC_REF);
+                sharedState.put(Constants.OSTID_CDDC_JSON,CDDCJson);
+            }
             sharedState.put(Constants.OSTID_CDDC_HASH,CDDCHash);
             sharedState.put(Constants.OSTID_CDDC_IP,CDDCIp);
 
@@ -15,32 +15,35 @@
  */
 package com.os.tid.forgerock.openam.nodes;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
-import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
+import com.os.tid.forgerock.openam.utils.CDDCStore;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
-import com.os.tid.forgerock.openam.utils.RestUtils;
-import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import com.os.tid.forgerock.openam.utils.SessionIdGenerator;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.annotations.sm.Attribute;
 import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import com.sun.identity.sm.SMSException;
 import com.sun.identity.sm.RequiredValueValidator;
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * This node invokes the Risk Analytics Insert Transaction API, which validates and returns the result of a send transaction request.
@@ -50,9 +53,9 @@ import java.util.stream.Stream;
                 tags = {"OneSpan", "basic authentication", "mfa", "risk"})
 public class OS_Risk_InsertTransactionNode implements Node {
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Risk_InsertTransactionNode";
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Risk_InsertTransactionNode.Config config;
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OS Risk Insert Transaction Node.
@@ -88,7 +91,7 @@ public class OS_Risk_InsertTransactionNode implements Node {
     public OS_Risk_InsertTransactionNode(@Assisted Config config, @Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         this.config = config;
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -96,10 +99,14 @@ public class OS_Risk_InsertTransactionNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Risk_InsertTransactionNode started");
+        Tracing.attach(context, "OS_Risk_InsertTransactionNode");
         JsonValue sharedState = context.sharedState;
-        String tenantName = serviceConfig.tenantNameToLowerCase();
-        String environment = serviceConfig.environment().name();
+        EndpointDescriptor endpoint = serviceConfig.getEndpoint();
 
         boolean missAttr = false;
         JsonValue usernameJsonValue = sharedState.get(config.userNameInSharedData());
@@ -117,10 +124,11 @@ public class OS_Risk_InsertTransactionNode implements Node {
             }
         }
 
-        String sessionID = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : StringUtils.stringToHex(UUID.randomUUID().toString());
+        String sessionID = sharedState.get(Constants.OSTID_SESSIONID).isString() ? sharedState.get(Constants.OSTID_SESSIONID).asString() : SessionIdGenerator.generate();
 
+        JsonValue cddcJsonJsonValue = CDDCStore.resolve(sharedState);
         missAttr |= CollectionsUtils.hasAnyNullValues(ImmutableList.of(
-                sharedState.get(Constants.OSTID_CDDC_JSON),
+                cddcJsonJsonValue,
                 sharedState.get(Constants.OSTID_CDDC_HASH),
                 sharedState.get(Constants.OSTID_CDDC_IP)
         ));
@@ -140,18 +148,17 @@ public class OS_Risk_InsertTransactionNode implements Node {
                     attributesStringBuilder.toString(),                              //param1
                     sharedState.get(Constants.OSTID_CDDC_IP).asString(),             //param2
                     sharedState.get(Constants.OSTID_CDDC_HASH).asString(),           //param3
-                    sharedState.get(Constants.OSTID_CDDC_JSON).asString(),           //param4
+                    cddcJsonJsonValue.asString(),                                    //param4
                     sessionID,                                                       //param5
                     applicationRef,                                                  //param6
                     usernameJsonValue.asString()                                     //param7
             );
-            String APIUrl = Constants.OSTID_API_RISK_SEND_TRANSACTION;
+            String url = endpoint.url(EndpointDescriptor.RISK_SEND_TRANSACTION);
             try {
-                HttpEntity httpEntity = RestUtils.doPostJSON(StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl, sendTransactionJSON);
-                JSONObject responseJSON = httpEntity.getResponseJSON();
+                ApiResult<JSONObject> result = ApiExecutor.getInstance().execute(ApiRequest.post(url, sendTransactionJSON, JSONObject.class));
 
-                if (httpEntity.isSuccess()) {
-                    int riskResponseCode = responseJSON.getIntValue("riskResponseCode");
+                if (result.isSuccess()) {
+                    int riskResponseCode = result.getValue().getIntValue("riskResponseCode");
                     sharedState.put(Constants.OSTID_RISK_RESPONSE_CODE, riskResponseCode);
                     sharedState.put(Constants.OSTID_RISK_RESPONSE_CODE2, riskResponseCode);
 
@@ -168,26 +175,13 @@ public class OS_Risk_InsertTransactionNode implements Node {
                             .replaceSharedState(sharedState)
                             .build();
                 } else {
-                    String log_correction_id = httpEntity.getLog_correlation_id();
-                    String message = responseJSON.getString("message");
-                    String requestJSON = "POST " + StringUtils.getAPIEndpoint(tenantName, environment) + APIUrl + " : " + sendTransactionJSON;
-
-                    if (Stream.of(log_correction_id, message).anyMatch(Objects::isNull)) {
-                        throw new NodeProcessException("Fail to parse response: " + JSON.toJSONString(responseJSON));
-                    } else {
-                        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
-                        if (validationErrors != null && validationErrors.size() > 0 && validationErrors.getJSONObject(0).getString("message") != null) {
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithValidation(message, log_correction_id, validationErrors.getJSONObject(0).getString("message"), requestJSON));         //error return from IAA server
-                        } else {
-                            sharedState.put(Constants.OSTID_ERROR_MESSAGE, StringUtils.getErrorMsgNoRetCodeWithoutValidation(message, log_correction_id, requestJSON));         //error return from IAA server
-                        }
-                        return goTo(RiskTransactionOutcome.Error)
-                                .replaceSharedState(sharedState)
-                                .build();
-                    }
+                    result.getError().putInto(sharedState);         //error return from IAA server
+                    return goTo(RiskTransactionOutcome.Error)
+                            .replaceSharedState(sharedState)
+                            .build();
                 }
             }catch(Exception e){
-                logger.debug("OS_Risk_InsertTransactionNode exception: " + e.getMessage());
+                logger.debug("OS_Risk_InsertTransactionNode exception: {}", e.getMessage());
                 sharedState.put(Constants.OSTID_ERROR_MESSAGE, "Fail to Insert Risk Transaction!");                            //general error msg
                 return goTo(RiskTransactionOutcome.Error)
                         .replaceSharedState(sharedState)
@@ -195,7 +189,7 @@ public class OS_Risk_InsertTransactionNode implements Node {
             }
         }else{
             logger.debug("OS_Risk_InsertTransactionNode exception: Oopts, there are missing data for OneSpan Risk Insert Transaction Node!");
-            logger.debug(JSON.toJSONString(sharedState));
+            logger.debugJson("OS_Risk_InsertTransactionNode shared state: {}", sharedState);
             sharedState.put(Constants.OSTID_ERROR_MESSAGE, "Oopts, there are missing data for OneSpan Risk Insert Transaction Node!");
             return goTo(RiskTransactionOutcome.Error)
                     .replaceSharedState(sharedState)
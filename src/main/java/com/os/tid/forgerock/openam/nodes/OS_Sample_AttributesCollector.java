@@ -18,14 +18,14 @@ package com.os.tid.forgerock.openam.nodes;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.annotations.sm.Attribute;
 import org.forgerock.openam.auth.node.api.Action;
 import org.forgerock.openam.auth.node.api.Node;
 import org.forgerock.openam.auth.node.api.SingleOutcomeNode;
 import org.forgerock.openam.auth.node.api.TreeContext;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.NameCallback;
@@ -36,7 +36,7 @@ import java.util.*;
                 configClass = OS_Sample_AttributesCollector.Config.class,
                 tags = {"OneSpan", "mfa", "utilities"})
 public class OS_Sample_AttributesCollector extends SingleOutcomeNode {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Sample_AttributesCollector.Config config;
 
     /**
@@ -58,7 +58,11 @@ public class OS_Sample_AttributesCollector extends SingleOutcomeNode {
     }
 
     @Override
-    public Action process(TreeContext context){
+    public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Sample_AttributesCollector started");
         JsonValue sharedState = context.sharedState;
 
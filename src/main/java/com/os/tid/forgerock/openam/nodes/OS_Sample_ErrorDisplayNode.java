@@ -16,21 +16,23 @@
 package com.os.tid.forgerock.openam.nodes;
 
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
 import com.os.tid.forgerock.openam.utils.StringUtils;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.auth.node.api.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.security.auth.callback.TextOutputCallback;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Node.Metadata( outcomeProvider = SingleOutcomeNode.OutcomeProvider.class,
                 configClass = OS_Sample_ErrorDisplayNode.Config.class,
                 tags = {"OneSpan", "mfa", "utilities"})
 public class OS_Sample_ErrorDisplayNode extends SingleOutcomeNode {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
 
     /**
      * Configuration for the OS_Sample_ErrorDisplayNode.
@@ -39,26 +41,35 @@ public class OS_Sample_ErrorDisplayNode extends SingleOutcomeNode {
     }
 
     @Override
-    public Action process(TreeContext context){
+    public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OS_Sample_ErrorDisplayNode started");
         JsonValue sharedState = context.sharedState;
         JsonValue ostid_error_msg = sharedState.get(Constants.OSTID_ERROR_MESSAGE);
-        if(ostid_error_msg.isString()){
-            String[] split = ostid_error_msg.asString().split("<br />");
-            List<TextOutputCallback> outputCallbackList = new ArrayList<>();
-            for (String errorMsg: split) {
-                if(!StringUtils.isEmpty(errorMsg)) {
-                    TextOutputCallback errorTextOutputCallback;
-                    errorTextOutputCallback = new TextOutputCallback(2, errorMsg);
-                    outputCallbackList.add(errorTextOutputCallback);
-                }
-            }
-            sharedState.remove(Constants.OSTID_ERROR_MESSAGE);
-            return Action.send(outputCallbackList)
-                    .replaceSharedState(sharedState)
-                    .build();
-        }else{
+        List<String> errorMsgs;
+        ErrorRecord errorRecord = ErrorRecord.from(sharedState.get(Constants.OSTID_ERROR_RECORD));
+        if (ostid_error_msg.isString()) {
+            errorMsgs = Arrays.asList(ostid_error_msg.asString().split("<br />"));      //plain message, written after any record
+        } else if (errorRecord != null) {
+            errorMsgs = errorRecord.lines();
+        } else {
             return goToNext().build();
         }
+        List<TextOutputCallback> outputCallbackList = new ArrayList<>();
+        for (String errorMsg: errorMsgs) {
+            if(!StringUtils.isEmpty(errorMsg)) {
+                TextOutputCallback errorTextOutputCallback;
+                errorTextOutputCallback = new TextOutputCallback(2, errorMsg);
+                outputCallbackList.add(errorTextOutputCallback);
+            }
+        }
+        sharedState.remove(Constants.OSTID_ERROR_MESSAGE);
+        sharedState.remove(Constants.OSTID_ERROR_RECORD);
+        return Action.send(outputCallbackList)
+                .replaceSharedState(sharedState)
+                .build();
     }
 }
@@ -20,11 +20,16 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.iplanet.sso.SSOException;
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
 import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
 import com.os.tid.forgerock.openam.utils.RestUtils;
+import com.os.tid.forgerock.openam.utils.SharedStateCodec;
 import com.os.tid.forgerock.openam.utils.StringUtils;
+import com.os.tid.forgerock.openam.utils.Tracing;
 import com.sun.identity.sm.SMSException;
-import org.apache.commons.lang.exception.ExceptionUtils;
 import org.apache.commons.lang.text.StrSubstitutor;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.annotations.sm.Attribute;
@@ -32,8 +37,6 @@ import org.forgerock.openam.auth.node.api.*;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.sm.AnnotatedServiceRegistry;
 import org.forgerock.util.i18n.PreferredLocales;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
@@ -42,9 +45,9 @@ import java.util.*;
         tags = {"OneSpan", "mfa", "utilities"})
 public class OS_Sample_StoreCommandNode implements Node {
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Sample_StoreCommandNode";
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Sample_StoreCommandNode.Config config;
-    private final OSConfigurationsService serviceConfig;
+    private final OSConfigurationSnapshot serviceConfig;
 
     /**
      * Configuration for the OS_Sample_StoreCommandNode.
@@ -71,7 +74,7 @@ public class OS_Sample_StoreCommandNode implements Node {
     public OS_Sample_StoreCommandNode(@Assisted OS_Sample_StoreCommandNode.Config config, @Assisted Realm realm, AnnotatedServiceRegistry serviceRegistry) throws NodeProcessException {
         this.config = config;
         try {
-            this.serviceConfig = serviceRegistry.getRealmSingleton(OSConfigurationsService.class, realm).get();
+            this.serviceConfig = OSConfigurationRegistry.getSnapshot(realm, serviceRegistry);
         } catch (SSOException | SMSException e) {
             throw new NodeProcessException(e);
         }
@@ -79,13 +82,18 @@ public class OS_Sample_StoreCommandNode implements Node {
 
     @Override
     public Action process(TreeContext context) {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) {
         logger.debug("OSTID_DEMO_BackCommandsNode started");
+        Tracing.attach(context, "OS_Sample_StoreCommandNode");
         JsonValue sharedState = context.sharedState;
         String tenantName = serviceConfig.tenantNameToLowerCase();
 
         JsonValue ostid_sessionid = sharedState.get(Constants.OSTID_SESSIONID);
         JsonValue ostid_irm_response = sharedState.get(Constants.OSTID_IRM_RESPONSE);
-        JsonValue ostid_command = sharedState.get(Constants.OSTID_COMMAND);
+        JsonValue ostid_command = SharedStateCodec.get(sharedState, Constants.OSTID_COMMAND);
         String requestId = sharedState.get(Constants.OSTID_REQUEST_ID).isString() ? sharedState.get(Constants.OSTID_REQUEST_ID).asString() : ""; //temporary, the request ID is not mandatory
         try {
             //build payload
@@ -119,7 +127,7 @@ public class OS_Sample_StoreCommandNode implements Node {
                 throw new NodeProcessException(httpEntity.getResponseJSON().toJSONString());
             }
         } catch (Exception e) {
-            logger.debug("OSTID_DEMO_BackCommandsNode exception: " + ExceptionUtils.getStackTrace(e));
+            logger.debug("OSTID_DEMO_BackCommandsNode exception: ", e);
             sharedState.put(Constants.OSTID_ERROR_MESSAGE, "Fail to Store Command in backoffice!");
             return goTo(OS_Sample_StoreCommandNode.OSTID_DEMO_StoreCommandNode_Outcome.Error)
                     .replaceSharedState(sharedState)
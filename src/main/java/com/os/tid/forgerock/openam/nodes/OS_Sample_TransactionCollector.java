@@ -15,16 +15,15 @@
  */
 package com.os.tid.forgerock.openam.nodes;
 
-import com.alibaba.fastjson.JSON;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.os.tid.forgerock.openam.config.Constants;
 import com.os.tid.forgerock.openam.utils.CollectionsUtils;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.annotations.sm.Attribute;
 import org.forgerock.openam.auth.node.api.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.NameCallback;
@@ -36,7 +35,7 @@ import java.util.*;
                 configClass = OS_Sample_TransactionCollector.Config.class,
                 tags = {"OneSpan", "mfa", "utilities"})
 public class OS_Sample_TransactionCollector extends SingleOutcomeNode {
-    private final Logger logger = LoggerFactory.getLogger("amAuth");
+    private final PluginLogger logger = PluginLogger.getLogger("amAuth");
     private final OS_Sample_TransactionCollector.Config config;
     private static final String BUNDLE = "com/os/tid/forgerock/openam/nodes/OS_Sample_TransactionCollector";
 
@@ -67,6 +66,10 @@ public class OS_Sample_TransactionCollector extends SingleOutcomeNode {
     }
     @Override
     public Action process(TreeContext context) throws NodeProcessException {
+        return NodeProcessEvent.record(getClass(), () -> processNode(context));
+    }
+
+    private Action processNode(TreeContext context) throws NodeProcessException {
         logger.debug("OS_Sample_TransactionCollector started");
         JsonValue sharedState = context.sharedState;
         JsonValue transientState = context.transientState;
@@ -117,8 +120,8 @@ public class OS_Sample_TransactionCollector extends SingleOutcomeNode {
             if(config.passKeyRequired()){
                 transientState.put(Constants.OSTID_DEFAULT_PASSKEY,password);
             }
-            logger.debug("OS_Sample_TransactionCollector shared state: " + JSON.toJSONString(sharedState));
-            logger.debug("OS_Sample_TransactionCollector transient state: " + JSON.toJSONString(transientState));
+            logger.debugJson("OS_Sample_TransactionCollector shared state: {}", sharedState);
+            logger.debugJson("OS_Sample_TransactionCollector transient state: {}", transientState);
             return goToNext()
                     .replaceSharedState(sharedState)
                     .replaceTransientState(transientState)
@@ -0,0 +1,150 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.PathTemplate;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of one call to the OneSpan API, with the time spent connecting, waiting for the first byte
+ * of the response and reading it. The connection time covers the TCP connect and the TLS handshake, which
+ * {@link java.net.HttpURLConnection} does not tell apart; it is close to zero when a kept-alive connection is reused.
+ * <p>
+ * When the event is not recorded, the marks only test {@link #isEnabled()}, so the event stays in place in production.
+ */
+@Name("com.onespan.auth.ApiCall")
+@Label("OneSpan API Call")
+@Category({"OneSpan", "Auth Tree Nodes"})
+@Description("Call to the OneSpan API")
+@StackTrace(false)
+@Threshold("10 ms")
+public final class ApiCallEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Endpoint")
+    @Description("API path template, without user specific parts")
+    String endpoint;
+
+    @Label("Host")
+    String host;
+
+    @Label("Status")
+    int status;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Connect")
+    @Description("TCP connect and TLS handshake")
+    @Timespan
+    long connect;
+
+    @Label("Time To First Byte")
+    @Description("From the request being sent to the response status being read")
+    @Timespan
+    long timeToFirstByte;
+
+    @Label("Read")
+    @Description("Reading the response body")
+    @Timespan
+    long read;
+
+    @Label("Error")
+    @Description("Class of the exception which ended the call")
+    String error;
+
+    private transient String url;
+    private transient long mark;
+
+    /**
+     * Starts timing a call.
+     */
+    public static ApiCallEvent begin(String method, String url) {
+        ApiCallEvent event = new ApiCallEvent();
+        if (event.isEnabled()) {
+            event.method = method;
+            event.url = url;
+            event.begin();
+            event.mark = System.nanoTime();
+        }
+        return event;
+    }
+
+    /**
+     * Marks the connection as established.
+     */
+    public void connected() {
+        if (isEnabled()) {
+            connect = lap();
+        }
+    }
+
+    /**
+     * Marks the request as sent.
+     */
+    public void sent(long bytes) {
+        if (isEnabled()) {
+            bytesOut = bytes;
+            lap();
+        }
+    }
+
+    /**
+     * Marks the response status as read.
+     */
+    public void responded(int status) {
+        if (isEnabled()) {
+            this.status = status;
+            timeToFirstByte = lap();
+        }
+    }
+
+    /**
+     * Marks the response body as read.
+     */
+    public void received(long bytes) {
+        if (isEnabled()) {
+            bytesIn = bytes;
+            read = lap();
+        }
+    }
+
+    public void failed(Throwable throwable) {
+        if (isEnabled()) {
+            error = throwable.getClass().getName();
+        }
+    }
+
+    /**
+     * Ends the call and commits the event if it is recorded.
+     */
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            PathTemplate template = EndpointDescriptor.templateOf(url);
+            endpoint = template == null ? null : template.getTemplate();
+            host = Tracing.host(url);
+            commit();
+        }
+    }
+
+    private long lap() {
+        long now = System.nanoTime();
+        long elapsed = now - mark;
+        mark = now;
+        return elapsed;
+    }
+}
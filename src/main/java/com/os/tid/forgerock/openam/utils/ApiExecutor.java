@@ -0,0 +1,150 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.models.JsonCodecs;
+
+import java.io.IOException;
+
+/**
+ * Single path of the OneSpan API calls of the nodes: the request is encoded, sent, and its response is either
+ * decoded to the type of the request or classified as an {@link ErrorRecord}. Each step is a stage which can be
+ * replaced, so concerns such as caching or retries are applied to every node in one place.
+ * <p>
+ * The default executor sends the payload of the request as is with {@link RestUtils}, decodes the response with the
+ * {@link JsonCodec} generated for its model, or with fastjson for the other types, and classifies the errors which
+ * carry a message and a log correlation ID, as returned by the API. A hedged call runs every attempt through
+ * {@link #execute(ApiRequest, RequestHedger.Connector)}, so the transport opens it with the connector of the attempt.
+ */
+public final class ApiExecutor {
+    private static final ApiExecutor instance = new ApiExecutor(
+            ApiRequest::getPayload, ApiExecutor::send, ApiExecutor::decode, ApiExecutor::classify);
+
+    private final Encoder encoder;
+    private final Transport transport;
+    private final Decoder decoder;
+    private final ErrorClassifier classifier;
+
+    public ApiExecutor(Encoder encoder, Transport transport, Decoder decoder, ErrorClassifier classifier) {
+        this.encoder = encoder;
+        this.transport = transport;
+        this.decoder = decoder;
+        this.classifier = classifier;
+    }
+
+    public static ApiExecutor getInstance() {
+        return instance;
+    }
+
+    /**
+     * Builds the body sent for a request.
+     */
+    @FunctionalInterface
+    public interface Encoder {
+        String encode(ApiRequest<?> request);
+    }
+
+    /**
+     * Sends a request and reads its response.
+     */
+    @FunctionalInterface
+    public interface Transport {
+        /**
+         * @param body      the encoded body, null for a GET
+         * @param connector opens the connection of a hedged attempt, null for a plain request
+         */
+        HttpEntity send(ApiRequest<?> request, String body, RequestHedger.Connector connector) throws IOException;
+    }
+
+    /**
+     * Maps the body of a successful response to the type expected by the request.
+     */
+    @FunctionalInterface
+    public interface Decoder {
+        <T> T decode(JSONObject responseJSON, Class<T> type);
+    }
+
+    /**
+     * Turns a failed response into the error kept in shared state.
+     */
+    @FunctionalInterface
+    public interface ErrorClassifier {
+        /**
+         * @return the error, null if the response is not an error of the API
+         */
+        ErrorRecord classify(ApiRequest<?> request, HttpEntity httpEntity);
+    }
+
+    public ApiExecutor withEncoder(Encoder encoder) {
+        return new ApiExecutor(encoder, transport, decoder, classifier);
+    }
+
+    public ApiExecutor withTransport(Transport transport) {
+        return new ApiExecutor(encoder, transport, decoder, classifier);
+    }
+
+    public ApiExecutor withDecoder(Decoder decoder) {
+        return new ApiExecutor(encoder, transport, decoder, classifier);
+    }
+
+    public ApiExecutor withErrorClassifier(ErrorClassifier classifier) {
+        return new ApiExecutor(encoder, transport, decoder, classifier);
+    }
+
+    /**
+     * @return the decoded response, or the classified error if the API rejected the request
+     * @throws IOException if the API could not be reached
+     */
+    public <T> ApiResult<T> execute(ApiRequest<T> request) throws IOException {
+        return execute(request, null);
+    }
+
+    /**
+     * Executes one attempt of a hedged request.
+     *
+     * @param connector opens the connection of the attempt, null for a plain request
+     */
+    public <T> ApiResult<T> execute(ApiRequest<T> request, RequestHedger.Connector connector) throws IOException {
+        String body = request.getPayload() == null ? null : encoder.encode(request);
+        HttpEntity httpEntity = transport.send(request, body, connector);
+        if (httpEntity.isSuccess()) {
+            return ApiResult.success(httpEntity, decoder.decode(httpEntity.getResponseJSON(), request.getResponseType()));
+        }
+        return ApiResult.failure(httpEntity, classifier.classify(request, httpEntity));
+    }
+
+    private static HttpEntity send(ApiRequest<?> request, String body, RequestHedger.Connector connector) throws IOException {
+        return body == null ? RestUtils.doGet(request.getUrl()) : RestUtils.doPostJSON(request.getUrl(), body, connector);
+    }
+
+    private static <T> T decode(JSONObject responseJSON, Class<T> type) {
+        if (responseJSON == null || type.isInstance(responseJSON)) {
+            return type.cast(responseJSON);
+        }
+        JsonCodec<T> codec = JsonCodecs.forType(type);
+        return codec == null ? JSON.toJavaObject(responseJSON, type) : codec.decode(responseJSON);
+    }
+
+    private static ErrorRecord classify(ApiRequest<?> request, HttpEntity httpEntity) {
+        JSONObject responseJSON = httpEntity.getResponseJSON();
+        String logCorrelationId = httpEntity.getLog_correlation_id();
+        if (responseJSON == null || logCorrelationId == null || responseJSON.getString("message") == null) {
+            return null;
+        }
+        for (String field : request.getErrorFields()) {
+            if (responseJSON.get(field) == null) {
+                return null;
+            }
+        }
+        String validationMessage = null;
+        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
+        if (validationErrors != null && validationErrors.size() > 0) {
+            validationMessage = validationErrors.getJSONObject(0).getString("message");
+        }
+        return ErrorRecord.of(responseJSON.getString("message"), httpEntity.getHttpStatus(), logCorrelationId,
+                validationMessage, request.describe());
+    }
+}
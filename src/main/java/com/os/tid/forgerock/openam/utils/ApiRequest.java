@@ -0,0 +1,71 @@
+package com.os.tid.forgerock.openam.utils;
+
+/**
+ * Call to the OneSpan API, as executed by {@link ApiExecutor}.
+ *
+ * @param <T> the type the body of a successful response is decoded to
+ */
+public final class ApiRequest<T> {
+    private static final String[] NO_FIELDS = new String[0];
+
+    private final String method;
+    private final String url;
+    private final String payload;
+    private final Class<T> responseType;
+    private final String[] errorFields;
+
+    private ApiRequest(String method, String url, String payload, Class<T> responseType, String[] errorFields) {
+        this.method = method;
+        this.url = url;
+        this.payload = payload;
+        this.responseType = responseType;
+        this.errorFields = errorFields;
+    }
+
+    /**
+     * @param payload the JSON payload
+     * @param responseType the type of the response body, {@code JSONObject} to keep it as is
+     */
+    public static <T> ApiRequest<T> post(String url, String payload, Class<T> responseType) {
+        return new ApiRequest<>("POST", url, payload, responseType, NO_FIELDS);
+    }
+
+    public static <T> ApiRequest<T> get(String url, Class<T> responseType) {
+        return new ApiRequest<>("GET", url, null, responseType, NO_FIELDS);
+    }
+
+    /**
+     * @param fields the fields an error response must carry, besides the message, to be classified
+     * @return a copy of this request
+     */
+    public ApiRequest<T> requireErrorFields(String... fields) {
+        return new ApiRequest<>(method, url, payload, responseType, fields.clone());
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Class<T> getResponseType() {
+        return responseType;
+    }
+
+    public String[] getErrorFields() {
+        return errorFields.clone();
+    }
+
+    /**
+     * @return the method, URL and payload, as referenced by the error records
+     */
+    public String describe() {
+        return payload == null ? method + " " + url : method + " " + url + " : " + payload;
+    }
+}
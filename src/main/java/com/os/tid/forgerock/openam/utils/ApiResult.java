@@ -0,0 +1,68 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+import org.forgerock.openam.auth.node.api.NodeProcessException;
+
+/**
+ * Outcome of an {@link ApiExecutor} call: the decoded body of a successful response, or the classified error of a
+ * failed one.
+ *
+ * @param <T> the type of the decoded body
+ */
+public final class ApiResult<T> {
+    private final HttpEntity httpEntity;
+    private final T value;
+    private final ErrorRecord error;
+
+    private ApiResult(HttpEntity httpEntity, T value, ErrorRecord error) {
+        this.httpEntity = httpEntity;
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T> ApiResult<T> success(HttpEntity httpEntity, T value) {
+        return new ApiResult<>(httpEntity, value, null);
+    }
+
+    /**
+     * @param error the classified error, null if the response could not be classified
+     */
+    static <T> ApiResult<T> failure(HttpEntity httpEntity, ErrorRecord error) {
+        return new ApiResult<>(httpEntity, null, error);
+    }
+
+    public boolean isSuccess() {
+        return httpEntity.isSuccess();
+    }
+
+    public int getHttpStatus() {
+        return httpEntity.getHttpStatus();
+    }
+
+    /**
+     * @return the raw response, e.g. for the negative cache
+     */
+    public HttpEntity getHttpEntity() {
+        return httpEntity;
+    }
+
+    /**
+     * @return the decoded body of a successful response
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return the error of a failed response
+     * @throws NodeProcessException if the response does not carry the fields of an API error
+     */
+    public ErrorRecord getError() throws NodeProcessException {
+        if (error == null) {
+            throw new NodeProcessException("Fail to parse response: " + JSON.toJSONString(httpEntity.getResponseJSON()));
+        }
+        return error;
+    }
+}
@@ -0,0 +1,76 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointRouter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connect and request timeouts of the calls to the OneSpan API, registered per origin from the realm configuration
+ * by {@link com.os.tid.forgerock.openam.config.OSConfigurationRegistry}. Origins without a registration use the
+ * defaults of the realm configuration.
+ */
+public final class ApiTimeouts {
+    static final ApiTimeouts DEFAULT = new ApiTimeouts(Constants.OSTID_DEFAULT_API_CONNECT_TIMEOUT_SECONDS,
+            Constants.OSTID_DEFAULT_API_REQUEST_TIMEOUT_SECONDS);
+
+    private static volatile Map<String, ApiTimeouts> byOrigin = Collections.emptyMap();
+
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+
+    private ApiTimeouts(int connectTimeoutSeconds, int requestTimeoutSeconds) {
+        this.connectTimeout = Duration.ofSeconds(Math.max(1, connectTimeoutSeconds));
+        this.requestTimeout = Duration.ofSeconds(Math.max(1, requestTimeoutSeconds));
+    }
+
+    /**
+     * @return the timeouts of the calls to the URL
+     */
+    public static ApiTimeouts forUrl(String url) {
+        Map<String, ApiTimeouts> timeouts = byOrigin;
+        if (timeouts.isEmpty()) {
+            return DEFAULT;
+        }
+        ApiTimeouts registered = timeouts.get(EndpointRouter.origin(url));
+        return registered == null ? DEFAULT : registered;
+    }
+
+    /**
+     * Replaces the timeouts of the calls to a base URL of the API.
+     */
+    public static synchronized void register(String baseUrl, int connectTimeoutSeconds, int requestTimeoutSeconds) {
+        Map<String, ApiTimeouts> updated = new HashMap<>(byOrigin);
+        updated.put(EndpointRouter.origin(baseUrl), new ApiTimeouts(connectTimeoutSeconds, requestTimeoutSeconds));
+        byOrigin = updated;
+    }
+
+    public static synchronized void clear() {
+        byOrigin = Collections.emptyMap();
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ApiTimeouts)) {
+            return false;
+        }
+        ApiTimeouts other = (ApiTimeouts) o;
+        return connectTimeout.equals(other.connectTimeout) && requestTimeout.equals(other.requestTimeout);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * connectTimeout.hashCode() + requestTimeout.hashCode();
+    }
+}
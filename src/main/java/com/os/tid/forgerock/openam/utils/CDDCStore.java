@@ -0,0 +1,119 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import org.forgerock.json.JsonValue;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server side store of raw CDDC fingerprints. When enabled on the CDDC node, only a short reference is kept in
+ * shared state ({@link Constants#OSTID_CDDC_REF}) instead of the whole CDDC JSON, so the fingerprint is not
+ * carried by every authId token. Entries expire after their TTL. The store is local to the AM instance, so
+ * with several instances the journeys need session affinity: elsewhere the reference resolves to nothing.
+ * <p>
+ * The store holds at most {@code onespan.cddcStore.size} fingerprints. When it is full, the expired entries are
+ * evicted at once, and if none is, the fingerprint is not stored and the caller keeps it inline in shared state:
+ * fingerprints of live journeys are never evicted.
+ */
+public final class CDDCStore {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private static final int MAX_ENTRIES = Integer.getInteger(Constants.OSTID_PROPERTY_CDDC_STORE_SIZE, Constants.OSTID_DEFAULT_CDDC_STORE_SIZE);
+
+    private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private static final SecureRandom random = new SecureRandom();
+    private static volatile long nextSweep = System.nanoTime() + SWEEP_INTERVAL_NANOS;
+
+    private CDDCStore() {
+    }
+
+    /**
+     * @param cddcJson   the raw CDDC JSON
+     * @param ttlSeconds how long the fingerprint can be resolved
+     * @return the reference of the stored fingerprint, null if the store is full
+     */
+    public static String put(String cddcJson, long ttlSeconds) {
+        long now = System.nanoTime();
+        if (now - nextSweep >= 0) {
+            sweep(now, false);
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            sweep(now, true);
+            if (entries.size() >= MAX_ENTRIES) {
+                logger.debug("CDDCStore full with {} fingerprints", MAX_ENTRIES);
+                return null;
+            }
+        }
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String ref = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        entries.put(ref, new Entry(cddcJson, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        return ref;
+    }
+
+    /**
+     * @return the raw CDDC JSON, or null if the reference is unknown or expired
+     */
+    public static String get(String ref) {
+        Entry entry = entries.get(ref);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(ref, entry);
+            return null;
+        }
+        return entry.cddcJson;
+    }
+
+    /**
+     * Reads the CDDC JSON of the shared state, either inline or through its server side reference.
+     *
+     * @return the CDDC JSON value, a null {@link JsonValue} if there is none
+     */
+    public static JsonValue resolve(JsonValue sharedState) {
+        JsonValue cddcJson = sharedState.get(Constants.OSTID_CDDC_JSON);
+        if (!cddcJson.isNull()) {
+            return cddcJson;
+        }
+        JsonValue ref = sharedState.get(Constants.OSTID_CDDC_REF);
+        if (!ref.isString()) {
+            return cddcJson;
+        }
+        String stored = get(ref.asString());
+        if (stored == null) {
+            logger.debug("CDDCStore reference not found or expired: {}", ref.asString());
+        }
+        return new JsonValue(stored);
+    }
+
+    public static int size() {
+        return entries.size();
+    }
+
+    public static void clear() {
+        entries.clear();
+    }
+
+    private static synchronized void sweep(long now, boolean force) {
+        if (!force && now - nextSweep < 0) {
+            return;
+        }
+        nextSweep = now + SWEEP_INTERVAL_NANOS;
+        entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+    }
+
+    private static class Entry {
+        private final String cddcJson;
+        private final long expiresAt;
+
+        private Entry(String cddcJson, long expiresAt) {
+            this.cddcJson = cddcJson;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -3,14 +3,12 @@ package com.os.tid.forgerock.openam.utils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.functors.NullPredicate;
 import org.forgerock.json.JsonValue;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
 
 public class CollectionsUtils {
-    private static final Logger logger = LoggerFactory.getLogger("amAuth");
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
 
     private CollectionsUtils() {
     }
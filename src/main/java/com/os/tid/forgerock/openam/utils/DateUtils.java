@@ -1,12 +1,10 @@
 package com.os.tid.forgerock.openam.utils;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.Calendar;
 
 public class DateUtils {
-    private static final Logger logger = LoggerFactory.getLogger("amAuth");
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
 
     private DateUtils() {
     }
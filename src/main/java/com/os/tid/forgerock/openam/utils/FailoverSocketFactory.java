@@ -0,0 +1,339 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+
+/**
+ * TLS socket factory of the OneSpan API connections which resolves the host with {@link HostResolver} and walks
+ * its addresses, healthy ones first, giving each one {@code onespan.dns.connectTimeoutMillis} to accept the
+ * connection before trying the next. The last address gets what is left of the connect timeout of the caller.
+ * <p>
+ * {@link javax.net.ssl.HttpsURLConnection} opens an unconnected socket with {@link #createSocket()}, connects it and
+ * then layers TLS over it, so only the TCP connect is taken over; the handshake and the host name verification
+ * are the ones of the default factory. The factory must be shared, since the keep-alive pool only reuses the
+ * connections opened with the same factory.
+ * <p>
+ * The JDK builds the address it connects to with {@code new InetSocketAddress(host, port)}, which looks the host
+ * up through the JVM resolver before the socket is connected. That lookup cannot be skipped from
+ * here: it is served by the JVM cache ({@code networkaddress.cache.ttl}), and when it fails the address comes
+ * unresolved, so the connect still goes through {@link HostResolver} by host name. During a DNS outage every new
+ * connection waits for that failed lookup unless {@code networkaddress.cache.negative.ttl} keeps its result.
+ */
+public final class FailoverSocketFactory extends SSLSocketFactory {
+    private static volatile boolean enabled = Boolean.getBoolean(Constants.OSTID_PROPERTY_DNS_ENABLED);
+    private static volatile FailoverSocketFactory instance;
+
+    private final SSLSocketFactory delegate;
+    private final HostResolver resolver;
+    private final int attemptTimeoutMillis;
+
+    public FailoverSocketFactory(SSLSocketFactory delegate, HostResolver resolver, int attemptTimeoutMillis) {
+        this.delegate = delegate;
+        this.resolver = resolver;
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        FailoverSocketFactory.enabled = enabled;
+    }
+
+    public static FailoverSocketFactory getInstance() {
+        FailoverSocketFactory factory = instance;
+        if (factory == null) {
+            synchronized (FailoverSocketFactory.class) {
+                factory = instance;
+                if (factory == null) {
+                    factory = new FailoverSocketFactory((SSLSocketFactory) SSLSocketFactory.getDefault(), HostResolver.getInstance(),
+                            Integer.getInteger(Constants.OSTID_PROPERTY_DNS_CONNECT_TIMEOUT_MILLIS, Constants.OSTID_DEFAULT_DNS_CONNECT_TIMEOUT_MILLIS));
+                    instance = factory;
+                }
+            }
+        }
+        return factory;
+    }
+
+    @Override
+    public Socket createSocket() {
+        return new FailoverSocket();
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+        return delegate.createSocket(socket, host, port, autoClose);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        Socket socket = createSocket();
+        socket.connect(InetSocketAddress.createUnresolved(host, port));
+        return delegate.createSocket(socket, host, port, true);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localAddress, int localPort) throws IOException {
+        return delegate.createSocket(host, port, localAddress, localPort);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port) throws IOException {
+        return delegate.createSocket(address, port);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return delegate.createSocket(address, port, localAddress, localPort);
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    /**
+     * A failed connect closes a {@link Socket}, so every attempt gets a socket of its own and the one which
+     * connects becomes the delegate of all the other calls.
+     */
+    private final class FailoverSocket extends Socket {
+        private Socket socket = new Socket();
+
+        @Override
+        public void connect(SocketAddress endpoint) throws IOException {
+            connect(endpoint, 0);
+        }
+
+        @Override
+        public void connect(SocketAddress endpoint, int timeout) throws IOException {
+            InetSocketAddress target = (InetSocketAddress) endpoint;
+            List<InetAddress> addresses = resolver.addresses(target.getHostString());
+            long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+            IOException failure = null;
+            for (int i = 0; i < addresses.size(); i++) {
+                InetAddress address = addresses.get(i);
+                int remaining = deadline == 0 ? 0 : (int) (deadline - System.currentTimeMillis());
+                if (deadline != 0 && remaining <= 0) {
+                    break;
+                }
+                boolean last = i == addresses.size() - 1;
+                int attemptTimeout = last || attemptTimeoutMillis <= 0 ? remaining
+                        : remaining == 0 ? attemptTimeoutMillis : Math.min(remaining, attemptTimeoutMillis);
+                Socket attempt = i == 0 ? socket : new Socket();
+                try {
+                    attempt.connect(new InetSocketAddress(address, target.getPort()), attemptTimeout);
+                    resolver.succeeded(address);
+                    socket = attempt;
+                    return;
+                } catch (IOException e) {
+                    resolver.failed(address);
+                    attempt.close();
+                    failure = e;
+                }
+            }
+            throw failure == null ? new SocketTimeoutException("Connect timed out") : failure;
+        }
+
+        @Override
+        public void bind(SocketAddress bindpoint) throws IOException {
+            socket.bind(bindpoint);
+        }
+
+        @Override
+        public InetAddress getInetAddress() {
+            return socket.getInetAddress();
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return socket.getLocalAddress();
+        }
+
+        @Override
+        public int getPort() {
+            return socket.getPort();
+        }
+
+        @Override
+        public int getLocalPort() {
+            return socket.getLocalPort();
+        }
+
+        @Override
+        public SocketAddress getRemoteSocketAddress() {
+            return socket.getRemoteSocketAddress();
+        }
+
+        @Override
+        public SocketAddress getLocalSocketAddress() {
+            return socket.getLocalSocketAddress();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return socket.getInputStream();
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            return socket.getOutputStream();
+        }
+
+        @Override
+        public void setTcpNoDelay(boolean on) throws SocketException {
+            socket.setTcpNoDelay(on);
+        }
+
+        @Override
+        public boolean getTcpNoDelay() throws SocketException {
+            return socket.getTcpNoDelay();
+        }
+
+        @Override
+        public void setSoLinger(boolean on, int linger) throws SocketException {
+            socket.setSoLinger(on, linger);
+        }
+
+        @Override
+        public int getSoLinger() throws SocketException {
+            return socket.getSoLinger();
+        }
+
+        @Override
+        public void sendUrgentData(int data) throws IOException {
+            socket.sendUrgentData(data);
+        }
+
+        @Override
+        public void setOOBInline(boolean on) throws SocketException {
+            socket.setOOBInline(on);
+        }
+
+        @Override
+        public boolean getOOBInline() throws SocketException {
+            return socket.getOOBInline();
+        }
+
+        @Override
+        public void setSoTimeout(int timeout) throws SocketException {
+            socket.setSoTimeout(timeout);
+        }
+
+        @Override
+        public int getSoTimeout() throws SocketException {
+            return socket.getSoTimeout();
+        }
+
+        @Override
+        public void setSendBufferSize(int size) throws SocketException {
+            socket.setSendBufferSize(size);
+        }
+
+        @Override
+        public int getSendBufferSize() throws SocketException {
+            return socket.getSendBufferSize();
+        }
+
+        @Override
+        public void setReceiveBufferSize(int size) throws SocketException {
+            socket.setReceiveBufferSize(size);
+        }
+
+        @Override
+        public int getReceiveBufferSize() throws SocketException {
+            return socket.getReceiveBufferSize();
+        }
+
+        @Override
+        public void setKeepAlive(boolean on) throws SocketException {
+            socket.setKeepAlive(on);
+        }
+
+        @Override
+        public boolean getKeepAlive() throws SocketException {
+            return socket.getKeepAlive();
+        }
+
+        @Override
+        public void setTrafficClass(int tc) throws SocketException {
+            socket.setTrafficClass(tc);
+        }
+
+        @Override
+        public int getTrafficClass() throws SocketException {
+            return socket.getTrafficClass();
+        }
+
+        @Override
+        public void setReuseAddress(boolean on) throws SocketException {
+            socket.setReuseAddress(on);
+        }
+
+        @Override
+        public boolean getReuseAddress() throws SocketException {
+            return socket.getReuseAddress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        @Override
+        public void shutdownInput() throws IOException {
+            socket.shutdownInput();
+        }
+
+        @Override
+        public void shutdownOutput() throws IOException {
+            socket.shutdownOutput();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return socket.isConnected();
+        }
+
+        @Override
+        public boolean isBound() {
+            return socket.isBound();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return socket.isClosed();
+        }
+
+        @Override
+        public boolean isInputShutdown() {
+            return socket.isInputShutdown();
+        }
+
+        @Override
+        public boolean isOutputShutdown() {
+            return socket.isOutputShutdown();
+        }
+
+        @Override
+        public String toString() {
+            return socket.toString();
+        }
+    }
+}
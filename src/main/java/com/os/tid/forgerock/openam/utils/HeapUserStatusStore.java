@@ -0,0 +1,46 @@
+package com.os.tid.forgerock.openam.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link UserStatusStore} on the heap, evicting the least recently used user once {@code maxEntries} is reached.
+ */
+public class HeapUserStatusStore implements UserStatusStore {
+    private final Map<Long, Integer> entries;
+
+    public HeapUserStatusStore(int maxEntries) {
+        this.entries = new LinkedHashMap<Long, Integer>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized int get(long key) {
+        Integer status = entries.get(key);
+        return status == null ? 0 : status;
+    }
+
+    @Override
+    public synchronized void put(long key, int status) {
+        entries.put(key, status);
+    }
+
+    @Override
+    public synchronized void remove(long key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
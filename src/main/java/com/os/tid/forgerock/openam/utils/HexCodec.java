@@ -0,0 +1,100 @@
+package com.os.tid.forgerock.openam.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Table-driven lower case hex codec. Digits are written into a single preallocated byte array
+ * which becomes the resulting Latin-1 string, so encoding costs one array and one string.
+ */
+public final class HexCodec {
+    private static final byte[] DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private HexCodec() {
+    }
+
+    /**
+     * @return the two hex digits of every byte
+     */
+    public static String encode(byte[] data) {
+        byte[] out = new byte[data.length << 1];
+        encode(data, out, 0);
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes the two hex digits of every byte into {@code out}, starting at {@code offset}.
+     *
+     * @return the offset following the last written digit
+     */
+    public static int encode(byte[] data, byte[] out, int offset) {
+        for (byte b : data) {
+            out[offset++] = DIGITS[(b >> 4) & 0x0F];
+            out[offset++] = DIGITS[b & 0x0F];
+        }
+        return offset;
+    }
+
+    /**
+     * Encodes the data as an unsigned number, which is what {@code String.format("%0<minLength>x", new BigInteger(1, data))}
+     * returns: leading zero digits are dropped, then the number is left padded with zeros up to {@code minLength} digits.
+     */
+    public static String encodeUnsigned(byte[] data, int minLength) {
+        int digits = data.length << 1;
+        int firstSignificant = 0;
+        while (firstSignificant < digits && nibble(data, firstSignificant) == 0) {
+            firstSignificant++;
+        }
+        int significant = Math.max(1, digits - firstSignificant);
+        int length = Math.max(minLength, significant);
+        byte[] out = new byte[length];
+        int digit = digits - 1;
+        for (int i = length - 1; i >= 0; i--, digit--) {
+            out[i] = digit >= 0 ? DIGITS[nibble(data, digit)] : (byte) '0';
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @param hex an even number of hex digits, in either case
+     * @return the decoded bytes
+     * @throws IllegalArgumentException if the input is not valid hex
+     */
+    public static byte[] decode(CharSequence hex) {
+        int length = hex.length();
+        if ((length & 1) != 0) {
+            throw new IllegalArgumentException("Odd number of characters.");
+        }
+        byte[] out = new byte[length >> 1];
+        for (int i = 0; i < length; i += 2) {
+            out[i >> 1] = (byte) ((value(hex, i) << 4) | value(hex, i + 1));
+        }
+        return out;
+    }
+
+    private static int nibble(byte[] data, int digit) {
+        int b = data[digit >> 1];
+        return (digit & 1) == 0 ? (b >> 4) & 0x0F : b & 0x0F;
+    }
+
+    private static int value(CharSequence hex, int index) {
+        char c = hex.charAt(index);
+        int value = c < 128 ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Illegal hexadecimal character " + c + " at index " + index);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,91 @@
+package com.os.tid.forgerock.openam.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram used to report latencies. Values below 8 get a bucket each, every larger power-of-two range
+ * is split into 8 linear sub-buckets, so a bucket is never wider than 1/8 of its lower bound. Zero and negative
+ * values go to bucket 0. Percentiles are interpolated within their bucket.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram(String name) {
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        buckets[indexOf(value)].increment();
+        count.increment();
+        sum.add(Math.max(value, 0));
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * @param percentile a value between 0 and 100
+     * @return the given percentile, interpolated linearly within the bucket that contains it
+     */
+    public long getPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        double rank = Math.max(1d, total * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long inBucket = buckets[i].sum();
+            if (inBucket > 0 && seen + inBucket >= rank) {
+                long lower = lowerBound(i);
+                long width = lowerBound(i + 1) - lower;
+                return lower + Math.min(width - 1, (long) Math.ceil(width * (rank - seen) / inBucket) - 1);
+            }
+            seen += inBucket;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return value <= 0 ? 0 : (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lower < 0 ? Long.MAX_VALUE : lower;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%1$s{count=%2$d, mean=%3$.1f, p50=%4$d, p90=%5$d, p99=%6$d}",
+                name, getCount(), getMean(), getPercentile(50), getPercentile(90), getPercentile(99));
+    }
+}
@@ -0,0 +1,165 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plugin owned cache of the addresses of the OneSpan hosts, with a health score per address.
+ * <p>
+ * Records are kept for {@code onespan.dns.ttlSeconds}; an expired record is still served while it is refreshed
+ * in the background, and kept if the refresh fails. Every failed connection to an address puts it aside for an
+ * exponential backoff, up to a minute, so the next connections try the other addresses of the host first.
+ * Lookups go through {@link InetAddress#getAllByName} by default, so the JVM cache ({@code networkaddress.cache.ttl})
+ * sits below this one.
+ */
+public final class HostResolver {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final long MAX_BACKOFF_MILLIS = 60000;
+    private static volatile HostResolver instance;
+
+    private final long ttlMillis;
+    private final Lookup lookup;
+    private final ConcurrentHashMap<String, Record> records = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<InetAddress, Health> health = new ConcurrentHashMap<>();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "OneSpan-DNS-Refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HostResolver(long ttlSeconds) {
+        this(ttlSeconds, InetAddress::getAllByName);
+    }
+
+    public HostResolver(long ttlSeconds, Lookup lookup) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.lookup = lookup;
+    }
+
+    /**
+     * Resolves all the addresses of a host.
+     */
+    @FunctionalInterface
+    public interface Lookup {
+        InetAddress[] lookup(String host) throws UnknownHostException;
+    }
+
+    public static HostResolver getInstance() {
+        HostResolver resolver = instance;
+        if (resolver == null) {
+            synchronized (HostResolver.class) {
+                resolver = instance;
+                if (resolver == null) {
+                    resolver = new HostResolver(Integer.getInteger(Constants.OSTID_PROPERTY_DNS_TTL_SECONDS, Constants.OSTID_DEFAULT_DNS_TTL_SECONDS));
+                    instance = resolver;
+                }
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * @return the addresses of the host, the healthy ones first in DNS order, then the others by end of backoff
+     */
+    public List<InetAddress> addresses(String host) throws UnknownHostException {
+        Record record = records.get(host);
+        if (record == null) {
+            record = new Record(lookup.lookup(host), System.currentTimeMillis() + ttlMillis);
+            records.put(host, record);
+        } else if (record.expiresAt <= System.currentTimeMillis() && record.refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> refresh(host));
+        }
+        long now = System.currentTimeMillis();
+        List<InetAddress> healthy = new ArrayList<>(record.addresses.length);
+        List<InetAddress> backedOff = null;
+        for (InetAddress address : record.addresses) {
+            Health addressHealth = health.get(address);
+            if (addressHealth == null || addressHealth.retryAt <= now) {
+                healthy.add(address);
+            } else {
+                if (backedOff == null) {
+                    backedOff = new ArrayList<>(record.addresses.length);
+                }
+                backedOff.add(address);
+            }
+        }
+        if (backedOff != null) {
+            backedOff.sort((a, b) -> Long.compare(retryAt(a), retryAt(b)));
+            healthy.addAll(backedOff);
+        }
+        return healthy;
+    }
+
+    public void succeeded(InetAddress address) {
+        if (!health.isEmpty()) {
+            health.remove(address);
+        }
+    }
+
+    public void failed(InetAddress address) {
+        Health addressHealth = health.computeIfAbsent(address, a -> new Health());
+        synchronized (addressHealth) {
+            addressHealth.failures++;
+            long backoff = Math.min(MAX_BACKOFF_MILLIS, 1000L << Math.min(addressHealth.failures - 1, 6));
+            addressHealth.retryAt = System.currentTimeMillis() + backoff;
+        }
+        logger.debug("HostResolver backing off {} after {} failure(s)", address, addressHealth.failures);
+    }
+
+    private long retryAt(InetAddress address) {
+        Health addressHealth = health.get(address);
+        return addressHealth == null ? 0 : addressHealth.retryAt;
+    }
+
+    /**
+     * @return the number of failed connections to the address since its last success
+     */
+    public int getFailures(InetAddress address) {
+        Health addressHealth = health.get(address);
+        return addressHealth == null ? 0 : addressHealth.failures;
+    }
+
+    private void refresh(String host) {
+        try {
+            InetAddress[] addresses = lookup.lookup(host);
+            Record previous = records.get(host);
+            if (previous != null && !Arrays.equals(previous.addresses, addresses)) {
+                logger.debug("HostResolver {} now resolves to {}", host, Arrays.toString(addresses));
+            }
+            records.put(host, new Record(addresses, System.currentTimeMillis() + ttlMillis));
+        } catch (UnknownHostException e) {
+            //serve the last known addresses until the next refresh
+            Record previous = records.get(host);
+            if (previous != null) {
+                records.put(host, new Record(previous.addresses, System.currentTimeMillis() + ttlMillis));
+            }
+            logger.warn("HostResolver failed to refresh {}: {}", host, e.getMessage());
+        }
+    }
+
+    private static final class Record {
+        private final InetAddress[] addresses;
+        private final long expiresAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Record(InetAddress[] addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Health {
+        private volatile int failures;
+        private volatile long retryAt;
+    }
+}
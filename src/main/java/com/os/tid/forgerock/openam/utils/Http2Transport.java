@@ -0,0 +1,242 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointRouter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/2 transport of the OneSpan API calls, enabled with {@code onespan.transport=http2}. The calls to a tenant
+ * are multiplexed over a few long-lived connections, one per {@link HttpClient}, each carrying at most
+ * {@code onespan.http2.maxStreams} concurrent streams; further calls wait for a stream to be released rather than
+ * opening more connections. Flow control windows are the ones of the JDK client, set with the
+ * {@code jdk.httpclient.connectionWindowSize} and {@code jdk.httpclient.windowsize} system properties.
+ * <p>
+ * The JDK client keeps a single HTTP/2 connection per origin, so each connection needs its own client, which
+ * brings its own selector thread; the clients of all tenants share one executor for their response handling.
+ * Connections are opened within the connect timeout of the realm, and each exchange is bounded by its request
+ * timeout, see {@link ApiTimeouts}: a stalled stream fails with an {@link java.net.http.HttpTimeoutException}
+ * and releases its slot instead of holding it forever.
+ * <p>
+ * The protocol is negotiated per connection with ALPN, or with an upgrade for cleartext URLs. Once a host answers
+ * with HTTP/1.1, its calls go back to {@link java.net.HttpURLConnection} and its keep-alive pool.
+ * <p>
+ * A hedged attempt binds its exchange to its {@link RequestHedger.Connector}, so the losing attempt is cancelled:
+ * its caller is released at once and the JDK client resets the stream. The connections are opened by the JDK
+ * client with the JVM resolver, so {@link HostResolver} and the address failover of {@link FailoverSocketFactory}
+ * only apply to the hosts served over HTTP/1.1.
+ */
+public final class Http2Transport {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final ConcurrentHashMap<String, Authority> authorities = new ConcurrentHashMap<>();
+    private static final AtomicInteger threads = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "OneSpan-Http2-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile boolean enabled = Constants.OSTID_TRANSPORT_HTTP2.equalsIgnoreCase(System.getProperty(Constants.OSTID_PROPERTY_TRANSPORT));
+
+    private Http2Transport() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches the transport, the connections already open are kept.
+     */
+    public static void setEnabled(boolean enabled) {
+        Http2Transport.enabled = enabled;
+    }
+
+    /**
+     * @return true if the call must go through this transport, false if it must use HTTP/1.1
+     */
+    public static boolean handles(String url) {
+        if (!enabled) {
+            return false;
+        }
+        Authority authority = authorities.get(EndpointRouter.origin(url));
+        return authority == null || !authority.http1;
+    }
+
+    /**
+     * Sends a request and reads the whole response.
+     *
+     * @param body the JSON body, null for a GET
+     */
+    public static HttpResponse<byte[]> send(String method, String url, byte[] body) throws IOException {
+        return send(method, url, body, null);
+    }
+
+    /**
+     * Sends a request and reads the whole response.
+     *
+     * @param body      the JSON body, null for a GET
+     * @param connector the connector of a hedged attempt, which may cancel it, null for a plain request
+     */
+    public static HttpResponse<byte[]> send(String method, String url, byte[] body, RequestHedger.Connector connector) throws IOException {
+        ApiTimeouts timeouts = ApiTimeouts.forUrl(url);
+        Authority authority = authority(EndpointRouter.origin(url), timeouts);
+        Lane lane = authority.acquire();
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeouts.getRequestTimeout())
+                    .header("Accept", "application/json");
+            if (body == null) {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            } else {
+                request.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(body));
+            }
+            Span span = Tracing.startSpan(method, url);
+            if (span != null) {
+                request.header(Constants.OSTID_TRACEPARENT_HEADER, span.getContext().toHeader());
+            }
+            ApiCallEvent event = ApiCallEvent.begin(method, url);
+            try {
+                //connections are opened by the client, their setup shows up in the time to first byte
+                event.connected();
+                event.sent(body == null ? 0 : body.length);
+                CompletableFuture<HttpResponse<byte[]>> exchange = lane.client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                if (connector != null) {
+                    connector.bind(exchange);
+                }
+                HttpResponse<byte[]> response = await(exchange);
+                event.responded(response.statusCode());
+                event.received(response.body().length);
+                if (response.version() == HttpClient.Version.HTTP_1_1) {
+                    authority.fallBack();
+                }
+                EndpointRouter.record(url, response.statusCode());
+                Tracing.end(span, response.statusCode(), response.headers().firstValue(Constants.OSTID_LOG_CORRELATION_ID).orElse(null));
+                return response;
+            } catch (IOException e) {
+                Tracing.fail(span, e);
+                if (!(e instanceof InterruptedIOException)) {
+                    //a cancelled or interrupted call says nothing of the health of the endpoint
+                    EndpointRouter.record(url, 0);
+                }
+                event.failed(e);
+                throw e;
+            } finally {
+                event.finish();
+            }
+        } finally {
+            lane.streams.release();
+        }
+    }
+
+    /**
+     * @return the connections to the origin, opened again if the connect timeout of the realm has changed
+     */
+    private static Authority authority(String origin, ApiTimeouts timeouts) {
+        Authority authority = authorities.get(origin);
+        if (authority != null && authority.connectTimeout.equals(timeouts.getConnectTimeout())) {
+            return authority;
+        }
+        return authorities.compute(origin, (name, current) -> current != null && current.connectTimeout.equals(timeouts.getConnectTimeout())
+                ? current : new Authority(name, timeouts.getConnectTimeout()));
+    }
+
+    private static HttpResponse<byte[]> await(CompletableFuture<HttpResponse<byte[]>> exchange) throws IOException {
+        try {
+            return exchange.get();
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Request cancelled by its hedge");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.cancel(true);
+            throw new InterruptedIOException("Interrupted while calling the API");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Drops the connections, e.g. between two benchmark runs.
+     */
+    public static void reset() {
+        authorities.clear();
+    }
+
+    private static class Authority {
+        private final String name;
+        private final Duration connectTimeout;
+        private final Lane[] lanes;
+        private final AtomicInteger next = new AtomicInteger();
+        private volatile boolean http1;
+
+        private Authority(String name, Duration connectTimeout) {
+            this.name = name;
+            this.connectTimeout = connectTimeout;
+            int connections = Math.max(1, Integer.getInteger(Constants.OSTID_PROPERTY_HTTP2_CONNECTIONS, Constants.OSTID_DEFAULT_HTTP2_CONNECTIONS));
+            int maxStreams = Math.max(1, Integer.getInteger(Constants.OSTID_PROPERTY_HTTP2_MAX_STREAMS, Constants.OSTID_DEFAULT_HTTP2_MAX_STREAMS));
+            this.lanes = new Lane[connections];
+            for (int i = 0; i < connections; i++) {
+                lanes[i] = new Lane(connectTimeout, maxStreams);
+            }
+        }
+
+        /**
+         * Takes a stream on the first connection with one left, starting from the next connection in turn.
+         */
+        private Lane acquire() throws InterruptedIOException {
+            int start = Math.floorMod(next.getAndIncrement(), lanes.length);
+            for (int i = 0; i < lanes.length; i++) {
+                Lane lane = lanes[(start + i) % lanes.length];
+                if (lane.streams.tryAcquire()) {
+                    return lane;
+                }
+            }
+            Lane lane = lanes[start];
+            try {
+                lane.streams.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a stream to " + name);
+            }
+            return lane;
+        }
+
+        private void fallBack() {
+            if (!http1) {
+                http1 = true;
+                logger.info("Http2Transport {} does not support HTTP/2, falling back to HTTP/1.1", name);
+            }
+        }
+    }
+
+    private static class Lane {
+        private final HttpClient client;
+        private final Semaphore streams;
+
+        private Lane(Duration connectTimeout, int maxStreams) {
+            this.client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout)
+                    .executor(executor)
+                    .build();
+            this.streams = new Semaphore(maxStreams);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Maps a model to and from its JSON object without reflection. The implementations are generated at build time,
+ * see {@code com.os.tid.forgerock.openam.codegen.JsonCodecProcessor}.
+ */
+public interface JsonCodec<T> {
+
+    /**
+     * @return the model, its fields missing from the JSON object keeping their default value
+     */
+    T decode(JSONObject json);
+
+    /**
+     * @return the JSON object of the model, without its null fields
+     */
+    JSONObject encode(T model);
+
+    /**
+     * Finds the key holding a field the way the bean deserializer of fastjson matches it: the name of the field
+     * itself, else a key equal to it ignoring the case of ASCII letters and the {@code _} and {@code -} characters,
+     * else, for a boolean field, such a key prefixed with {@code is}.
+     *
+     * @return the key of the field, its name if the JSON object has none
+     */
+    static String key(JSONObject json, String name, boolean isBoolean) {
+        if (json.containsKey(name)) {
+            return name;
+        }
+        for (String key : json.keySet()) {
+            if (smartMatches(key, 0, name) || isBoolean && key.startsWith("is") && smartMatches(key, 2, name)) {
+                return key;
+            }
+        }
+        return name;
+    }
+
+    private static boolean smartMatches(String key, int from, String name) {
+        int i = from;
+        int j = 0;
+        while (true) {
+            while (i < key.length() && (key.charAt(i) == '_' || key.charAt(i) == '-')) {
+                i++;
+            }
+            while (j < name.length() && (name.charAt(j) == '_' || name.charAt(j) == '-')) {
+                j++;
+            }
+            if (i == key.length() || j == name.length()) {
+                return i == key.length() && j == name.length();
+            }
+            if (toLowerCase(key.charAt(i++)) != toLowerCase(name.charAt(j++))) {
+                return false;
+            }
+        }
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
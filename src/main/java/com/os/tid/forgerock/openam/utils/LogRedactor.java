@@ -0,0 +1,132 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+
+/**
+ * Masks the values of sensitive JSON fields before a payload is logged: the raw CDDC fingerprint,
+ * passkeys, static passwords, OTPs, FIDO authentication responses, activation passwords and signatures. The payload is scanned once,
+ * values may be strings, numbers or nested objects.
+ */
+public final class LogRedactor {
+    static final String MASK = "\"***\"";
+
+    private static final String[] SENSITIVE_FIELDS = {
+            "fingerprintRaw",
+            "passKey",
+            "staticPassword",
+            "OTP",
+            "authenticationResponse",
+            Constants.OSTID_ACTIVATION_CODE2,
+            Constants.OSTID_SIGNATURE,
+            Constants.OSTID_CDDC_JSON,
+            Constants.OSTID_DEFAULT_PASSKEY,
+            Constants.OSTID_ACTIVATION_CODE
+    };
+
+    private LogRedactor() {
+    }
+
+    public static String redact(String json) {
+        if (json == null) {
+            return null;
+        }
+        StringBuilder builder = null;
+        int copied = 0;
+        int length = json.length();
+        int i = 0;
+        while (i < length) {
+            char c = json.charAt(i);
+            if (c != '"') {
+                i++;
+                continue;
+            }
+            int end = skipString(json, i);
+            int colon = skipWhitespace(json, end);
+            if (colon < length && json.charAt(colon) == ':' && isSensitive(json, i + 1, end - 1)) {
+                int valueStart = skipWhitespace(json, colon + 1);
+                int valueEnd = skipValue(json, valueStart);
+                if (builder == null) {
+                    builder = new StringBuilder(length);
+                }
+                builder.append(json, copied, valueStart).append(MASK);
+                copied = valueEnd;
+                i = valueEnd;
+            } else {
+                i = end;
+            }
+        }
+        if (builder == null) {
+            return json;
+        }
+        return builder.append(json, copied, length).toString();
+    }
+
+    private static boolean isSensitive(String json, int start, int end) {
+        for (String field : SENSITIVE_FIELDS) {
+            if (field.length() == end - start && json.regionMatches(start, field, 0, field.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //returns the index following the closing quote of the string starting at start
+    private static int skipString(String json, int start) {
+        int i = start + 1;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return json.length();
+    }
+
+    private static int skipWhitespace(String json, int start) {
+        int i = start;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipValue(String json, int start) {
+        if (start >= json.length()) {
+            return start;
+        }
+        char c = json.charAt(start);
+        if (c == '"') {
+            return skipString(json, start);
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            int i = start;
+            while (i < json.length()) {
+                char current = json.charAt(i);
+                if (current == '"') {
+                    i = skipString(json, i);
+                    continue;
+                }
+                if (current == '{' || current == '[') {
+                    depth++;
+                } else if (current == '}' || current == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return i + 1;
+                    }
+                }
+                i++;
+            }
+            return i;
+        }
+        int i = start;
+        while (i < json.length() && json.charAt(i) != ',' && json.charAt(i) != '}' && json.charAt(i) != ']') {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,176 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.PathTemplate;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short lived cache of the rejections owned by a username, i.e. the 404 responses of a user who is not registered,
+ * so bots retrying an unknown username do not cost an API round trip each. A 400 validation error depends on the
+ * payload as much as on the user and is never cached. Entries are keyed by tenant, API and username, so a rejection
+ * by one API never answers a call to another one, expire after their TTL and the least recently used ones are
+ * evicted once the cache is full.
+ * Only the message, the validation message and the log correlation ID of the rejection are kept; the error
+ * record of a hit is rebuilt with the payload of the current request.
+ */
+public final class NegativeCache {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+
+    private static final Map<String, Rejection> entries = new LinkedHashMap<String, Rejection>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Rejection> eldest) {
+            return size() > Constants.OSTID_DEFAULT_NEGATIVE_CACHE_SIZE;
+        }
+    };
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private NegativeCache() {
+    }
+
+    /**
+     * @param api the path template of the API called
+     * @return the cached rejection of the user by the API, or null if there is none or it has expired
+     */
+    public static Rejection get(String tenantName, PathTemplate api, String username) {
+        String key = key(tenantName, api, username);
+        Rejection rejection;
+        synchronized (entries) {
+            rejection = entries.get(key);
+            if (rejection != null && System.nanoTime() - rejection.expiresAt >= 0) {
+                entries.remove(key);
+                rejection = null;
+            }
+        }
+        if (rejection == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("NegativeCache hit for user {}; {}", username, stats());
+            }
+        }
+        return rejection;
+    }
+
+    /**
+     * Caches the rejection carried by a failed response, if the user is unknown to the API.
+     *
+     * @param api the path template of the API called
+     * @return the cached rejection, null if the response is not cacheable
+     */
+    public static Rejection put(String tenantName, PathTemplate api, String username, HttpEntity httpEntity, long ttlSeconds) {
+        int status = httpEntity.getHttpStatus();
+        JSONObject responseJSON = httpEntity.getResponseJSON();
+        if (ttlSeconds <= 0 || status != 404 || responseJSON == null || responseJSON.getString("message") == null) {
+            return null;
+        }
+        String validationMessage = null;
+        JSONArray validationErrors = responseJSON.getJSONArray("validationErrors");
+        if (validationErrors != null && validationErrors.size() > 0) {
+            validationMessage = validationErrors.getJSONObject(0).getString("message");
+        }
+        Rejection rejection = new Rejection(responseJSON.getString("message"), status, validationMessage,
+                httpEntity.getLog_correlation_id(), System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds));
+        synchronized (entries) {
+            entries.put(key(tenantName, api, username), rejection);
+        }
+        return rejection;
+    }
+
+    /**
+     * Forgets the rejections of a user by every API, e.g. once the user has been registered.
+     */
+    public static void invalidate(String tenantName, String username) {
+        String tenantPrefix = tenantName + '\u0000';
+        String userSuffix = '\u0000' + username;
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.startsWith(tenantPrefix) && key.endsWith(userSuffix));
+        }
+    }
+
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    public static int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    public static double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public static String stats() {
+        return String.format("negative.cache{size=%1$d, hits=%2$d, misses=%3$d, hitRatio=%4$.3f}",
+                size(), getHits(), getMisses(), getHitRatio());
+    }
+
+    private static String key(String tenantName, PathTemplate api, String username) {
+        return tenantName + '\u0000' + api.getTemplate() + '\u0000' + username;
+    }
+
+    public static final class Rejection {
+        private final String message;
+        private final int status;
+        private final String validationMessage;
+        private final String logCorrelationId;
+        private final long expiresAt;
+
+        private Rejection(String message, int status, String validationMessage, String logCorrelationId, long expiresAt) {
+            this.message = message;
+            this.status = status;
+            this.validationMessage = validationMessage;
+            this.logCorrelationId = logCorrelationId;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getValidationMessage() {
+            return validationMessage;
+        }
+
+        public String getLogCorrelationId() {
+            return logCorrelationId;
+        }
+
+        /**
+         * @param requestJSON the method and URL of the current attempt, whose payload is not built
+         * @return the error the node stores in shared state
+         */
+        public ErrorRecord toErrorRecord(String requestJSON) {
+            return ErrorRecord.of(message, status, logCorrelationId, validationMessage, requestJSON);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.os.tid.forgerock.openam.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.forgerock.openam.auth.node.api.Action;
+
+/**
+ * Flight Recorder event of one {@code Node.process} invocation. Nodes run their logic through
+ * {@link #record(Class, NodeProcess)}, which costs next to nothing when the event is not recorded, so it can stay
+ * in place in production. Recordings include the executions which last 10 ms or more unless configured otherwise.
+ * It also detaches the journey the node attached to the thread for {@link Tracing}, whatever the node returns.
+ */
+@Name("com.onespan.auth.NodeProcess")
+@Label("OneSpan Node Process")
+@Category({"OneSpan", "Auth Tree Nodes"})
+@Description("Execution of a OneSpan authentication node")
+@StackTrace(false)
+@Threshold("10 ms")
+public final class NodeProcessEvent extends Event {
+    @Label("Node")
+    String node;
+
+    @Label("Outcome")
+    @Description("Outcome of the node, null when the node sends callbacks")
+    String outcome;
+
+    @Label("Callbacks")
+    int callbacks;
+
+    @Label("Error")
+    @Description("Class of the exception thrown by the node")
+    String error;
+
+    /**
+     * The body of a node, run by {@link #record(Class, NodeProcess)}.
+     */
+    @FunctionalInterface
+    public interface NodeProcess<E extends Exception> {
+        Action process() throws E;
+    }
+
+    /**
+     * Runs the node and records how long it took and where it went.
+     *
+     * @param node the class of the node
+     */
+    public static <E extends Exception> Action record(Class<?> node, NodeProcess<E> process) throws E {
+        try {
+            return recordEvent(node, process);
+        } finally {
+            //AM reuses its request threads, the journey must not outlive the node
+            Tracing.detach();
+        }
+    }
+
+    private static <E extends Exception> Action recordEvent(Class<?> node, NodeProcess<E> process) throws E {
+        NodeProcessEvent event = new NodeProcessEvent();
+        if (!event.isEnabled()) {
+            return process.process();
+        }
+        event.begin();
+        Action action = null;
+        try {
+            action = process.process();
+            return action;
+        } catch (Throwable t) {
+            event.error = t.getClass().getName();
+            throw t;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.node = node.getSimpleName();
+                if (action != null) {
+                    event.outcome = action.outcome;
+                    event.callbacks = action.callbacks == null ? 0 : action.callbacks.size();
+                }
+                event.commit();
+            }
+        }
+    }
+}
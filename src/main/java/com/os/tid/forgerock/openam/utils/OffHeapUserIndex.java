@@ -0,0 +1,187 @@
+package com.os.tid.forgerock.openam.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open addressing hash index held in a direct buffer, mapping the 64-bit key of a user
+ * ({@link UserStatusStore#key(String, String)}) to a fixed-width 64-bit value. It is the common backing store of
+ * the user-keyed caches of the plugin, so millions of users cost neither heap nor GC time.
+ * <p>
+ * A slot is 16 bytes: the key and the value. A key is probed within a bucket of 4 slots, i.e. one 64 byte cache
+ * line, picked by its low bits. When the bucket is full, the slot after the last one written in the bucket is
+ * evicted, so the oldest entries go first. The index never grows past the memory limit given on creation.
+ * <p>
+ * Readers take no lock: every stripe of buckets carries a version, odd while a writer updates it, and readers
+ * retry when it has changed under them. Writers of a stripe are serialized.
+ * <p>
+ * A zero key marks an empty slot, so the entry of key 0 is held in a field of its own rather than in the buffer.
+ */
+public class OffHeapUserIndex {
+    public static final int SLOT_BYTES = 16;
+    private static final int BUCKET_SLOTS = 4;
+    private static final int BUCKET_BYTES = BUCKET_SLOTS * SLOT_BYTES;
+    private static final int STRIPES = 64;
+    private static final long EMPTY = 0L;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer slots;
+    private final int bucketMask;
+    private final byte[] nextVictim;
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final Object[] locks = new Object[STRIPES];
+    private final LongAdder evictions = new LongAdder();
+    //the value of key 0, null if absent
+    private volatile Long zeroKeyValue;
+
+    /**
+     * @param maxBytes the memory the index may use, rounded down to a power of two number of buckets
+     */
+    public OffHeapUserIndex(long maxBytes) {
+        long buckets = Math.max(1, Long.highestOneBit(Math.min(maxBytes, Integer.MAX_VALUE) / BUCKET_BYTES));
+        this.slots = ByteBuffer.allocateDirect((int) buckets * BUCKET_BYTES).order(ByteOrder.nativeOrder());
+        this.bucketMask = (int) buckets - 1;
+        this.nextVictim = new byte[(int) buckets];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * @return the value of the key, {@code missing} if the key is not in the index
+     */
+    public long get(long key, long missing) {
+        if (key == EMPTY) {
+            Long value = zeroKeyValue;
+            return value == null ? missing : value;
+        }
+        int bucket = bucket(key);
+        int stripe = bucket & (STRIPES - 1);
+        int base = bucket * BUCKET_BYTES;
+        while (true) {
+            long version = versions.get(stripe);
+            if ((version & 1) == 0) {
+                long value = missing;
+                for (int i = 0; i < BUCKET_SLOTS; i++) {
+                    int offset = base + i * SLOT_BYTES;
+                    if ((long) LONGS.getAcquire(slots, offset) == key) {
+                        value = (long) LONGS.getAcquire(slots, offset + Long.BYTES);
+                        break;
+                    }
+                }
+                VarHandle.loadLoadFence();
+                if (versions.get(stripe) == version) {
+                    return value;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            zeroKeyValue = value;
+            return;
+        }
+        int bucket = bucket(key);
+        int stripe = bucket & (STRIPES - 1);
+        int base = bucket * BUCKET_BYTES;
+        synchronized (locks[stripe]) {
+            int target = -1;
+            for (int i = 0; i < BUCKET_SLOTS; i++) {
+                long slotKey = (long) LONGS.get(slots, base + i * SLOT_BYTES);
+                if (slotKey == key) {
+                    target = i;
+                    break;
+                }
+                if (slotKey == EMPTY && target < 0) {
+                    target = i;
+                }
+            }
+            if (target < 0) {
+                target = nextVictim[bucket];
+                nextVictim[bucket] = (byte) ((target + 1) % BUCKET_SLOTS);
+                evictions.increment();
+            }
+            write(stripe, base + target * SLOT_BYTES, key, value);
+        }
+    }
+
+    public void remove(long key) {
+        if (key == EMPTY) {
+            zeroKeyValue = null;
+            return;
+        }
+        int bucket = bucket(key);
+        int stripe = bucket & (STRIPES - 1);
+        int base = bucket * BUCKET_BYTES;
+        synchronized (locks[stripe]) {
+            for (int i = 0; i < BUCKET_SLOTS; i++) {
+                int offset = base + i * SLOT_BYTES;
+                if ((long) LONGS.get(slots, offset) == key) {
+                    write(stripe, offset, EMPTY, 0L);
+                    return;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = zeroKeyValue == null ? 0 : 1;
+        for (int offset = 0; offset < slots.capacity(); offset += SLOT_BYTES) {
+            if ((long) LONGS.getAcquire(slots, offset) != EMPTY) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        zeroKeyValue = null;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                for (int bucket = stripe; bucket <= bucketMask; bucket += STRIPES) {
+                    for (int i = 0; i < BUCKET_SLOTS; i++) {
+                        write(stripe, bucket * BUCKET_BYTES + i * SLOT_BYTES, EMPTY, 0L);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries the index can hold
+     */
+    public int capacity() {
+        return slots.capacity() / SLOT_BYTES;
+    }
+
+    /**
+     * @return the off-heap memory used by the index, in bytes
+     */
+    public long memoryBytes() {
+        return slots.capacity();
+    }
+
+    /**
+     * @return the number of entries evicted to make room for new ones
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private void write(int stripe, int offset, long tag, long value) {
+        versions.incrementAndGet(stripe);
+        LONGS.setRelease(slots, offset, tag);
+        LONGS.setRelease(slots, offset + Long.BYTES, value);
+        versions.incrementAndGet(stripe);
+    }
+
+    private int bucket(long key) {
+        return (int) (key ^ (key >>> 32)) & bucketMask;
+    }
+}
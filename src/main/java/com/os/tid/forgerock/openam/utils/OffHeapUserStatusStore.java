@@ -0,0 +1,52 @@
+package com.os.tid.forgerock.openam.utils;
+
+/**
+ * {@link UserStatusStore} backed by an {@link OffHeapUserIndex}, for tenants with millions of users.
+ */
+public class OffHeapUserStatusStore implements UserStatusStore {
+    private final OffHeapUserIndex index;
+
+    /**
+     * @param maxEntries the number of users the store can hold, rounded to a power of two
+     */
+    public OffHeapUserStatusStore(int maxEntries) {
+        long bytes = Long.highestOneBit(Math.max(1, (long) maxEntries * OffHeapUserIndex.SLOT_BYTES - 1)) << 1;
+        this.index = new OffHeapUserIndex(bytes);
+    }
+
+    @Override
+    public int get(long key) {
+        return (int) index.get(key, 0L);
+    }
+
+    @Override
+    public void put(long key, int status) {
+        index.put(key, status);
+    }
+
+    @Override
+    public void remove(long key) {
+        index.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void clear() {
+        index.clear();
+    }
+
+    /**
+     * @return the number of users the store can hold
+     */
+    public int capacity() {
+        return index.capacity();
+    }
+
+    public OffHeapUserIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,153 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Exports spans to an OpenTelemetry collector with the OTLP/HTTP JSON protocol, e.g. {@code http://localhost:4318/v1/traces}.
+ * Spans are queued and posted in batches by a daemon thread; when the queue is full, new spans are dropped so
+ * tracing never slows down a login. Export requests are not traced themselves.
+ */
+public final class OtlpSpanExporter implements Consumer<Span> {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final String SERVICE_NAME = "onespan-auth-tree-nodes";
+    private static final String SCOPE_NAME = "com.os.tid.forgerock.openam";
+    private static final int QUEUE_SIZE = 2048;
+    private static final int BATCH_SIZE = 256;
+    private static final long FLUSH_MILLIS = 1000;
+    private static final int TIMEOUT_MILLIS = 5000;
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private final String endpoint;
+    private final BlockingQueue<Span> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final LongAdder exported = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public OtlpSpanExporter(String endpoint) {
+        this.endpoint = endpoint;
+        Thread thread = new Thread(this::run, "OneSpan-SpanExporter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void accept(Span span) {
+        if (!queue.offer(span)) {
+            dropped.increment();
+        }
+    }
+
+    public long getExported() {
+        return exported.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the OTLP/JSON {@code ExportTraceServiceRequest} of the spans
+     */
+    public static JSONObject toJSON(List<Span> spans) {
+        JSONArray spansJSON = new JSONArray(spans.size());
+        for (Span span : spans) {
+            JSONObject spanJSON = new JSONObject(true);
+            spanJSON.put("traceId", span.getContext().getTraceId());
+            spanJSON.put("spanId", span.getContext().getSpanId());
+            if (span.getParentSpanId() != null) {
+                spanJSON.put("parentSpanId", span.getParentSpanId());
+            }
+            spanJSON.put("name", span.getName());
+            spanJSON.put("kind", span.getKind());
+            //64-bit integers are strings in OTLP/JSON
+            spanJSON.put("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+            spanJSON.put("endTimeUnixNano", Long.toString(span.getEndEpochNanos()));
+            spanJSON.put("attributes", attributes(span.getAttributes()));
+            if (span.isError()) {
+                spanJSON.put("status", ImmutableMap.of("code", STATUS_CODE_ERROR));
+            }
+            spansJSON.add(spanJSON);
+        }
+        JSONObject scopeSpans = new JSONObject(true);
+        scopeSpans.put("scope", ImmutableMap.of("name", SCOPE_NAME));
+        scopeSpans.put("spans", spansJSON);
+        JSONObject resourceSpans = new JSONObject(true);
+        resourceSpans.put("resource", ImmutableMap.of("attributes", attributes(ImmutableMap.of("service.name", SERVICE_NAME))));
+        resourceSpans.put("scopeSpans", new JSONArray().fluentAdd(scopeSpans));
+        return new JSONObject().fluentPut("resourceSpans", new JSONArray().fluentAdd(resourceSpans));
+    }
+
+    private static JSONArray attributes(Map<String, ?> attributes) {
+        JSONArray attributesJSON = new JSONArray(attributes.size());
+        for (Map.Entry<String, ?> entry : attributes.entrySet()) {
+            Object value = entry.getValue();
+            Map<String, Object> valueJSON = value instanceof Number
+                    ? ImmutableMap.of("intValue", value.toString())
+                    : ImmutableMap.of("stringValue", value.toString());
+            attributesJSON.add(ImmutableMap.of("key", entry.getKey(), "value", valueJSON));
+        }
+        return attributesJSON;
+    }
+
+    private void run() {
+        List<Span> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                Span first = queue.poll(FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                post(toJSON(batch).toJSONString().getBytes(StandardCharsets.UTF_8));
+                exported.add(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                dropped.add(batch.size());
+                logger.warn("OtlpSpanExporter failed to export {} spans: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void post(byte[] body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(endpoint).openConnection();
+        //a stalled collector must not hold the exporter thread, spans queue up and get dropped meanwhile
+        conn.setConnectTimeout(TIMEOUT_MILLIS);
+        conn.setReadTimeout(TIMEOUT_MILLIS);
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        try (OutputStream os = conn.getOutputStream()) {
+            os.write(body);
+        }
+        int status = conn.getResponseCode();
+        try (InputStream in = status >= 200 && status <= 299 ? conn.getInputStream() : conn.getErrorStream()) {
+            byte[] buffer = new byte[512];
+            while (in != null && in.read(buffer) >= 0) {
+                //drained streams are kept alive
+            }
+        }
+        if (status < 200 || status > 299) {
+            throw new IOException("collector response status " + status);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logging facade of the plugin. Messages use the slf4j {@code {}} placeholders and are only formatted once
+ * the level is enabled; the fixed-arity overloads avoid the varargs array, and the {@code int} overloads box
+ * status codes and sizes only once the level is enabled, so such a disabled statement costs a level check.
+ * Other primitive arguments, such as {@code long} durations, are still boxed by the caller. Payloads and
+ * serialized states go through {@link LogRedactor} before they are written.
+ */
+public final class PluginLogger {
+    private final Logger logger;
+
+    private PluginLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static PluginLogger getLogger(String name) {
+        return new PluginLogger(LoggerFactory.getLogger(name));
+    }
+
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+
+    public void debug(String message) {
+        logger.debug(message);
+    }
+
+    public void debug(String format, Object arg) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format, arg);
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(String format, int arg) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format, arg);
+        }
+    }
+
+    public void debug(String format, int arg1, Object arg2) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(String format, Object arg1, int arg2) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(String format, int arg1, int arg2) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(String message, Throwable t) {
+        logger.debug(message, t);
+    }
+
+    /**
+     * Logs a JSON request or response body with its credentials and CDDC data redacted.
+     */
+    public void debugPayload(String format, CharSequence payload) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format, LogRedactor.redact(payload == null ? null : payload.toString()));
+        }
+    }
+
+    /**
+     * Logs the JSON serialization of an object, such as the shared state, with its credentials and CDDC data redacted.
+     */
+    public void debugJson(String format, Object value) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format, LogRedactor.redact(JSON.toJSONString(value)));
+        }
+    }
+
+    public boolean isInfoEnabled() {
+        return logger.isInfoEnabled();
+    }
+
+    public void info(String message) {
+        logger.info(message);
+    }
+
+    public void info(String format, Object arg) {
+        if (logger.isInfoEnabled()) {
+            logger.info(format, arg);
+        }
+    }
+
+    public void info(String format, Object... args) {
+        if (logger.isInfoEnabled()) {
+            logger.info(format, args);
+        }
+    }
+
+    public void warn(String message) {
+        logger.warn(message);
+    }
+
+    public void warn(String format, Object arg) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(format, arg);
+        }
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+
+    public void warn(String format, int arg) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(format, arg);
+        }
+    }
+
+    public void warn(String format, int arg1, Object arg2) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+
+    public void warn(String format, Object arg1, int arg2) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+
+    public void warn(String format, int arg1, int arg2) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+
+    public void error(String message) {
+        logger.error(message);
+    }
+
+    public void error(String format, Object arg) {
+        if (logger.isErrorEnabled()) {
+            logger.error(format, arg);
+        }
+    }
+
+    public void error(String format, Object arg1, Object arg2) {
+        if (logger.isErrorEnabled()) {
+            logger.error(format, arg1, arg2);
+        }
+    }
+
+    public void error(String message, Throwable t) {
+        logger.error(message, t);
+    }
+}
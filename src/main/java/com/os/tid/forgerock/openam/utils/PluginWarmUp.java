@@ -0,0 +1,214 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.ImmutableList;
+import com.iplanet.sso.SSOException;
+import com.iplanet.sso.SSOToken;
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.models.AddDeviceOutput;
+import com.os.tid.forgerock.openam.models.GeneralResponseOutput;
+import com.os.tid.forgerock.openam.models.GenerateChallengeOutput;
+import com.os.tid.forgerock.openam.models.JsonCodecs;
+import com.os.tid.forgerock.openam.models.UserRegisterOutputEx;
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+import com.sun.identity.security.AdminTokenAction;
+import com.sun.identity.sm.OrganizationConfigManager;
+import com.sun.identity.sm.SMSException;
+import com.sun.identity.sm.ServiceConfig;
+import com.sun.identity.sm.ServiceConfigManager;
+import org.forgerock.openam.auth.node.api.NodeProcessException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the plugin up right after AM starts, so the first logins do not pay for loading the model codecs and scripts.
+ * Warm-up runs on a background thread and is controlled by the {@code onespan.warmup.*} system properties.
+ * <p>
+ * By default it only loads classes and resources. Exercising the payload code with sample values and opening
+ * connections to the tenants are opt-in, with the {@code onespan.warmup.iterations} and
+ * {@code onespan.warmup.connections} properties, as the latter calls the APIs before any user logs in.
+ */
+public final class PluginWarmUp {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final String SERVICE_NAME = OSConfigurationsService.class.getSimpleName();
+
+    private static final List<Class<?>> MODELS = ImmutableList.of(
+            GeneralResponseOutput.class,
+            AddDeviceOutput.class,
+            GenerateChallengeOutput.class,
+            UserRegisterOutputEx.class
+    );
+    private static final List<String> SCRIPTS = ImmutableList.of(
+            "/js/jquery-3.5.1.min.js",
+            "/js/Json2.js",
+            "/js/Vasco.IdKey.RM.CDDC.min.js"
+    );
+    private static final String SAMPLE_CDDC_JSON = "{\"navigator\":{\"userAgent\":\"Mozilla/5.0\",\"language\":\"en-US\"},\"screen\":{\"width\":1920,\"height\":1080}}";
+    private static final String SAMPLE_RESPONSE = "{\"requestID\":\"0b7e0b6b4c7c4d3c\",\"sessionStatus\":\"pending\",\"riskResponseCode\":0,\"requestMessage\":\"warm-up\"}";
+
+    private PluginWarmUp() {
+    }
+
+    /**
+     * Starts the warm-up in the background unless it is disabled with {@code -Donespan.warmup.enabled=false}.
+     */
+    public static void start() {
+        if (!Boolean.parseBoolean(System.getProperty(Constants.OSTID_PROPERTY_WARMUP_ENABLED, "true"))) {
+            logger.info("PluginWarmUp is disabled");
+            return;
+        }
+        int iterations = Integer.getInteger(Constants.OSTID_PROPERTY_WARMUP_ITERATIONS, Constants.OSTID_DEFAULT_WARMUP_ITERATIONS);
+        int connections = Integer.getInteger(Constants.OSTID_PROPERTY_WARMUP_CONNECTIONS, Constants.OSTID_DEFAULT_WARMUP_CONNECTIONS);
+        Thread thread = new Thread(() -> {
+            try {
+                Set<String> endpoints = connections > 0 ? configuredEndpoints() : Collections.emptySet();
+                logger.info("PluginWarmUp finished: {}", run(endpoints, iterations, connections));
+            } catch (RuntimeException e) {
+                logger.warn("PluginWarmUp failed: {}", e.getMessage());
+            }
+        }, "OneSpan-WarmUp");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs every warm-up phase on the calling thread.
+     *
+     * @param endpoints   the base URLs of the tenants to connect to
+     * @param iterations  number of times the payload code is exercised, 0 to skip it
+     * @param connections number of connections opened to each endpoint, 0 to skip them
+     * @return the duration of each phase
+     */
+    public static Report run(Set<String> endpoints, int iterations, int connections) {
+        Report report = new Report();
+
+        long start = System.nanoTime();
+        for (Class<?> model : MODELS) {
+            JsonCodecs.forType(model).decode(new JSONObject());
+        }
+        start = report.phase("models", start);
+
+        for (String script : SCRIPTS) {
+            try {
+                ScriptUtils.getScriptFromFile(script);
+            } catch (NodeProcessException e) {
+                logger.warn("PluginWarmUp failed to load {}", script);
+            }
+        }
+        start = report.phase("scripts", start);
+
+        exercisePayloads(iterations);
+        start = report.phase("payloads", start);
+
+        if (connections > 0) {
+            for (String endpoint : endpoints) {
+                report.connections += RestUtils.preconnect(endpoint, connections);
+            }
+        }
+        report.phase("connections", start);
+        return report;
+    }
+
+    /**
+     * @return the base URLs of every realm which configures a OneSpan tenant
+     */
+    static Set<String> configuredEndpoints() {
+        Set<String> endpoints = new LinkedHashSet<>();
+        try {
+            SSOToken adminToken = AccessController.doPrivileged(AdminTokenAction.getInstance());
+            ServiceConfigManager serviceConfigManager = new ServiceConfigManager(SERVICE_NAME, adminToken);
+            Set<String> realms = new LinkedHashSet<>();
+            realms.add("/");
+            for (String realm : new OrganizationConfigManager(adminToken, "/").getSubOrganizationNames("*", true)) {
+                realms.add(realm.startsWith("/") ? realm : "/" + realm);
+            }
+            for (String realm : realms) {
+                ServiceConfig serviceConfig = serviceConfigManager.getOrganizationConfig(realm, null);
+                if (serviceConfig == null) {
+                    continue;
+                }
+                Map<String, Set<String>> attributes = serviceConfig.getAttributes();
+                String tenantName = first(attributes.get("tenantName"));
+                String environment = first(attributes.get("environment"));
+                Set<String> baseEndpoints = attributes.get("baseEndpoints");
+                if (baseEndpoints != null && !baseEndpoints.isEmpty()) {
+                    for (String baseEndpoint : baseEndpoints) {
+                        //ordered lists are stored as "[index]=value"
+                        endpoints.add(baseEndpoint.startsWith("[") ? baseEndpoint.substring(baseEndpoint.indexOf('=') + 1) : baseEndpoint);
+                    }
+                } else if (tenantName != null && !tenantName.isEmpty() && environment != null) {
+                    endpoints.add(StringUtils.getAPIEndpoint(tenantName.toLowerCase(), environment));
+                }
+            }
+        } catch (SSOException | SMSException e) {
+            logger.warn("PluginWarmUp failed to read the tenant endpoints: {}", e.getMessage());
+        }
+        return endpoints;
+    }
+
+    private static String first(Set<String> values) {
+        return values == null || values.isEmpty() ? null : values.iterator().next();
+    }
+
+    private static void exercisePayloads(int iterations) {
+        byte[] sessionStatusField = PollingClient.fieldName("sessionStatus");
+        byte[][] sessionStatuses = {"pending".getBytes(StandardCharsets.UTF_8), "accepted".getBytes(StandardCharsets.UTF_8)};
+        byte[] response = SAMPLE_RESPONSE.getBytes(StandardCharsets.UTF_8);
+        StringBuilder url = new StringBuilder(128);
+        for (int i = 0; i < iterations; i++) {
+            String sessionId = SessionIdGenerator.generate();
+            String iaa = String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN_IAA,
+                    "127.0.0.1", "warm-up", SAMPLE_CDDC_JSON, "warm-up", sessionId, "warm-up");
+            String payload = String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN,
+                    "AdaptiveLoginInput", "", "", "", "", iaa, "", "");
+            LogRedactor.redact(payload);
+            JSONObject responseJSON = JSON.parseObject(SAMPLE_RESPONSE);
+            JsonCodecs.forType(GeneralResponseOutput.class).decode(responseJSON);
+            PollingClient.scan(response, response.length, sessionStatusField, sessionStatuses);
+            SharedStateCodec.decode(SharedStateCodec.encode(payload, 1));
+            url.setLength(0);
+            EndpointDescriptor.USER_LOGIN.appendTo(url, "warm-up", "warm-up");
+        }
+    }
+
+    public static final class Report {
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+        private int connections;
+
+        private long phase(String name, long start) {
+            long end = System.nanoTime();
+            phases.put(name, TimeUnit.NANOSECONDS.toMillis(end - start));
+            return end;
+        }
+
+        /**
+         * @return the duration of each phase in milliseconds, in execution order
+         */
+        public Map<String, Long> getPhases() {
+            return phases;
+        }
+
+        public long getTotalMillis() {
+            return phases.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        @Override
+        public String toString() {
+            return "total=" + getTotalMillis() + "ms, phases(ms)=" + phases + ", connections=" + connections;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.ImmutableMap;
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointRouter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * GET client for the status polling nodes. The response body is read into a buffer owned by the calling thread
+ * and the polled field is matched in place against the expected values, so a successful poll neither decodes the
+ * body into a String nor builds a JSON tree. Only error responses are parsed with fastjson.
+ */
+public final class PollingClient {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private static final ThreadLocal<Response> responses = ThreadLocal.withInitial(Response::new);
+
+    private PollingClient() {
+    }
+
+    /**
+     * @param url    the URL to poll
+     * @param field  the UTF-8 name of the polled field
+     * @param values the UTF-8 values the field is expected to hold
+     * @return the response of the calling thread, only valid until its next poll
+     */
+    public static Response get(String url, byte[] field, byte[][] values) throws IOException {
+        return get(url, field, values, null);
+    }
+
+    /**
+     * @param connector opens the connection of a hedged attempt, null for a plain request
+     * @return the response of the calling thread, only valid until its next poll, or a response of its own
+     * for a hedge
+     */
+    public static Response get(String url, byte[] field, byte[][] values, RequestHedger.Connector connector) throws IOException {
+        logger.debug("PollingClient get url: {}", url);
+        if (Http2Transport.handles(url)) {
+            HttpResponse<byte[]> httpResponse = Http2Transport.send("GET", url, null, connector);
+            Response response = connector != null && connector.isHedge() ? new Response() : responses.get();
+            response.statusCode = httpResponse.statusCode();
+            response.copy(httpResponse.body());
+            return match(response, field, values);
+        }
+        HttpURLConnection conn = connector == null ? RestUtils.openConnection(url) : connector.open(url);
+        conn.setRequestProperty("Accept", "application/json");
+        conn.setRequestMethod("GET");
+        Span span = Tracing.startSpan(conn, "GET", url);
+        ApiCallEvent event = ApiCallEvent.begin("GET", url);
+
+        Response response = connector != null && connector.isHedge() ? new Response() : responses.get();
+        try {
+            conn.connect();
+            event.connected();
+            response.statusCode = conn.getResponseCode();
+            event.responded(response.statusCode);
+            try (InputStream in = response.isSuccess() ? conn.getInputStream() : conn.getErrorStream()) {
+                response.read(in);
+            }
+            event.received(response.length);
+        } catch (IOException e) {
+            Tracing.fail(span, e);
+            EndpointRouter.record(url, 0);
+            event.failed(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+        EndpointRouter.record(url, response.statusCode);
+        if (span != null) {
+            Tracing.end(span, response.statusCode, conn.getHeaderField(Constants.OSTID_LOG_CORRELATION_ID));
+        }
+        return match(response, field, values);
+    }
+
+    private static Response match(Response response, byte[] field, byte[][] values) {
+        response.matched = response.isSuccess() ? scan(response.body, response.length, field, values) : -1;
+        logger.debug("PollingClient response status: {}, matched value: {}", response.statusCode, response.matched);
+        return response;
+    }
+
+    /**
+     * Finds the string value of a top level or nested field in a JSON document.
+     *
+     * @return the index of the matching value, -1 if the field is missing or holds another value
+     */
+    public static int scan(byte[] body, int length, byte[] field, byte[][] values) {
+        int i = indexOf(body, length, field, 0);
+        while (i >= 0) {
+            int position = skipWhitespace(body, length, i + field.length);
+            if (position < length && body[position] == ':') {
+                position = skipWhitespace(body, length, position + 1);
+                if (position < length && body[position] == '"') {
+                    position++;
+                    for (int v = 0; v < values.length; v++) {
+                        byte[] value = values[v];
+                        int end = position + value.length;
+                        if (end < length && body[end] == '"' && regionMatches(body, position, value)) {
+                            return v;
+                        }
+                    }
+                }
+                return -1;
+            }
+            i = indexOf(body, length, field, i + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the JSON encoded name of a field, as it is searched by {@link #scan}
+     */
+    public static byte[] fieldName(String name) {
+        return ("\"" + name + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] body, int length, byte[] target, int from) {
+        outer:
+        for (int i = from; i <= length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (body[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(byte[] body, int offset, byte[] value) {
+        for (int j = 0; j < value.length; j++) {
+            if (body[offset + j] != value[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(byte[] body, int length, int from) {
+        int i = from;
+        while (i < length && (body[i] == ' ' || body[i] == '\t' || body[i] == '\r' || body[i] == '\n')) {
+            i++;
+        }
+        return i;
+    }
+
+    public static final class Response {
+        private byte[] body = new byte[INITIAL_BUFFER_SIZE];
+        private int length;
+        private int statusCode;
+        private int matched;
+
+        private void read(InputStream in) throws IOException {
+            length = 0;
+            if (in == null) {
+                return;
+            }
+            int count;
+            while ((count = in.read(body, length, body.length - length)) >= 0) {
+                length += count;
+                if (length == body.length) {
+                    body = Arrays.copyOf(body, body.length * 2);
+                }
+            }
+        }
+
+        private void copy(byte[] bytes) {
+            if (bytes.length > body.length) {
+                body = new byte[Math.max(bytes.length, body.length * 2)];
+            }
+            System.arraycopy(bytes, 0, body, 0, bytes.length);
+            length = bytes.length;
+        }
+
+        public boolean isSuccess() {
+            return statusCode >= 200 && statusCode <= 299;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return the index of the value held by the polled field, -1 if none matched
+         */
+        public int getMatched() {
+            return matched;
+        }
+
+        /**
+         * Parses the body, meant for the error responses only.
+         */
+        public JSONObject toJSON() {
+            String text = new String(body, 0, length, StandardCharsets.UTF_8);
+            try {
+                return JSON.parseObject(text);
+            } catch (Exception e) {
+                return new JSONObject(ImmutableMap.of("response", text));
+            }
+        }
+    }
+}
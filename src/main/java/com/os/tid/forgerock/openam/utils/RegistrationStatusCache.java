@@ -0,0 +1,105 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Users of each tenant known to be registered or unregistered, learnt from the outcomes of the user register node,
+ * so a tree registering users defensively can skip the API call for users which already exist.
+ * A status may change outside of AM, so each one expires after the TTL given when it is learnt.
+ * The cache is local to the AM instance. It is held on the heap with LRU eviction, or off the heap with
+ * {@code -Donespan.registrationCache.offHeap=true}; its size is set with {@code onespan.registrationCache.size}.
+ */
+public final class RegistrationStatusCache {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+
+    public static final int REGISTERED = 1;
+    public static final int UNREGISTERED = 2;
+
+    private static final int STATUS_BITS = 2;
+    private static final long START = System.nanoTime();
+
+    private static final UserStatusStore store = createStore();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private RegistrationStatusCache() {
+    }
+
+    /**
+     * @return {@link #REGISTERED}, {@link #UNREGISTERED} or 0 if the user is unknown or its status has expired
+     */
+    public static int get(String tenantName, String username) {
+        long key = UserStatusStore.key(tenantName, username);
+        int value = store.get(key);
+        if (value != 0 && (value >>> STATUS_BITS) <= now()) {
+            store.remove(key);
+            value = 0;
+        }
+        if (value == 0) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value & ((1 << STATUS_BITS) - 1);
+    }
+
+    /**
+     * @param ttlSeconds seconds during which the status is trusted, nothing is cached if not positive
+     */
+    public static void markRegistered(String tenantName, String username, int ttlSeconds) {
+        put(tenantName, username, REGISTERED, ttlSeconds);
+    }
+
+    /**
+     * @param ttlSeconds seconds during which the status is trusted, nothing is cached if not positive
+     */
+    public static void markUnregistered(String tenantName, String username, int ttlSeconds) {
+        put(tenantName, username, UNREGISTERED, ttlSeconds);
+    }
+
+    private static void put(String tenantName, String username, int status, int ttlSeconds) {
+        long key = UserStatusStore.key(tenantName, username);
+        if (ttlSeconds <= 0) {
+            store.remove(key);
+            return;
+        }
+        //the expiry, in seconds since the class was loaded, is kept above the status bits
+        long expiresAt = Math.min(now() + ttlSeconds, Integer.MAX_VALUE >>> STATUS_BITS);
+        store.put(key, (int) (expiresAt << STATUS_BITS) | status);
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - START);
+    }
+
+    public static void clear() {
+        store.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    public static int size() {
+        return store.size();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    private static UserStatusStore createStore() {
+        int size = Integer.getInteger(Constants.OSTID_PROPERTY_REGISTRATION_CACHE_SIZE, Constants.OSTID_DEFAULT_REGISTRATION_CACHE_SIZE);
+        if (Boolean.getBoolean(Constants.OSTID_PROPERTY_REGISTRATION_CACHE_OFF_HEAP)) {
+            OffHeapUserStatusStore offHeapStore = new OffHeapUserStatusStore(size);
+            logger.info("RegistrationStatusCache off heap, capacity: {}", offHeapStore.capacity());
+            return offHeapStore;
+        }
+        return new HeapUserStatusStore(size);
+    }
+}
@@ -0,0 +1,293 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedges idempotent reads of the OneSpan API. The first attempt runs on the calling thread; when it has not
+ * answered once the configured latency percentile of its endpoint has elapsed, a second attempt is sent on another
+ * connection of the keep-alive pool, or on another stream with {@link Http2Transport}. The first successful
+ * response wins and the connection, or the stream, of the other attempt is closed. Hedges are only sent once an endpoint has enough latency samples, and never more than
+ * {@code onespan.hedging.maxInFlight} at a time.
+ */
+public class RequestHedger {
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final int MIN_SAMPLES = 20;
+    private static volatile RequestHedger instance;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final Semaphore inFlight;
+    private final ConcurrentHashMap<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final ExecutorService hedgers;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesSkipped = new LongAdder();
+
+    /**
+     * @param percentile     latency percentile of an endpoint after which a hedge is sent
+     * @param minDelayMillis minimum delay before a hedge is sent
+     * @param maxInFlight    maximum number of hedges in flight
+     */
+    public RequestHedger(boolean enabled, double percentile, long minDelayMillis, int maxInFlight) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.hedgers = Executors.newCachedThreadPool(daemonThreadFactory("OneSpan-Hedger-"));
+        this.scheduler = new ScheduledThreadPoolExecutor(1, daemonThreadFactory("OneSpan-Hedge-Timer-"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    public static RequestHedger getInstance() {
+        RequestHedger hedger = instance;
+        if (hedger == null) {
+            synchronized (RequestHedger.class) {
+                hedger = instance;
+                if (hedger == null) {
+                    hedger = new RequestHedger(
+                            Boolean.getBoolean(Constants.OSTID_PROPERTY_HEDGING_ENABLED),
+                            Integer.getInteger(Constants.OSTID_PROPERTY_HEDGING_PERCENTILE, Constants.OSTID_DEFAULT_HEDGING_PERCENTILE),
+                            Integer.getInteger(Constants.OSTID_PROPERTY_HEDGING_MIN_DELAY_MILLIS, Constants.OSTID_DEFAULT_HEDGING_MIN_DELAY_MILLIS),
+                            Integer.getInteger(Constants.OSTID_PROPERTY_HEDGING_MAX_IN_FLIGHT, Constants.OSTID_DEFAULT_HEDGING_MAX_IN_FLIGHT));
+                    instance = hedger;
+                }
+            }
+        }
+        return hedger;
+    }
+
+    /**
+     * Stops the hedging threads, if the hedger has been used since startup.
+     */
+    public static void shutdown() {
+        synchronized (RequestHedger.class) {
+            if (instance != null) {
+                instance.close();
+                instance = null;
+            }
+        }
+    }
+
+    /**
+     * One attempt of a hedged request, which must open its connection with the given connector.
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T send(Connector connector) throws IOException;
+    }
+
+    /**
+     * Sends a request, and a hedge of it if it is slow.
+     *
+     * @param key     identifies the endpoint whose latencies define the hedging delay
+     * @param attempt sends the request, it must be safe to send it twice
+     * @return the first successful response
+     */
+    public <T> T send(String key, Attempt<T> attempt) throws IOException {
+        if (!enabled) {
+            return attempt.send(new Connector(false));
+        }
+        Histogram latency = latencies.computeIfAbsent(key, Histogram::new);
+        long start = System.nanoTime();
+        Connector primary = new Connector(false);
+        Hedge<T> hedge = new Hedge<>(new Connector(true));
+        ScheduledFuture<?> timer = latency.getCount() < MIN_SAMPLES ? null : scheduler.schedule(
+                () -> launch(attempt, hedge, primary), Math.max(minDelayMillis, latency.getPercentile(percentile)), TimeUnit.MILLISECONDS);
+
+        T response;
+        try {
+            response = attempt.send(primary);
+            primary.complete();
+        } catch (IOException e) {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (hedge.closeWindow()) {
+                return awaitHedge(hedge, latency, start, e);
+            }
+            throw e;
+        }
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        if (hedge.closeWindow()) {
+            //the hedge lost: it was launched in between, or is still running
+            hedge.connector.cancel();
+        }
+        latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return response;
+    }
+
+    private <T> T awaitHedge(Hedge<T> hedge, Histogram latency, long start, IOException primaryFailure) throws IOException {
+        try {
+            T response = hedge.result.get();
+            hedgesWon.increment();
+            latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            logger.debug("RequestHedger hedge won: {}", latency.getName());
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw primaryFailure;
+        } catch (ExecutionException e) {
+            throw primaryFailure;
+        }
+    }
+
+    private <T> void launch(Attempt<T> attempt, Hedge<T> hedge, Connector primary) {
+        if (hedge.state.get() != 0) {
+            return;
+        }
+        if (!inFlight.tryAcquire()) {
+            hedgesSkipped.increment();
+            return;
+        }
+        if (!hedge.state.compareAndSet(0, 1)) {
+            //the primary answered first
+            inFlight.release();
+            return;
+        }
+        hedgesSent.increment();
+        hedgers.execute(() -> {
+            try {
+                T response = attempt.send(hedge.connector);
+                hedge.connector.complete();
+                hedge.result.complete(response);
+                primary.cancel();
+            } catch (Throwable t) {
+                hedge.result.completeExceptionally(t);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    public long getHedgesSkipped() {
+        return hedgesSkipped.sum();
+    }
+
+    public String stats() {
+        return "hedging{sent=" + getHedgesSent() + ", won=" + getHedgesWon() + ", skipped=" + getHedgesSkipped() + "}";
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+        hedgers.shutdown();
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Opens the connection of one attempt, or holds its HTTP/2 exchange, so that the attempt can be aborted once
+     * the other one has won.
+     */
+    public static final class Connector {
+        private final boolean hedge;
+        private volatile HttpURLConnection connection;
+        private volatile Future<?> exchange;
+        private volatile boolean cancelled;
+
+        private Connector(boolean hedge) {
+            this.hedge = hedge;
+        }
+
+        /**
+         * A hedge runs on another thread than the caller, so it must not use buffers owned by its thread.
+         */
+        public boolean isHedge() {
+            return hedge;
+        }
+
+        public HttpURLConnection open(String url) throws IOException {
+            HttpURLConnection conn = RestUtils.openConnection(url);
+            connection = conn;
+            if (cancelled) {
+                throw new InterruptedIOException("Request cancelled by its hedge");
+            }
+            return conn;
+        }
+
+        /**
+         * Binds the HTTP/2 exchange of the attempt, cancelled along with the attempt.
+         */
+        void bind(Future<?> exchange) {
+            this.exchange = exchange;
+            if (cancelled) {
+                exchange.cancel(true);
+            }
+        }
+
+        /**
+         * Marks the response as read, the connection may then be back in the keep-alive pool.
+         */
+        private void complete() {
+            connection = null;
+            exchange = null;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            HttpURLConnection conn = connection;
+            if (conn != null) {
+                conn.disconnect();
+            }
+            Future<?> current = exchange;
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+
+    private static class Hedge<T> {
+        private final Connector connector;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        //0: not launched yet, 1: launched, 2: never to be launched
+        private final AtomicInteger state = new AtomicInteger();
+
+        private Hedge(Connector connector) {
+            this.connector = connector;
+        }
+
+        /**
+         * Closes the hedging window.
+         *
+         * @return true if the hedge has been launched
+         */
+        private boolean closeWindow() {
+            return !state.compareAndSet(0, 2) && state.get() == 1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.os.tid.forgerock.openam.utils;
+
+/**
+ * Request of a {@link RestUtils} call as seen by the {@link RestInterceptor}s.
+ */
+public final class RestExchange {
+    private final String method;
+    private final String url;
+    private final String payload;
+    private final boolean readResponse;
+    final RequestHedger.Connector connector;
+
+    RestExchange(String method, String url, String payload, boolean readResponse, RequestHedger.Connector connector) {
+        this.method = method;
+        this.url = url;
+        this.payload = payload;
+        this.readResponse = readResponse;
+        this.connector = connector;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the JSON payload, null for a GET
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return false if the caller ignores the body of the response
+     */
+    public boolean isReadResponse() {
+        return readResponse;
+    }
+
+    /**
+     * @return a copy of this exchange sending another payload
+     */
+    public RestExchange withPayload(String payload) {
+        return new RestExchange(method, url, payload, readResponse, connector);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+}
@@ -0,0 +1,25 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.models.HttpEntity;
+
+import java.io.IOException;
+
+/**
+ * Decorates the exchanges of {@link RestUtils} with the OneSpan API. An interceptor either passes the exchange on
+ * to the rest of the chain, possibly changed, or answers it itself, e.g. from a cache.
+ *
+ * @see RestInterceptors
+ */
+@FunctionalInterface
+public interface RestInterceptor {
+
+    HttpEntity intercept(RestExchange exchange, Chain chain) throws IOException;
+
+    /**
+     * The interceptors after the current one, followed by the transport.
+     */
+    @FunctionalInterface
+    interface Chain {
+        HttpEntity proceed(RestExchange exchange) throws IOException;
+    }
+}
@@ -0,0 +1,212 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.ImmutableMap;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.EndpointRouter;
+import com.os.tid.forgerock.openam.config.PathTemplate;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interceptors of the {@link RestUtils} calls, registered per origin of the OneSpan API, i.e. per tenant, from the
+ * {@code transportInterceptors} of the realm configuration. Each entry names a built-in interceptor, with its
+ * argument after a colon, and the entries are applied in order:
+ * <ul>
+ *     <li>{@code metrics}: latency histogram and failure count per API, see {@link #stats()}</li>
+ *     <li>{@code rate:<calls per second>}: calls over the rate are answered with a 429 without reaching the API</li>
+ *     <li>{@code latency:<milliseconds>}: every call is delayed, to rehearse a slow API</li>
+ *     <li>{@code fault:<percent>}: that share of the calls fails with an I/O error, to rehearse an unreachable API</li>
+ * </ul>
+ * Without any interceptor registered, a call only pays a volatile read on top of the transport. The status polls
+ * go through {@link PollingClient}, which scans the raw body and skips the interceptors.
+ */
+public final class RestInterceptors {
+    static final RestInterceptor[] NONE = new RestInterceptor[0];
+
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final Metrics metrics = new Metrics();
+    private static volatile Map<String, RestInterceptor[]> byOrigin = Collections.emptyMap();
+
+    private RestInterceptors() {
+    }
+
+    /**
+     * @return the interceptors of the calls to the URL, in order
+     */
+    static RestInterceptor[] forUrl(String url) {
+        Map<String, RestInterceptor[]> interceptors = byOrigin;
+        if (interceptors.isEmpty()) {
+            return NONE;
+        }
+        RestInterceptor[] chain = interceptors.get(EndpointRouter.origin(url));
+        return chain == null ? NONE : chain;
+    }
+
+    /**
+     * Replaces the interceptors of the calls to a base URL of the API.
+     *
+     * @param interceptors the interceptors, in order, none to remove them
+     */
+    public static synchronized void register(String baseUrl, List<RestInterceptor> interceptors) {
+        String origin = EndpointRouter.origin(baseUrl);
+        if (interceptors.isEmpty() && !byOrigin.containsKey(origin)) {
+            return;
+        }
+        Map<String, RestInterceptor[]> updated = new HashMap<>(byOrigin);
+        if (interceptors.isEmpty()) {
+            updated.remove(origin);
+        } else {
+            updated.put(origin, interceptors.toArray(NONE));
+        }
+        byOrigin = updated.isEmpty() ? Collections.emptyMap() : updated;
+    }
+
+    public static synchronized void clear() {
+        byOrigin = Collections.emptyMap();
+    }
+
+    /**
+     * @param specs the entries of the realm configuration, e.g. {@code rate:50}
+     * @return the interceptors, the unknown entries being skipped
+     */
+    public static List<RestInterceptor> parse(List<String> specs) {
+        List<RestInterceptor> interceptors = new ArrayList<>(specs.size());
+        for (String spec : specs) {
+            String trimmed = spec.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.indexOf(':');
+            String name = colon < 0 ? trimmed : trimmed.substring(0, colon).trim();
+            String argument = colon < 0 ? null : trimmed.substring(colon + 1).trim();
+            try {
+                RestInterceptor interceptor = create(name, argument);
+                if (interceptor == null) {
+                    logger.warn("RestInterceptors unknown interceptor {}", trimmed);
+                } else {
+                    interceptors.add(interceptor);
+                }
+            } catch (NumberFormatException | NullPointerException e) {
+                logger.warn("RestInterceptors invalid argument of {}", trimmed);
+            }
+        }
+        return interceptors;
+    }
+
+    private static RestInterceptor create(String name, String argument) {
+        switch (name) {
+            case "metrics":
+                return metrics;
+            case "rate":
+                return new RateLimit(Double.parseDouble(argument));
+            case "latency":
+                long millis = Long.parseLong(argument);
+                return (exchange, chain) -> {
+                    try {
+                        Thread.sleep(millis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while delaying " + exchange);
+                    }
+                    return chain.proceed(exchange);
+                };
+            case "fault":
+                double percent = Double.parseDouble(argument);
+                return (exchange, chain) -> {
+                    if (ThreadLocalRandom.current().nextDouble(100) < percent) {
+                        throw new IOException("Injected fault on " + exchange);
+                    }
+                    return chain.proceed(exchange);
+                };
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the latency and the failures of the calls seen by the {@code metrics} interceptors
+     */
+    public static String stats() {
+        return metrics.toString();
+    }
+
+    private static final class Metrics implements RestInterceptor {
+        private final ConcurrentHashMap<String, Histogram> latencies = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+        @Override
+        public HttpEntity intercept(RestExchange exchange, Chain chain) throws IOException {
+            PathTemplate template = EndpointDescriptor.templateOf(exchange.getUrl());
+            String api = exchange.getMethod() + " " + (template == null ? EndpointRouter.origin(exchange.getUrl()) : template.getTemplate());
+            long start = System.nanoTime();
+            try {
+                HttpEntity httpEntity = chain.proceed(exchange);
+                if (!httpEntity.isSuccess()) {
+                    failures.computeIfAbsent(api, key -> new LongAdder()).increment();
+                }
+                return httpEntity;
+            } catch (IOException e) {
+                failures.computeIfAbsent(api, key -> new LongAdder()).increment();
+                throw e;
+            } finally {
+                latencies.computeIfAbsent(api, key -> new Histogram(key + " ms"))
+                        .record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("rest.metrics{");
+            latencies.forEach((api, histogram) -> {
+                LongAdder failed = failures.get(api);
+                builder.append(histogram).append(" failures=").append(failed == null ? 0 : failed.sum()).append("; ");
+            });
+            return builder.append('}').toString();
+        }
+    }
+
+    private static final class RateLimit implements RestInterceptor {
+        private final double permitsPerNano;
+        private final double burst;
+        private double permits;
+        private long refilledAt = System.nanoTime();
+
+        private RateLimit(double callsPerSecond) {
+            this.permitsPerNano = callsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst = Math.max(1, callsPerSecond);
+            this.permits = burst;
+        }
+
+        @Override
+        public HttpEntity intercept(RestExchange exchange, Chain chain) throws IOException {
+            if (!tryAcquire()) {
+                logger.debug("RestInterceptors rate limit exceeded for {}", exchange);
+                return new HttpEntity(new JSONObject(ImmutableMap.of("message", "Too many requests to the OneSpan API")), 429, "");
+            }
+            return chain.proceed(exchange);
+        }
+
+        private synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            permits = Math.min(burst, permits + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+            if (permits < 1) {
+                return false;
+            }
+            permits--;
+            return true;
+        }
+    }
+}
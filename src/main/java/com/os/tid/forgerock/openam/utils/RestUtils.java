@@ -3,57 +3,118 @@ package com.os.tid.forgerock.openam.utils;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CountingInputStream;
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointRouter;
 import com.os.tid.forgerock.openam.models.HttpEntity;
 import org.apache.commons.lang.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.HttpsURLConnection;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 public class RestUtils {
-    private static final Logger logger = LoggerFactory.getLogger("amAuth");
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
 
     private RestUtils() {
     }
 
     public static HttpEntity doPostJSON(String url, String payload) throws IOException {
-        logger.debug("RestUtils doPostJSON url: " + url);
-        logger.debug("RestUtils doPostJSON payload: " + payload);
+        return doPostJSON(url, payload, null);
+    }
+
+    /**
+     * @param connector opens the connection of a hedged attempt, null for a plain request
+     */
+    public static HttpEntity doPostJSON(String url, String payload, RequestHedger.Connector connector) throws IOException {
+        RestInterceptor[] interceptors = RestInterceptors.forUrl(url);
+        if (interceptors.length == 0) {
+            return postJSON(url, payload, connector);
+        }
+        return new InterceptorChain(interceptors, 0).proceed(new RestExchange("POST", url, payload, true, connector));
+    }
+
+    public static HttpEntity doPostJSONWithoutResponse(String url, String payload) throws IOException {
+        RestInterceptor[] interceptors = RestInterceptors.forUrl(url);
+        if (interceptors.length == 0) {
+            return postJSONWithoutResponse(url, payload);
+        }
+        return new InterceptorChain(interceptors, 0).proceed(new RestExchange("POST", url, payload, false, null));
+    }
+
+    public static HttpEntity doGet(String url) throws IOException {
+        RestInterceptor[] interceptors = RestInterceptors.forUrl(url);
+        if (interceptors.length == 0) {
+            return get(url);
+        }
+        return new InterceptorChain(interceptors, 0).proceed(new RestExchange("GET", url, null, true, null));
+    }
+
+    private static HttpEntity postJSON(String url, String payload, RequestHedger.Connector connector) throws IOException {
+        logger.debug("RestUtils doPostJSON url: {}", url);
+        logger.debugPayload("RestUtils doPostJSON payload: {}", payload);
+        if (Http2Transport.handles(url)) {
+            HttpEntity entity = toHttpEntity(Http2Transport.send("POST", url, payload.getBytes(), connector), true);
+            logger.debug("RestUtils doPostJSON response status: {}", entity.getHttpStatus());
+            return entity;
+        }
 
-        URL client = new URL(url);
-        HttpURLConnection conn = (HttpURLConnection) client.openConnection();
+        HttpURLConnection conn = connector == null ? openConnection(url) : connector.open(url);
         conn.setRequestProperty("Content-Type", "application/json");
         conn.setRequestProperty("Accept", "application/json");
         conn.setRequestMethod("POST");
         conn.setDoOutput(true);
         conn.setDoInput(true);
+        Span span = Tracing.startSpan(conn, "POST", url);
+        ApiCallEvent event = ApiCallEvent.begin("POST", url);
 
-        OutputStream os = conn.getOutputStream();
-        os.write(payload.getBytes());
-        os.flush();
-        os.close();
-        int sourceResponseCode = conn.getResponseCode();
-        String headerField = conn.getHeaderField(Constants.OSTID_LOG_CORRELATION_ID);
-        String log_correlation_id = StringUtils.isEmpty(headerField) ? "" : headerField;
+        int sourceResponseCode;
+        String log_correlation_id;
+        StringBuffer response = new StringBuffer();
+        try {
+            conn.connect();
+            event.connected();
+            byte[] body = payload.getBytes();
+            OutputStream os = conn.getOutputStream();
+            os.write(body);
+            os.flush();
+            os.close();
+            event.sent(body.length);
+            sourceResponseCode = conn.getResponseCode();
+            event.responded(sourceResponseCode);
+            String headerField = conn.getHeaderField(Constants.OSTID_LOG_CORRELATION_ID);
+            log_correlation_id = StringUtils.isEmpty(headerField) ? "" : headerField;
 
-        logger.debug("RestUtils doPostJSON response status: " + sourceResponseCode);
+            logger.debug("RestUtils doPostJSON response status: {}", sourceResponseCode);
 
-        Reader ir = (sourceResponseCode >= 200 && sourceResponseCode <= 299) ? new InputStreamReader(conn.getInputStream())
-                : new InputStreamReader(conn.getErrorStream());
-        BufferedReader in = new BufferedReader(ir);
-        String inputLine;
-        StringBuffer response = new StringBuffer();
+            CountingInputStream responseStream = new CountingInputStream((sourceResponseCode >= 200 && sourceResponseCode <= 299) ? conn.getInputStream()
+                    : conn.getErrorStream());
+            BufferedReader in = new BufferedReader(new InputStreamReader(responseStream));
+            String inputLine;
 
-        while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine);
-        }
+            while ((inputLine = in.readLine()) != null) {
+                response.append(inputLine);
+            }
 
-        in.close();
-        conn.disconnect();
-        logger.debug("RestUtils doPostJSON response: " + response.toString());
+            //closing the fully read stream without disconnect() hands the socket back to the keep-alive pool
+            in.close();
+            event.received(responseStream.getCount());
+        } catch (IOException e) {
+            Tracing.fail(span, e);
+            EndpointRouter.record(url, 0);
+            event.failed(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+        EndpointRouter.record(url, sourceResponseCode);
+        Tracing.end(span, sourceResponseCode, log_correlation_id);
+        logger.debugPayload("RestUtils doPostJSON response: {}", response);
         try {
             return new HttpEntity(JSON.parseObject(response.toString()), sourceResponseCode, log_correlation_id);
         } catch (Exception e) {
@@ -61,58 +122,104 @@ public class RestUtils {
         }
     }
 
-    public static HttpEntity doPostJSONWithoutResponse(String url, String payload) throws IOException {
-        logger.debug("RestUtils doPostJSON url: " + url);
-        logger.debug("RestUtils doPostJSON payload: " + payload);
+    private static HttpEntity postJSONWithoutResponse(String url, String payload) throws IOException {
+        logger.debug("RestUtils doPostJSON url: {}", url);
+        logger.debugPayload("RestUtils doPostJSON payload: {}", payload);
+        if (Http2Transport.handles(url)) {
+            HttpEntity entity = toHttpEntity(Http2Transport.send("POST", url, payload.getBytes()), false);
+            logger.debug("RestUtils doPostJSON response status: {}", entity.getHttpStatus());
+            return entity;
+        }
 
-        URL client = new URL(url);
-        HttpURLConnection conn = (HttpURLConnection) client.openConnection();
+        HttpURLConnection conn = openConnection(url);
         conn.setRequestProperty("Content-Type", "application/json");
         conn.setRequestMethod("POST");
         conn.setDoOutput(true);
         conn.setDoInput(true);
+        Span span = Tracing.startSpan(conn, "POST", url);
+        ApiCallEvent event = ApiCallEvent.begin("POST", url);
 
-        OutputStream os = conn.getOutputStream();
-        os.write(payload.getBytes());
-        os.flush();
-        os.close();
-        int sourceResponseCode = conn.getResponseCode();
-        String headerField = conn.getHeaderField(Constants.OSTID_LOG_CORRELATION_ID);
-        String log_correlation_id = StringUtils.isEmpty(headerField) ? "" : headerField;
+        int sourceResponseCode;
+        String log_correlation_id;
+        try {
+            conn.connect();
+            event.connected();
+            byte[] body = payload.getBytes();
+            OutputStream os = conn.getOutputStream();
+            os.write(body);
+            os.flush();
+            os.close();
+            event.sent(body.length);
+            sourceResponseCode = conn.getResponseCode();
+            event.responded(sourceResponseCode);
+            String headerField = conn.getHeaderField(Constants.OSTID_LOG_CORRELATION_ID);
+            log_correlation_id = StringUtils.isEmpty(headerField) ? "" : headerField;
+        } catch (IOException e) {
+            Tracing.fail(span, e);
+            EndpointRouter.record(url, 0);
+            event.failed(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+        EndpointRouter.record(url, sourceResponseCode);
+        Tracing.end(span, sourceResponseCode, log_correlation_id);
 
-        logger.debug("RestUtils doPostJSON response status: " + sourceResponseCode);
+        logger.debug("RestUtils doPostJSON response status: {}", sourceResponseCode);
         conn.disconnect();
         return new HttpEntity(new JSONObject(), sourceResponseCode, log_correlation_id);
     }
 
-    public static HttpEntity doGet(String url) throws IOException {
-        logger.debug("RestUtils doGet url: " + url);
+    private static HttpEntity get(String url) throws IOException {
+        logger.debug("RestUtils doGet url: {}", url);
+        if (Http2Transport.handles(url)) {
+            HttpEntity entity = toHttpEntity(Http2Transport.send("GET", url, null), true);
+            logger.debug("RestUtils doGet response status: {}", entity.getHttpStatus());
+            return entity;
+        }
 
-        URL client = new URL(url);
-        HttpURLConnection conn = (HttpURLConnection) client.openConnection();
+        HttpURLConnection conn = openConnection(url);
         conn.setRequestProperty("Content-Type", "application/json");
         conn.setRequestProperty("Accept", "application/json");
         conn.setRequestMethod("GET");
+        Span span = Tracing.startSpan(conn, "GET", url);
+        ApiCallEvent event = ApiCallEvent.begin("GET", url);
 
-        int sourceResponseCode = conn.getResponseCode();
-        String headerField = conn.getHeaderField(Constants.OSTID_LOG_CORRELATION_ID);
-        String log_correlation_id = StringUtils.isEmpty(headerField) ? "" : headerField;
+        int sourceResponseCode;
+        String log_correlation_id;
+        StringBuffer response = new StringBuffer();
+        try {
+            conn.connect();
+            event.connected();
+            sourceResponseCode = conn.getResponseCode();
+            event.responded(sourceResponseCode);
+            String headerField = conn.getHeaderField(Constants.OSTID_LOG_CORRELATION_ID);
+            log_correlation_id = StringUtils.isEmpty(headerField) ? "" : headerField;
 
-        logger.debug("RestUtils doGet response status: " + sourceResponseCode);
+            logger.debug("RestUtils doGet response status: {}", sourceResponseCode);
 
-        Reader ir = (sourceResponseCode >= 200 && sourceResponseCode <= 299) ? new InputStreamReader(conn.getInputStream())
-                : new InputStreamReader(conn.getErrorStream());
-        BufferedReader in = new BufferedReader(ir);
-        String inputLine;
-        StringBuffer response = new StringBuffer();
+            CountingInputStream responseStream = new CountingInputStream((sourceResponseCode >= 200 && sourceResponseCode <= 299) ? conn.getInputStream()
+                    : conn.getErrorStream());
+            BufferedReader in = new BufferedReader(new InputStreamReader(responseStream));
+            String inputLine;
 
-        while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine);
-        }
+            while ((inputLine = in.readLine()) != null) {
+                response.append(inputLine);
+            }
 
-        in.close();
-        conn.disconnect();
-        logger.debug("RestUtils doGet response: " + response.toString());
+            in.close();
+            event.received(responseStream.getCount());
+        } catch (IOException e) {
+            Tracing.fail(span, e);
+            EndpointRouter.record(url, 0);
+            event.failed(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+        EndpointRouter.record(url, sourceResponseCode);
+        Tracing.end(span, sourceResponseCode, log_correlation_id);
+        logger.debugPayload("RestUtils doGet response: {}", response);
 
         try {
             return new HttpEntity(JSON.parseObject(response.toString()), sourceResponseCode, log_correlation_id);
@@ -121,4 +228,91 @@ public class RestUtils {
         }
     }
 
+    /**
+     * Runs the interceptors of a call in order, then sends the call unless one of them has answered it.
+     */
+    private static final class InterceptorChain implements RestInterceptor.Chain {
+        private final RestInterceptor[] interceptors;
+        private final int index;
+
+        private InterceptorChain(RestInterceptor[] interceptors, int index) {
+            this.interceptors = interceptors;
+            this.index = index;
+        }
+
+        @Override
+        public HttpEntity proceed(RestExchange exchange) throws IOException {
+            if (index < interceptors.length) {
+                return interceptors[index].intercept(exchange, new InterceptorChain(interceptors, index + 1));
+            }
+            if ("GET".equals(exchange.getMethod())) {
+                return get(exchange.getUrl());
+            }
+            return exchange.isReadResponse()
+                    ? postJSON(exchange.getUrl(), exchange.getPayload(), exchange.connector)
+                    : postJSONWithoutResponse(exchange.getUrl(), exchange.getPayload());
+        }
+    }
+
+    /**
+     * Opens a connection to the OneSpan API, with the {@link ApiTimeouts} of its origin and through the
+     * {@link FailoverSocketFactory} if it is enabled.
+     */
+    public static HttpURLConnection openConnection(String url) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        ApiTimeouts timeouts = ApiTimeouts.forUrl(url);
+        conn.setConnectTimeout((int) timeouts.getConnectTimeout().toMillis());
+        conn.setReadTimeout((int) timeouts.getRequestTimeout().toMillis());
+        if (conn instanceof HttpsURLConnection && FailoverSocketFactory.isEnabled()) {
+            ((HttpsURLConnection) conn).setSSLSocketFactory(FailoverSocketFactory.getInstance());
+        }
+        return conn;
+    }
+
+    private static HttpEntity toHttpEntity(HttpResponse<byte[]> httpResponse, boolean readResponse) {
+        String log_correlation_id = httpResponse.headers().firstValue(Constants.OSTID_LOG_CORRELATION_ID).orElse("");
+        if (!readResponse) {
+            return new HttpEntity(new JSONObject(), httpResponse.statusCode(), log_correlation_id);
+        }
+        String response = new String(httpResponse.body(), StandardCharsets.UTF_8);
+        logger.debugPayload("RestUtils response: {}", response);
+        try {
+            return new HttpEntity(JSON.parseObject(response), httpResponse.statusCode(), log_correlation_id);
+        } catch (Exception e) {
+            return new HttpEntity(new JSONObject(ImmutableMap.of("response", response)), httpResponse.statusCode(), log_correlation_id);
+        }
+    }
+
+    /**
+     * Opens up to {@code count} connections to the given endpoint and hands them over to the keep-alive pool,
+     * so the first requests after startup skip the TCP and TLS handshakes. Any response status is fine.
+     *
+     * @return the number of connections which have been opened
+     */
+    public static int preconnect(String url, int count) {
+        List<HttpURLConnection> connections = new ArrayList<>(count);
+        try {
+            //connections are only released once all of them are open, otherwise the same socket would be reused
+            for (int i = 0; i < count; i++) {
+                HttpURLConnection conn = openConnection(url);
+                conn.setRequestMethod("GET");
+                conn.getResponseCode();
+                connections.add(conn);
+            }
+        } catch (IOException e) {
+            logger.warn("RestUtils preconnect to {} failed: {}", url, e.getMessage());
+        }
+        byte[] buffer = new byte[1024];
+        for (HttpURLConnection conn : connections) {
+            try (InputStream in = conn.getErrorStream() != null ? conn.getErrorStream() : conn.getInputStream()) {
+                while (in.read(buffer) >= 0) {
+                    //drained streams are kept alive
+                }
+            } catch (IOException e) {
+                conn.disconnect();
+            }
+        }
+        return connections.size();
+    }
+
 }
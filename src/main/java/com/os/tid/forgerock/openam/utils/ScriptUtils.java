@@ -2,20 +2,24 @@ package com.os.tid.forgerock.openam.utils;
 
 import org.apache.commons.io.IOUtils;
 import org.forgerock.openam.auth.node.api.NodeProcessException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ScriptUtils {
-    private final static Logger logger = LoggerFactory.getLogger("amAuth");
+    private final static PluginLogger logger = PluginLogger.getLogger("amAuth");
+    //script assets are bundled with the plugin, so they are read once
+    private final static ConcurrentHashMap<String, String> scripts = new ConcurrentHashMap<>();
 
     private  ScriptUtils(){}
 
     public static String getScriptFromFile(String scriptPath) throws NodeProcessException{
-        String script;
+        String script = scripts.get(scriptPath);
+        if (script != null) {
+            return script;
+        }
         try (InputStreamReader inputStreamReader = new InputStreamReader(
                 ScriptUtils.class.getResourceAsStream(scriptPath), StandardCharsets.UTF_8)) {
             script = IOUtils.toString(inputStreamReader);
@@ -24,6 +28,7 @@ public class ScriptUtils {
             logger.error(errorMsg);
             throw new NodeProcessException(errorMsg);
         }
+        scripts.put(scriptPath, script);
         return script;
     }
 
@@ -0,0 +1,64 @@
+package com.os.tid.forgerock.openam.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Generates OneSpan session IDs. A session ID is the hex encoded text of a random (version 4) UUID,
+ * i.e. what {@code StringUtils.stringToHex(UUID.randomUUID().toString())} returns, but it is written
+ * directly from the random bytes and every thread draws from its own SecureRandom instance.
+ */
+public final class SessionIdGenerator {
+    /** Length of a session ID: 36 UUID characters, two hex digits each. */
+    public static final int SESSION_ID_LENGTH = 72;
+
+    //hex encoding of the ASCII characters '0'-'9' and 'a'-'f'
+    private static final byte[][] DIGITS = new byte[16][];
+    private static final byte[] DASH = {'2', 'd'};
+
+    private static final ThreadLocal<SecureRandom> randoms = ThreadLocal.withInitial(SessionIdGenerator::newSecureRandom);
+
+    static {
+        String digits = "0123456789abcdef";
+        for (int i = 0; i < 16; i++) {
+            DIGITS[i] = HexCodec.encode(new byte[]{(byte) digits.charAt(i)}).getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private SessionIdGenerator() {
+    }
+
+    public static String generate() {
+        byte[] random = new byte[16];
+        randoms.get().nextBytes(random);
+        random[6] = (byte) ((random[6] & 0x0f) | 0x40);   //version 4
+        random[8] = (byte) ((random[8] & 0x3f) | 0x80);   //IETF variant
+
+        byte[] out = new byte[SESSION_ID_LENGTH];
+        int offset = 0;
+        for (int i = 0; i < 16; i++) {
+            if (i == 4 || i == 6 || i == 8 || i == 10) {
+                offset = append(out, offset, DASH);
+            }
+            offset = append(out, offset, DIGITS[(random[i] >> 4) & 0x0f]);
+            offset = append(out, offset, DIGITS[random[i] & 0x0f]);
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int append(byte[] out, int offset, byte[] digits) {
+        out[offset] = digits[0];
+        out[offset + 1] = digits[1];
+        return offset + 2;
+    }
+
+    private static SecureRandom newSecureRandom() {
+        //the default NativePRNG instances share one lock, DRBG instances do not
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
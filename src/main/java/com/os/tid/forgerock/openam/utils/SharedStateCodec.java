@@ -0,0 +1,126 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+import org.forgerock.json.JsonValue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Transparent compression of large shared state values, i.e. the IAA request message kept for the Store Command
+ * node. Values at or above the realm threshold are deflated and stored with the {@link #PREFIX} marker;
+ * {@link #get} returns the original text whichever way the value was stored. Error messages are not compressed:
+ * they are bounded by {@link com.os.tid.forgerock.openam.models.ErrorRecord} and read as plain strings by scripts.
+ * With the measurement mode enabled, every write logs the byte contribution of each shared state attribute.
+ */
+public final class SharedStateCodec {
+    public static final String PREFIX = "ostid:z:";
+
+    private static final PluginLogger logger = PluginLogger.getLogger("amAuth");
+    private static final ConcurrentHashMap<String, Histogram> storedSizes = new ConcurrentHashMap<>();
+
+    private SharedStateCodec() {
+    }
+
+    /**
+     * Puts a value into the shared state, compressed if the realm configuration asks for it.
+     */
+    public static void put(JsonValue sharedState, String key, String value, OSConfigurationsService serviceConfig) {
+        String stored = encode(value, serviceConfig.sharedStateCompressionThreshold());
+        sharedState.put(key, stored);
+        if (serviceConfig.sharedStateMeasurement()) {
+            measure(key, value, stored, sharedState);
+        }
+    }
+
+    /**
+     * @return the value of the shared state attribute, decompressed if needed
+     */
+    public static JsonValue get(JsonValue sharedState, String key) {
+        JsonValue value = sharedState.get(key);
+        if (value.isString() && value.asString().startsWith(PREFIX)) {
+            return new JsonValue(decode(value.asString()));
+        }
+        return value;
+    }
+
+    /**
+     * @param threshold the minimum length of a compressed value, 0 disables the compression
+     * @return the value to store, which is the original value unless compressing it saves space
+     */
+    public static String encode(String value, int threshold) {
+        if (value == null || threshold <= 0 || value.length() < threshold) {
+            return value;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(value.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(value.length() / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            String encoded = PREFIX + Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+            return encoded.length() < value.length() ? encoded : value;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String decode(String value) {
+        if (value == null || !value.startsWith(PREFIX)) {
+            return value;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(Base64.getDecoder().decode(value.substring(PREFIX.length())));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(value.length() * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0) {
+                    throw new DataFormatException("Truncated shared state value");
+                }
+                out.write(buffer, 0, length);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            logger.error("SharedStateCodec exception: {}", e.getMessage());
+            return value;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return the sizes of the stored values per attribute, since startup
+     */
+    public static Map<String, Histogram> getStoredSizes() {
+        return storedSizes;
+    }
+
+    private static void measure(String key, String value, String stored, JsonValue sharedState) {
+        storedSizes.computeIfAbsent(key, Histogram::new).record(stored == null ? 0 : stored.length());
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        Map<String, Integer> contributions = new LinkedHashMap<>();
+        int total = 0;
+        for (String attribute : sharedState.keys()) {
+            int size = JSON.toJSONString(sharedState.get(attribute).getObject()).length();
+            contributions.put(attribute, size);
+            total += size;
+        }
+        logger.info("SharedStateCodec {}: {} chars raw, {} chars stored; shared state {} chars {}",
+                key, value == null ? 0 : value.length(), stored == null ? 0 : stored.length(), total, contributions);
+    }
+}
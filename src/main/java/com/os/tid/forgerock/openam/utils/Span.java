@@ -0,0 +1,106 @@
+package com.os.tid.forgerock.openam.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timed client call to the OneSpan API, child of the span of the node which made it, or the span of a node
+ * execution, child of the journey. Spans are created by {@link Tracing} and handed to the exporter by {@link #end()}.
+ */
+public final class Span {
+    /**
+     * OTLP span kinds
+     */
+    public static final int KIND_INTERNAL = 1;
+    public static final int KIND_CLIENT = 3;
+
+    private final String name;
+    private final int kind;
+    private final TraceContext context;
+    private final String parentSpanId;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private long endEpochNanos;
+    private boolean error;
+
+    Span(String name, int kind, TraceContext context, String parentSpanId) {
+        this.name = name;
+        this.kind = kind;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.startEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    public Span setAttribute(String key, Object value) {
+        if (value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Records the HTTP status of the response; 5xx responses mark the span as failed.
+     */
+    public Span setStatus(int httpStatus) {
+        attributes.put(Tracing.ATTRIBUTE_HTTP_STATUS, httpStatus);
+        error = httpStatus >= 500;
+        return this;
+    }
+
+    /**
+     * Marks the span as failed, e.g. when the call threw an {@link java.io.IOException}.
+     */
+    public Span setError(Throwable throwable) {
+        attributes.put(Tracing.ATTRIBUTE_ERROR_TYPE, throwable.getClass().getName());
+        error = true;
+        return this;
+    }
+
+    public void end() {
+        if (endEpochNanos == 0) {
+            endEpochNanos = startEpochNanos + (System.nanoTime() - startNanos);
+            Tracing.export(this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public TraceContext getContext() {
+        return context;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "span{name=" + name + ", traceId=" + context.getTraceId() + ", spanId=" + context.getSpanId()
+                + ", parentSpanId=" + parentSpanId + ", attributes=" + attributes + "}";
+    }
+}
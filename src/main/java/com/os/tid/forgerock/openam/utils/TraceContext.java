@@ -0,0 +1,120 @@
+package com.os.tid.forgerock.openam.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A W3C trace context, i.e. the content of a {@code traceparent} header: {@code 00-<trace-id>-<parent-id>-<flags>}
+ * with a 16 byte trace ID and an 8 byte span ID in lower case hex.
+ */
+public final class TraceContext {
+    private static final String VERSION = "00";
+    private static final int HEADER_LENGTH = 55;
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+
+    private TraceContext(String traceId, String spanId, boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * @return a sampled context starting a new trace
+     */
+    public static TraceContext newRoot() {
+        return new TraceContext(randomId(16), randomId(8), true);
+    }
+
+    /**
+     * @param header a {@code traceparent} header value
+     * @return the parsed context, null if the header is missing or malformed
+     */
+    public static TraceContext parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        //future versions may append fields, version 00 may not
+        if (value.length() < HEADER_LENGTH || (value.length() > HEADER_LENGTH && value.startsWith(VERSION))
+                || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-' || value.startsWith("ff")) {
+            return null;
+        }
+        String traceId = value.substring(3, 35);
+        String spanId = value.substring(36, 52);
+        if (!isHex(value, 0, 2) || !isHex(traceId, 0, 32) || !isHex(spanId, 0, 16) || !isHex(value, 53, 55)
+                || isZero(traceId) || isZero(spanId)) {
+            return null;
+        }
+        boolean sampled = (Character.digit(value.charAt(54), 16) & 1) == 1;
+        return new TraceContext(traceId, spanId, sampled);
+    }
+
+    /**
+     * @return a context of the same trace, with a new span ID
+     */
+    public TraceContext newChild() {
+        return new TraceContext(traceId, randomId(8), sampled);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * @return the {@code traceparent} header value
+     */
+    public String toHeader() {
+        return VERSION + '-' + traceId + '-' + spanId + (sampled ? "-01" : "-00");
+    }
+
+    @Override
+    public String toString() {
+        return toHeader();
+    }
+
+    private static String randomId(int bytes) {
+        byte[] id = new byte[bytes];
+        do {
+            ThreadLocalRandom.current().nextBytes(id);
+        } while (isZero(id));
+        return HexCodec.encode(id);
+    }
+
+    private static boolean isHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String id) {
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(byte[] id) {
+        for (byte b : id) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
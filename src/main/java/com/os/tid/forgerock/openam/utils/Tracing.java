@@ -0,0 +1,222 @@
+package com.os.tid.forgerock.openam.utils;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.PathTemplate;
+import org.forgerock.json.JsonValue;
+import org.forgerock.openam.auth.node.api.TreeContext;
+
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Distributed tracing of the calls made to the OneSpan API. Every call becomes a client span which sends its
+ * {@code traceparent} header to OneSpan and records the {@code log-correlation-id} returned by OneSpan, so a slow
+ * login can be followed from AM down to the OneSpan logs.
+ * <p>
+ * All the calls of an AM journey belong to one trace: the trace context is started by the first node, or taken
+ * from the {@code traceparent} header of the first request of the journey when AM runs with
+ * {@code -Donespan.tracing.trustIncoming=true}, and kept in shared state. A trace
+ * started by a node gets a journey span, so the spans of the journey have an exported parent. Nodes
+ * {@link #attach(TreeContext, String)} the journey to the calling thread before calling the API; every node
+ * execution is then a span, parent of the API calls it makes, ended when {@link NodeProcessEvent} detaches the
+ * journey once the node returns.
+ * <p>
+ * Tracing is off unless AM runs with {@code -Donespan.tracing.enabled=true}. Spans are then exported in OTLP/JSON
+ * to the collector set by {@code onespan.tracing.endpoint}.
+ */
+public final class Tracing {
+    public static final String ATTRIBUTE_HTTP_METHOD = "http.request.method";
+    public static final String ATTRIBUTE_HTTP_STATUS = "http.response.status_code";
+    public static final String ATTRIBUTE_URL_TEMPLATE = "url.template";
+    public static final String ATTRIBUTE_SERVER_ADDRESS = "server.address";
+    public static final String ATTRIBUTE_CORRELATION_ID = "onespan.log_correlation_id";
+    public static final String ATTRIBUTE_NODE = "am.node";
+    public static final String ATTRIBUTE_ERROR_TYPE = "error.type";
+    public static final String JOURNEY_SPAN_NAME = "am.journey";
+
+    private static final ThreadLocal<Journey> journeys = new ThreadLocal<>();
+    private static volatile boolean enabled = Boolean.getBoolean(Constants.OSTID_PROPERTY_TRACING_ENABLED);
+    private static volatile boolean trustIncoming = Boolean.getBoolean(Constants.OSTID_PROPERTY_TRACING_TRUST_INCOMING);
+    private static volatile Consumer<Span> exporter;
+
+    private Tracing() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Tracing.enabled = enabled;
+    }
+
+    /**
+     * @param trustIncoming true to continue the trace of the {@code traceparent} header sent by the client
+     */
+    public static void setTrustIncoming(boolean trustIncoming) {
+        Tracing.trustIncoming = trustIncoming;
+    }
+
+    /**
+     * Replaces the OTLP exporter, e.g. to collect spans in memory.
+     */
+    public static void setExporter(Consumer<Span> exporter) {
+        Tracing.exporter = exporter;
+    }
+
+    /**
+     * Starts the span of the node and makes it the parent of the spans started by the calling thread, until
+     * {@link #detach()}. The trace context of the journey is stored in shared state on first use.
+     *
+     * @param nodeName the node about to call the API
+     * @return true if the trace context has just been stored, the node must then replace the shared state on every
+     * outcome, or the next node starts another trace
+     */
+    public static boolean attach(TreeContext context, String nodeName) {
+        if (!enabled) {
+            return false;
+        }
+        boolean stored = false;
+        JsonValue sharedState = context.sharedState;
+        JsonValue traceparent = sharedState.get(Constants.OSTID_TRACEPARENT);
+        TraceContext traceContext = traceparent.isString() ? TraceContext.parse(traceparent.asString()) : null;
+        if (traceContext == null) {
+            traceContext = trustIncoming ? TraceContext.parse(header(context)) : null;
+            if (traceContext == null) {
+                traceContext = TraceContext.newRoot();
+                //nothing upstream exports the root span ID, the journey span stands for it
+                new Span(JOURNEY_SPAN_NAME, Span.KIND_INTERNAL, traceContext, null).end();
+            }
+            sharedState.put(Constants.OSTID_TRACEPARENT, traceContext.toHeader());
+            stored = true;
+        }
+        Span nodeSpan = new Span(nodeName, Span.KIND_INTERNAL, traceContext.newChild(), traceContext.getSpanId())
+                .setAttribute(ATTRIBUTE_NODE, nodeName);
+        Journey previous = journeys.get();
+        journeys.set(new Journey(nodeSpan, nodeName));
+        if (previous != null) {
+            previous.span.end();
+        }
+        return stored;
+    }
+
+    /**
+     * Ends the span of the node attached to the calling thread, if any, and forgets its journey.
+     */
+    public static void detach() {
+        Journey journey = journeys.get();
+        if (journey != null) {
+            journeys.remove();
+            journey.span.end();
+        }
+    }
+
+    /**
+     * @return the trace context of the node attached to the calling thread, null if there is none
+     */
+    public static TraceContext current() {
+        Journey journey = journeys.get();
+        return journey == null ? null : journey.span.getContext();
+    }
+
+    /**
+     * Starts the span of an API call, child of the attached node or the root of a new trace.
+     *
+     * @return the span, null when tracing is off
+     */
+    public static Span startSpan(String method, String url) {
+        if (!enabled) {
+            return null;
+        }
+        PathTemplate template = EndpointDescriptor.templateOf(url);
+        String name = template == null ? method : method + " " + template.getTemplate();
+        Journey journey = journeys.get();
+        Span span = journey == null
+                ? new Span(name, Span.KIND_CLIENT, TraceContext.newRoot(), null)
+                : new Span(name, Span.KIND_CLIENT, journey.span.getContext().newChild(), journey.span.getContext().getSpanId());
+        span.setAttribute(ATTRIBUTE_HTTP_METHOD, method)
+                .setAttribute(ATTRIBUTE_URL_TEMPLATE, template == null ? null : template.getTemplate())
+                .setAttribute(ATTRIBUTE_SERVER_ADDRESS, host(url))
+                .setAttribute(ATTRIBUTE_NODE, journey == null ? null : journey.nodeName);
+        return span;
+    }
+
+    /**
+     * Starts the span of a call and adds its {@code traceparent} header to the connection.
+     *
+     * @return the span, null when tracing is off
+     */
+    public static Span startSpan(HttpURLConnection conn, String method, String url) {
+        Span span = startSpan(method, url);
+        if (span != null) {
+            conn.setRequestProperty(Constants.OSTID_TRACEPARENT_HEADER, span.getContext().toHeader());
+        }
+        return span;
+    }
+
+    /**
+     * Ends the span of a call which got a response; does nothing if the span is null.
+     */
+    public static void end(Span span, int httpStatus, String logCorrelationId) {
+        if (span != null) {
+            span.setStatus(httpStatus)
+                    .setAttribute(ATTRIBUTE_CORRELATION_ID, logCorrelationId == null || logCorrelationId.isEmpty() ? null : logCorrelationId)
+                    .end();
+        }
+    }
+
+    /**
+     * Ends the span of a call which failed without a response; does nothing if the span is null.
+     */
+    public static void fail(Span span, Throwable throwable) {
+        if (span != null) {
+            span.setError(throwable).end();
+        }
+    }
+
+    static void export(Span span) {
+        if (!span.getContext().isSampled()) {
+            return;
+        }
+        Consumer<Span> current = exporter;
+        if (current == null) {
+            synchronized (Tracing.class) {
+                if (exporter == null) {
+                    exporter = new OtlpSpanExporter(System.getProperty(Constants.OSTID_PROPERTY_TRACING_ENDPOINT, Constants.OSTID_DEFAULT_TRACING_ENDPOINT));
+                }
+                current = exporter;
+            }
+        }
+        current.accept(span);
+    }
+
+    private static String header(TreeContext context) {
+        if (context.request == null || context.request.headers == null) {
+            return null;
+        }
+        List<String> values = context.request.headers.get(Constants.OSTID_TRACEPARENT_HEADER);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    static String host(String url) {
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != ':' && url.charAt(end) != '?') {
+            end++;
+        }
+        return url.substring(start, end);
+    }
+
+    private static final class Journey {
+        private final Span span;
+        private final String nodeName;
+
+        private Journey(Span span, String nodeName) {
+            this.span = span;
+            this.nodeName = nodeName;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.os.tid.forgerock.openam.utils;
+
+/**
+ * Bounded store of a per-user status, keyed by a 64-bit hash of {@code username@tenant}.
+ * A status is any non-zero int; 0 means unknown. Implementations evict entries once they are full and are thread safe.
+ */
+public interface UserStatusStore {
+
+    /**
+     * @return the status of the user, 0 if unknown
+     */
+    int get(long key);
+
+    void put(long key, int status);
+
+    void remove(long key);
+
+    int size();
+
+    void clear();
+
+    /**
+     * @return the 64-bit key of a user of a tenant
+     */
+    static long key(String tenantName, String username) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, username);
+        hash = (hash ^ '@') * 0x100000001b3L;
+        hash = fnv(hash, tenantName);
+        //final avalanche, so the low bits used to pick a bucket depend on every character
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,73 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+import com.os.tid.forgerock.openam.utils.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former per-request URL construction with the cached {@link EndpointDescriptor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndpointDescriptorBenchmark {
+    private OSConfigurationsService serviceConfig;
+    private String username;
+
+    @Setup
+    public void setup() {
+        serviceConfig = new OSConfigurationsService() {
+            @Override
+            public String tenantName() {
+                return "OneSpan-Benchmark";
+            }
+
+            @Override
+            public EnvOptions environment() {
+                return EnvOptions.sdb;
+            }
+
+            @Override
+            public String applicationRef() {
+                return "benchmark";
+            }
+        };
+        username = "benchmark-user";
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        String tenantName = serviceConfig.tenantNameToLowerCase();
+        String environment = serviceConfig.environment().name();
+        return StringUtils.getAPIEndpoint(tenantName, environment)
+                + String.format(Constants.OSTID_API_ADAPTIVE_USER_LOGIN, username, tenantName);
+    }
+
+    @Benchmark
+    public String endpointDescriptor() {
+        return EndpointDescriptor.of(serviceConfig).userUrl(EndpointDescriptor.USER_LOGIN, username);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EndpointDescriptorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.os.tid.forgerock.openam.utils.HexCodec;
+import org.apache.commons.codec.binary.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former BigInteger/String.format and commons-codec hex conversions with {@link HexCodec}.
+ * Run with {@code -prof gc} to compare the allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexCodecBenchmark {
+    private byte[] sessionId;
+    private String sessionIdHex;
+
+    @Setup
+    public void setup() {
+        sessionId = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        sessionIdHex = HexCodec.encode(sessionId);
+    }
+
+    @Benchmark
+    public String bigIntegerFormat() {
+        return String.format("%040x", new BigInteger(1, sessionId));
+    }
+
+    @Benchmark
+    public String encodeUnsigned() {
+        return HexCodec.encodeUnsigned(sessionId, 40);
+    }
+
+    @Benchmark
+    public String commonsCodecEncode() {
+        return Hex.encodeHexString(sessionId);
+    }
+
+    @Benchmark
+    public String encode() {
+        return HexCodec.encode(sessionId);
+    }
+
+    @Benchmark
+    public byte[] commonsCodecDecode() throws Exception {
+        return Hex.decodeHex(sessionIdHex.toCharArray());
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return HexCodec.decode(sessionIdHex);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HexCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
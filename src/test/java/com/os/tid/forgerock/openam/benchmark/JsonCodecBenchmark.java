@@ -0,0 +1,69 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.os.tid.forgerock.openam.models.GeneralResponseOutput;
+import com.os.tid.forgerock.openam.models.GeneralResponseOutputCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares fastjson's reflective mapping of a login response with the codec generated at build time, both ways.
+ * This measures the steady state; the first-call cost of fastjson, which generates its ASM deserializer then, shows
+ * with {@code -bm ss -wi 0 -i 1 -f 20}, each fork then decoding a single response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+    private static final String RESPONSE = "{\"requestID\":\"0b7e0b6b4c7c4d3c\",\"sessionStatus\":\"accepted\",\"riskResponseCode\":0,\"requestMessage\":\"Login accepted\"}";
+
+    private JSONObject responseJSON;
+    private GeneralResponseOutput output;
+
+    @Setup
+    public void setup() {
+        responseJSON = JSON.parseObject(RESPONSE);
+        output = GeneralResponseOutputCodec.INSTANCE.decode(responseJSON);
+    }
+
+    @Benchmark
+    public GeneralResponseOutput fastjsonDecode() {
+        return JSON.toJavaObject(responseJSON, GeneralResponseOutput.class);
+    }
+
+    @Benchmark
+    public GeneralResponseOutput codecDecode() {
+        return GeneralResponseOutputCodec.INSTANCE.decode(responseJSON);
+    }
+
+    @Benchmark
+    public Object fastjsonEncode() {
+        return JSON.toJSON(output);
+    }
+
+    @Benchmark
+    public JSONObject codecEncode() {
+        return GeneralResponseOutputCodec.INSTANCE.encode(output);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.os.tid.forgerock.openam.utils.OffHeapUserIndex;
+import com.os.tid.forgerock.openam.utils.UserStatusStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a {@code ConcurrentHashMap<String, Long>} keyed by {@code username@tenant} with {@link OffHeapUserIndex}
+ * for a tenant with millions of users. Run with {@code -prof gc} to compare the allocation rates, the heap used by
+ * the map after setup is printed as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OffHeapUserIndexBenchmark {
+    private static final String TENANT = "tenant";
+
+    @Param({"1000000"})
+    private int users;
+
+    private String[] usernames;
+    private ConcurrentHashMap<String, Long> map;
+    private OffHeapUserIndex index;
+
+    @Setup
+    public void setup() {
+        usernames = new String[users];
+        for (int i = 0; i < users; i++) {
+            usernames[i] = "user" + i + "@example.com";
+        }
+        long heapBefore = usedHeap();
+        map = new ConcurrentHashMap<>();
+        for (String username : usernames) {
+            map.put(username + "@" + TENANT, 1L);
+        }
+        long heapAfter = usedHeap();
+        index = new OffHeapUserIndex((long) Integer.highestOneBit(users) * 2 * OffHeapUserIndex.SLOT_BYTES);
+        for (String username : usernames) {
+            index.put(UserStatusStore.key(TENANT, username), 1L);
+        }
+        System.out.println("ConcurrentHashMap heap: ~" + (heapAfter - heapBefore) / users + " bytes per user; OffHeapUserIndex: "
+                + index.memoryBytes() / users + " bytes per user off heap");
+    }
+
+    @Benchmark
+    public Long mapGet() {
+        return map.get(usernames[ThreadLocalRandom.current().nextInt(users)] + "@" + TENANT);
+    }
+
+    @Benchmark
+    public long indexGet() {
+        return index.get(UserStatusStore.key(TENANT, usernames[ThreadLocalRandom.current().nextInt(users)]), 0L);
+    }
+
+    @Benchmark
+    public Long mapPut() {
+        return map.put(usernames[ThreadLocalRandom.current().nextInt(users)] + "@" + TENANT, 2L);
+    }
+
+    @Benchmark
+    public void indexPut() {
+        index.put(UserStatusStore.key(TENANT, usernames[ThreadLocalRandom.current().nextInt(users)]), 2L);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OffHeapUserIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.os.tid.forgerock.openam.utils.PluginLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares eager string concatenation with {@link PluginLogger} while debug is disabled, which is the
+ * default level of the amAuth logger. Run with {@code -prof gc}: the facade methods should report
+ * no allocation at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PluginLoggerBenchmark {
+    private static final String LOGGER_NAME = "amAuth";
+
+    private final Logger slf4jLogger = LoggerFactory.getLogger(LOGGER_NAME);
+    private final PluginLogger pluginLogger = PluginLogger.getLogger(LOGGER_NAME);
+    private String payload;
+    private Map<String, Object> sharedState;
+    private int httpStatus;
+
+    @Setup
+    public void setup() {
+        payload = "{\"credentials\":{\"passKey\":\"Test1234\"},\"clientIP\":\"192.168.1.1\",\"cddc\":{\"browserCDDC\":"
+                + "{\"fingerprintHash\":\"e96dadc9651f5fe8f071110eb174fe8e\",\"fingerprintRaw\":{\"browser\":{\"userAgent\":\"Mozilla/5.0\"}}}},"
+                + "\"objectType\":\"IAAUserLoginInput\"}";
+        httpStatus = 503;
+        sharedState = new HashMap<>();
+        sharedState.put("username", "duo10131");
+        sharedState.put("ostid_cddc_json", "{\"browser\":{\"userAgent\":\"Mozilla/5.0\"}}");
+        sharedState.put("ostid_sessionid", "38663233383530352d623966382d343631342d393762392d373833303463323962303836");
+    }
+
+    @Benchmark
+    public void concatenatedPayload() {
+        slf4jLogger.debug("OS_Auth_UserLoginNode user login JSON:" + payload);
+    }
+
+    @Benchmark
+    public void facadePayload() {
+        pluginLogger.debugPayload("OS_Auth_UserLoginNode user login JSON:{}", payload);
+    }
+
+    @Benchmark
+    public void concatenatedSharedState() {
+        slf4jLogger.debug("OS_Sample_TransactionCollector shared state: " + JSON.toJSONString(sharedState));
+    }
+
+    @Benchmark
+    public void facadeSharedState() {
+        pluginLogger.debugJson("OS_Sample_TransactionCollector shared state: {}", sharedState);
+    }
+
+    @Benchmark
+    public void facadeStatusCode() {
+        pluginLogger.debug("OS_Auth_UserLoginNode API answered {} for {}", httpStatus, LOGGER_NAME);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PluginLoggerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.os.tid.forgerock.openam.nodes.OS_Auth_CheckSessionStatusNode.CheckSessionStatusOutcome;
+import com.os.tid.forgerock.openam.utils.PollingClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former decoding of a Check Session Status response (String, fastjson tree and enum lookup)
+ * with the in place scan of {@link PollingClient}. Run with {@code -prof gc}: the scan should report no allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollingClientBenchmark {
+    private static final byte[] FIELD = PollingClient.fieldName("sessionStatus");
+
+    private byte[] body;
+    private byte[][] outcomeNames;
+    private CheckSessionStatusOutcome[] outcomes;
+
+    @Setup
+    public void setup() {
+        body = "{\"sessionStatus\": \"pending\"}".getBytes(StandardCharsets.UTF_8);
+        outcomes = CheckSessionStatusOutcome.values();
+        outcomeNames = new byte[outcomes.length][];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomeNames[i] = outcomes[i].name().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public CheckSessionStatusOutcome treeParse() {
+        String response = new String(body, StandardCharsets.UTF_8);
+        return CheckSessionStatusOutcome.valueOf(JSON.parseObject(response).getString("sessionStatus"));
+    }
+
+    @Benchmark
+    public CheckSessionStatusOutcome scan() {
+        return outcomes[PollingClient.scan(body, body.length, FIELD, outcomeNames)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PollingClientBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
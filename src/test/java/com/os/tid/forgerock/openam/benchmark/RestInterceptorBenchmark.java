@@ -0,0 +1,90 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.RestInterceptor;
+import com.os.tid.forgerock.openam.utils.RestInterceptors;
+import com.os.tid.forgerock.openam.utils.RestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup of the interceptors of a call and their dispatch by {@link RestUtils#doPostJSON(String, String)}.
+ * The last interceptor stands in for the transport and answers every call, so no connection is opened and the
+ * results are the overhead of the chain alone:
+ * <ul>
+ *     <li>{@code stub}: the stand-in alone, registered for the tenant</li>
+ *     <li>{@code manyTenants}: the same, with 100 other tenants registered</li>
+ *     <li>{@code passThrough}: one interceptor passing the call on to the stand-in</li>
+ *     <li>{@code metrics}: the built-in {@code metrics} interceptor before the stand-in</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestInterceptorBenchmark {
+    private static final String BASE_URL = "https://tenant.sdb.tid.onespan.cloud";
+    private static final String URL = BASE_URL + "/v1/adaptive/actions/users/john@tenant/login";
+    private static final String PAYLOAD = "{\"objectType\":\"AdaptiveLoginInput\"}";
+    private static final int OTHER_TENANTS = 100;
+
+    @Param({"stub", "manyTenants", "passThrough", "metrics"})
+    public String interceptors;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HttpEntity response = new HttpEntity(new JSONObject(), 200, "corr-id");
+        RestInterceptor transport = (exchange, chain) -> response;
+        List<RestInterceptor> chain = new ArrayList<>();
+        if ("passThrough".equals(interceptors)) {
+            chain.add((exchange, next) -> next.proceed(exchange));
+        } else if ("metrics".equals(interceptors)) {
+            chain.addAll(RestInterceptors.parse(Collections.singletonList("metrics")));
+        }
+        chain.add(transport);
+        RestInterceptors.clear();
+        if ("manyTenants".equals(interceptors)) {
+            for (int i = 0; i < OTHER_TENANTS; i++) {
+                RestInterceptors.register("https://tenant" + i + ".sdb.tid.onespan.cloud", Collections.singletonList(transport));
+            }
+        }
+        RestInterceptors.register(BASE_URL, chain);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RestInterceptors.clear();
+    }
+
+    @Benchmark
+    public HttpEntity doPostJSON() throws IOException {
+        return RestUtils.doPostJSON(URL, PAYLOAD);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RestInterceptorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
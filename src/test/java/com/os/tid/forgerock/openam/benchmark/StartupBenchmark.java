@@ -0,0 +1,72 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.models.GeneralResponseOutput;
+import com.os.tid.forgerock.openam.nodes.OS_Auth_UserLoginNode;
+import com.os.tid.forgerock.openam.nodes.OS_Risk_CDDCNode;
+import com.os.tid.forgerock.openam.utils.LogRedactor;
+import com.os.tid.forgerock.openam.utils.ScriptUtils;
+import com.os.tid.forgerock.openam.utils.SessionIdGenerator;
+import org.forgerock.openam.auth.node.api.NodeProcessException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to the first login in a fresh JVM, with and without the AppCDS archive built by the
+ * {@code appcds} profile. The first login loads the node classes and fastjson, builds the login payload and
+ * maps a canned successful response, the HTTP call itself is left out.
+ * <p>
+ * The archive was dumped from the shaded jar and the dependency jars, so run this benchmark with that classpath
+ * first and the test classes after it, as described in the README. The archived fork runs with {@code -Xshare:on}
+ * and fails to start, instead of silently measuring a JVM without the archive, if the classpath does not match.
+ * The plugin is loaded by the application class loader here, unlike in AM, where it comes from a web application
+ * class loader which this archive does not cover.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+    static final String ARCHIVE = "target/onespan-plugin.jsa";
+    private static final String LOGIN_RESPONSE = "{\"requestID\":\"0b7e0b6b4c7c4d3c\",\"riskResponseCode\":0,\"sessionStatus\":\"accepted\",\"requestMessage\":\"\"}";
+
+    @Benchmark
+    @Fork(value = 10)
+    public GeneralResponseOutput withoutArchive() throws Exception {
+        return firstLogin();
+    }
+
+    @Benchmark
+    @Fork(value = 10, jvmArgsAppend = {"-Xshare:on", "-XX:SharedArchiveFile=" + ARCHIVE})
+    public GeneralResponseOutput withArchive() throws Exception {
+        return firstLogin();
+    }
+
+    static GeneralResponseOutput firstLogin() throws ClassNotFoundException, NodeProcessException {
+        Class.forName(OS_Risk_CDDCNode.class.getName());
+        Class.forName(OS_Auth_UserLoginNode.class.getName());
+        ScriptUtils.getScriptFromFile("/js/Vasco.IdKey.RM.CDDC.min.js");
+
+        String iaa = String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN_IAA,
+                "127.0.0.1", "hash", "{}", "relationshipRef", SessionIdGenerator.generate(), "applicationRef");
+        String payload = String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN,
+                "AdaptiveLoginInput", "", "", "", "", iaa, "", "");
+        LogRedactor.redact(payload);
+        return JSON.toJavaObject(JSON.parseObject(LOGIN_RESPONSE), GeneralResponseOutput.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StartupBenchmark.class.getSimpleName()).build()).run();
+    }
+}
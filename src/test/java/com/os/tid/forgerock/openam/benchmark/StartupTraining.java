@@ -0,0 +1,12 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+/**
+ * Training run of the {@code appcds} profile: performs one first login, so the JVM records the classes it needs
+ * in the class list the archive is dumped from.
+ */
+public class StartupTraining {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("First login mapped request " + StartupBenchmark.firstLogin().getRequestID());
+    }
+}
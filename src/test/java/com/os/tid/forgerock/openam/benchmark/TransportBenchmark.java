@@ -0,0 +1,112 @@
+package com.os.tid.forgerock.openam.benchmark;
+
+import com.os.tid.forgerock.openam.test.ApiStandIn;
+import com.os.tid.forgerock.openam.utils.Histogram;
+import com.os.tid.forgerock.openam.utils.Http2Transport;
+import com.os.tid.forgerock.openam.utils.RestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs 1000 concurrent journeys of three API calls each with the HTTP/1.1 and the HTTP/2 transports, and prints
+ * the p99 latency of the calls and the number of connections which carried them after every iteration.
+ * <p>
+ * The API stand-in accepts cleartext HTTP/2 upgrades, so the HTTP/2 run multiplexes the calls over
+ * {@code onespan.http2.connections} connections once warmed up, where the HTTP/1.1 run opens up to one per journey.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransportBenchmark {
+    private static final int JOURNEYS = 1000;
+    private static final int CALLS_PER_JOURNEY = 3;
+    private static final long API_LATENCY_MILLIS = 20;
+    private static final String PAYLOAD = "{\"objectType\":\"AdaptiveLoginInput\"}";
+    private static final String RESPONSE = "{\"requestID\":\"0b7e0b6b4c7c4d3c\",\"sessionStatus\":\"accepted\"}";
+
+    @Param({"http1.1", "http2"})
+    public String transport;
+
+    private ApiStandIn api;
+    private String url;
+    private ExecutorService journeys;
+    private Histogram latency;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        api = new ApiStandIn(true, RESPONSE, request -> API_LATENCY_MILLIS);
+        url = api.url("/v1/users/john@tenant/login");
+        Http2Transport.setEnabled("http2".equals(transport));
+        Http2Transport.reset();
+        journeys = Executors.newFixedThreadPool(JOURNEYS);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        api.resetCounts();
+        latency = new Histogram("call.latency.ms");
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        System.out.println();
+        System.out.println(transport + ": connections=" + api.getConnectionCount() + ", " + latency);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journeys.shutdownNow();
+        api.close();
+        Http2Transport.setEnabled(false);
+        Http2Transport.reset();
+    }
+
+    @Benchmark
+    public long concurrentJourneys() throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>(JOURNEYS);
+        for (int i = 0; i < JOURNEYS; i++) {
+            tasks.add(() -> {
+                for (int call = 0; call < CALLS_PER_JOURNEY; call++) {
+                    long start = System.nanoTime();
+                    RestUtils.doPostJSON(url, PAYLOAD);
+                    latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+                return null;
+            });
+        }
+        for (Future<Void> journey : journeys.invokeAll(tasks)) {
+            journey.get();
+        }
+        return latency.getCount();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
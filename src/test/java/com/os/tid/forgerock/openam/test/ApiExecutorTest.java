@@ -0,0 +1,121 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
+import com.os.tid.forgerock.openam.models.GeneralResponseOutput;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.ApiExecutor;
+import com.os.tid.forgerock.openam.utils.ApiRequest;
+import com.os.tid.forgerock.openam.utils.ApiResult;
+import com.os.tid.forgerock.openam.utils.RequestHedger;
+import org.forgerock.openam.auth.node.api.NodeProcessException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Test
+public class ApiExecutorTest {
+    private static final String URL = "https://tenant.sdb.tid.onespan.cloud/v1/adaptive/actions/users/john/login";
+    private static final String PAYLOAD = "{\"objectType\":\"AdaptiveLoginInput\"}";
+
+    @Test
+    public void testDecodesSuccessfulResponse() throws IOException {
+        // Given
+        List<String> bodies = new ArrayList<>();
+        ApiExecutor executor = ApiExecutor.getInstance().withTransport((request, body, connector) -> {
+            bodies.add(body);
+            return new HttpEntity(JSON.parseObject("{\"requestID\":\"42\",\"riskResponseCode\":0}"), 200, "corr-id");
+        });
+
+        // When
+        ApiResult<GeneralResponseOutput> result = executor.execute(ApiRequest.post(URL, PAYLOAD, GeneralResponseOutput.class));
+
+        // Then
+        assertThat(bodies).containsExactly(PAYLOAD);
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getValue().getRequestID()).isEqualTo("42");
+        assertThat(result.getValue().getRiskResponseCode()).isEqualTo(0);
+    }
+
+    @Test
+    public void testClassifiesApiError() throws IOException, NodeProcessException {
+        // Given
+        ApiExecutor executor = ApiExecutor.getInstance().withTransport((request, body, connector) ->
+                new HttpEntity(JSON.parseObject("{\"message\":\"Validation failed\",\"validationErrors\":[{\"message\":\"Unknown user\"}]}"), 400, "corr-id"));
+
+        // When
+        ApiResult<GeneralResponseOutput> result = executor.execute(ApiRequest.post(URL, PAYLOAD, GeneralResponseOutput.class));
+
+        // Then
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getValue()).isNull();
+        ErrorRecord error = result.getError();
+        assertThat(error.getMessage()).isEqualTo("Validation failed");
+        assertThat(error.getValidationMessage()).isEqualTo("Unknown user");
+        assertThat(error.getErrorCode()).isEqualTo(400);
+        assertThat(error.getLogCorrelationId()).isEqualTo("corr-id");
+        assertThat(error.getPayload()).isEqualTo("POST " + URL + " : " + PAYLOAD);
+    }
+
+    @Test
+    public void testRejectsUnclassifiedError() throws IOException {
+        // Given
+        ApiExecutor executor = ApiExecutor.getInstance().withTransport((request, body, connector) ->
+                new HttpEntity(JSON.parseObject("{\"message\":\"Not found\"}"), 404, "corr-id"));
+
+        // When
+        ApiResult<JSONObject> result = executor.execute(ApiRequest.post(URL, PAYLOAD, JSONObject.class).requireErrorFields("error"));
+
+        // Then
+        assertThat(result.getHttpStatus()).isEqualTo(404);
+        assertThatThrownBy(result::getError)
+                .isInstanceOf(NodeProcessException.class)
+                .hasMessageContaining("Not found");
+    }
+
+    @Test
+    public void testAppliesReplacedStages() throws IOException {
+        // Given
+        ApiExecutor executor = ApiExecutor.getInstance()
+                .withEncoder(request -> request.getPayload().replace("AdaptiveLoginInput", "AdaptiveEventValidationInput"))
+                .withTransport((request, body, connector) -> new HttpEntity(JSON.parseObject("{\"body\":" + body + "}"), 200, "corr-id"));
+
+        // When
+        ApiResult<JSONObject> result = executor.execute(ApiRequest.post(URL, PAYLOAD, JSONObject.class));
+
+        // Then
+        assertThat(result.getValue().getJSONObject("body").getString("objectType")).isEqualTo("AdaptiveEventValidationInput");
+    }
+
+    @Test
+    public void testSendsHedgedAttemptsWithTheirConnector() throws IOException {
+        // Given
+        List<RequestHedger.Connector> connectors = new ArrayList<>();
+        ApiExecutor executor = ApiExecutor.getInstance().withTransport((request, body, connector) -> {
+            connectors.add(connector);
+            return new HttpEntity(JSON.parseObject("{\"activationStatus\":\"pending\"}"), 200, "corr-id");
+        });
+        ApiRequest<JSONObject> request = ApiRequest.post(URL, PAYLOAD, JSONObject.class);
+        RequestHedger hedger = new RequestHedger(true, 95, 20, 4);
+
+        // When
+        ApiResult<JSONObject> result;
+        try {
+            result = hedger.send(URL, connector -> executor.execute(request, connector));
+        } finally {
+            hedger.close();
+        }
+
+        // Then
+        assertThat(result.getValue().getString("activationStatus")).isEqualTo("pending");
+        assertThat(connectors).hasSize(1);
+        assertThat(connectors.get(0)).isNotNull();
+        assertThat(connectors.get(0).isHedge()).isFalse();
+    }
+}
@@ -0,0 +1,283 @@
+package com.os.tid.forgerock.openam.test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Stand-in of the OneSpan API for the transport tests and benchmarks. It answers every request with the same JSON
+ * body after a latency picked by request number, over HTTP/1.1 keep-alive connections or, when it speaks HTTP/2 and
+ * the client asks for it with {@code Upgrade: h2c}, over cleartext HTTP/2.
+ * <p>
+ * The request headers are never decoded: the HTTP/2 side only follows the frames which delimit the requests and
+ * keep the connection alive, and answers with a {@code :status 200} from the static HPACK table.
+ */
+public class ApiStandIn implements Closeable {
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int TYPE_DATA = 0x0;
+    private static final int TYPE_HEADERS = 0x1;
+    private static final int TYPE_RST_STREAM = 0x3;
+    private static final int TYPE_SETTINGS = 0x4;
+    private static final int TYPE_PING = 0x6;
+    private static final int TYPE_GOAWAY = 0x7;
+    private static final int TYPE_WINDOW_UPDATE = 0x8;
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_ACK = 0x1;
+    private static final int FLAG_END_HEADERS = 0x4;
+    private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    //":status: 200" is entry 8 of the static table, "content-length" is entry 28
+    private static final int INDEXED_STATUS_200 = 0x88;
+    private static final int CONTENT_LENGTH_INDEX = 28;
+
+    private final boolean http2;
+    private final byte[] response;
+    private final IntToLongFunction latencyMillis;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService responders = Executors.newScheduledThreadPool(4);
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> activeConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger http2Requests = new AtomicInteger();
+    private final AtomicInteger resets = new AtomicInteger();
+
+    /**
+     * @param http2         whether the stand-in accepts the upgrades to HTTP/2
+     * @param response      the JSON body of every response
+     * @param latencyMillis the latency of a response, given the number of its request starting from 1
+     */
+    public ApiStandIn(boolean http2, String response, IntToLongFunction latencyMillis) throws IOException {
+        this.http2 = http2;
+        this.response = response.getBytes(StandardCharsets.UTF_8);
+        this.latencyMillis = latencyMillis;
+        this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "ApiStandIn-Acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + path;
+    }
+
+    /**
+     * @return the number of connections which carried a request since the last {@link #resetCounts()}
+     */
+    public int getConnectionCount() {
+        return activeConnections.size();
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public int getHttp2RequestCount() {
+        return http2Requests.get();
+    }
+
+    /**
+     * @return the number of HTTP/2 streams reset by the client
+     */
+    public int getResetCount() {
+        return resets.get();
+    }
+
+    public void resetCounts() {
+        activeConnections.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        connections.shutdownNow();
+        responders.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                int connectionId = connectionIds.incrementAndGet();
+                connections.execute(() -> serve(socket, connectionId));
+            } catch (IOException e) {
+                //closed
+            }
+        }
+    }
+
+    private void serve(Socket socket, int connectionId) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = new BufferedOutputStream(s.getOutputStream());
+            String requestLine;
+            while ((requestLine = readLine(in)) != null && !requestLine.isEmpty()) {
+                Map<String, String> headers = new HashMap<>();
+                String line;
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+                }
+                String contentLength = headers.get("content-length");
+                in.readNBytes(contentLength == null ? 0 : Integer.parseInt(contentLength));
+                activeConnections.add(connectionId);
+                int request = requests.incrementAndGet();
+                if (http2 && "h2c".equalsIgnoreCase(headers.get("upgrade"))) {
+                    out.write("HTTP/1.1 101 Switching Protocols\r\nConnection: Upgrade\r\nUpgrade: h2c\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                    serveHttp2(in, out, connectionId, request);
+                    return;
+                }
+                sleep(latencyMillis.applyAsLong(request));
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + response.length + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                out.write(response);
+                out.flush();
+            }
+        } catch (IOException e) {
+            //the client closed the connection
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    /**
+     * Serves an upgraded connection, the upgrade request being the stream 1.
+     */
+    private void serveHttp2(InputStream in, OutputStream out, int connectionId, int upgradeRequest) throws IOException {
+        byte[] settings = new byte[6];
+        settings[1] = SETTINGS_MAX_CONCURRENT_STREAMS;
+        writeInt(settings, 2, 1000);
+        writeFrame(out, TYPE_SETTINGS, 0, 0, settings);
+        if (!Arrays.equals(in.readNBytes(PREFACE.length), PREFACE)) {
+            return;
+        }
+        http2Requests.incrementAndGet();
+        respond(out, 1, upgradeRequest);
+        byte[] header = new byte[9];
+        while (in.readNBytes(header, 0, header.length) == header.length) {
+            int length = (header[0] & 0xff) << 16 | (header[1] & 0xff) << 8 | header[2] & 0xff;
+            int type = header[3] & 0xff;
+            int flags = header[4] & 0xff;
+            int stream = (header[5] & 0x7f) << 24 | (header[6] & 0xff) << 16 | (header[7] & 0xff) << 8 | header[8] & 0xff;
+            byte[] payload = in.readNBytes(length);
+            if (payload.length < length) {
+                return;
+            }
+            switch (type) {
+                case TYPE_SETTINGS:
+                case TYPE_PING:
+                    if ((flags & FLAG_ACK) == 0) {
+                        writeFrame(out, type, FLAG_ACK, 0, type == TYPE_PING ? payload : new byte[0]);
+                    }
+                    break;
+                case TYPE_DATA:
+                    if (length > 0) {
+                        byte[] increment = new byte[4];
+                        writeInt(increment, 0, length);
+                        writeFrame(out, TYPE_WINDOW_UPDATE, 0, 0, increment);
+                    }
+                    //fall through, a request ends with its last DATA or HEADERS frame
+                case TYPE_HEADERS:
+                    if ((flags & FLAG_END_STREAM) != 0) {
+                        activeConnections.add(connectionId);
+                        http2Requests.incrementAndGet();
+                        respond(out, stream, requests.incrementAndGet());
+                    }
+                    break;
+                case TYPE_RST_STREAM:
+                    resets.incrementAndGet();
+                    break;
+                case TYPE_GOAWAY:
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void respond(OutputStream out, int stream, int request) {
+        responders.schedule(() -> {
+            ByteArrayOutputStream headerBlock = new ByteArrayOutputStream();
+            byte[] contentLength = Integer.toString(response.length).getBytes(StandardCharsets.US_ASCII);
+            headerBlock.write(INDEXED_STATUS_200);
+            //literal without indexing, indexed name on a 4 bit prefix
+            headerBlock.write(0x0f);
+            headerBlock.write(CONTENT_LENGTH_INDEX - 0x0f);
+            headerBlock.write(contentLength.length);
+            headerBlock.writeBytes(contentLength);
+            try {
+                synchronized (out) {
+                    writeFrame(out, TYPE_HEADERS, FLAG_END_HEADERS, stream, headerBlock.toByteArray());
+                    writeFrame(out, TYPE_DATA, FLAG_END_STREAM, stream, response);
+                }
+            } catch (IOException e) {
+                //the client closed the connection
+            }
+        }, latencyMillis.applyAsLong(request), TimeUnit.MILLISECONDS);
+    }
+
+    private static void writeFrame(OutputStream out, int type, int flags, int stream, byte[] payload) throws IOException {
+        byte[] header = new byte[9];
+        header[0] = (byte) (payload.length >>> 16);
+        header[1] = (byte) (payload.length >>> 8);
+        header[2] = (byte) payload.length;
+        header[3] = (byte) type;
+        header[4] = (byte) flags;
+        writeInt(header, 5, stream);
+        synchronized (out) {
+            out.write(header);
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return b < 0 && line.length() == 0 ? null : line.toString();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.utils.CDDCStore;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class CDDCStoreTest {
+
+    @AfterMethod
+    public void after() {
+        CDDCStore.clear();
+    }
+
+    @Test
+    public void testRefusesFingerprintsWhenFull() {
+        // Given
+        for (int i = 0; i < Constants.OSTID_DEFAULT_CDDC_STORE_SIZE; i++) {
+            assertThat(CDDCStore.put(TestData.TEST_CDDC_JSON, 600)).isNotNull();
+        }
+
+        // When
+        String ref = CDDCStore.put(TestData.TEST_CDDC_JSON, 600);
+
+        // Then
+        assertThat(ref).isNull();
+        assertThat(CDDCStore.size()).isEqualTo(Constants.OSTID_DEFAULT_CDDC_STORE_SIZE);
+    }
+
+    @Test
+    public void testEvictsExpiredFingerprintsWhenFull() {
+        // Given
+        for (int i = 0; i < Constants.OSTID_DEFAULT_CDDC_STORE_SIZE; i++) {
+            CDDCStore.put(TestData.TEST_CDDC_JSON, 0);
+        }
+
+        // When
+        String ref = CDDCStore.put(TestData.TEST_CDDC_JSON, 600);
+
+        // Then
+        assertThat(CDDCStore.get(ref)).isEqualTo(TestData.TEST_CDDC_JSON);
+        assertThat(CDDCStore.size()).isEqualTo(1);
+    }
+}
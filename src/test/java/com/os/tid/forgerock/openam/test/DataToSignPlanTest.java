@@ -0,0 +1,120 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.google.common.collect.ImmutableMap;
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.nodes.DataToSignPlan;
+import com.os.tid.forgerock.openam.nodes.OS_Auth_ValidateTransactionNode;
+import org.forgerock.json.JsonValue;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@Test
+public class DataToSignPlanTest {
+    @Mock
+    private OS_Auth_ValidateTransactionNode.Config config;
+
+    @BeforeMethod
+    public void before() {
+        initMocks(this);
+        given(config.userNameInSharedData()).willReturn(Constants.OSTID_DEFAULT_USERNAME);
+        given(config.signatureInSharedData()).willReturn("signature");
+        given(config.adaptiveAttributes()).willReturn(ImmutableMap.of(
+                "amount", "amount",
+                "currency", "currency",
+                "creditorIBAN", "creditorIBAN",
+                "creditorName", "creditorName"
+        ));
+    }
+
+    @Test
+    public void testTransactionMessage() {
+        given(config.dataToSign()).willReturn(OS_Auth_ValidateTransactionNode.DataToSign.transactionMessage);
+        Map<String, String> adaptiveDataToSign = ImmutableMap.of("amount", "other", "reference", "reference");
+        given(config.adaptiveDataToSign()).willReturn(adaptiveDataToSign);
+        DataToSignPlan plan = DataToSignPlan.compile(config);
+
+        JsonValue sharedState = json(object(1));
+        sharedState.put(Constants.OSTID_DEFAULT_USERNAME, TestData.TEST_USERNAME);
+        sharedState.put("amount", "66.66");
+        sharedState.put("currency", "CAD");
+        sharedState.put("creditorIBAN", "IBAN123123");
+        sharedState.put("creditorName", "John Smith");
+        sharedState.put("reference", "Ref123123");
+        StringBuilder dataJSON = new StringBuilder();
+        StringBuilder attributes = new StringBuilder();
+
+        assertThat(plan.appendDataToSign(sharedState, dataJSON)).isTrue();
+        assertThat(plan.appendAdaptiveAttributes(sharedState, attributes)).isTrue();
+        assertThat(dataJSON.toString()).isEqualTo(String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_TRANSACTIONMESSAGE, String.join(",",
+                dataField("amount", "66.66"),
+                dataField("reference", "Ref123123"),
+                dataField("login", TestData.TEST_USERNAME),
+                dataField("beneficiary", "John Smith"),
+                dataField("iban", "IBAN123123"),
+                dataField("currency", "CAD"))));
+        assertThat(attributes.toString()).isEqualTo("\"amount\":\"66.66\",\"currency\":\"CAD\",\"creditorIBAN\":\"IBAN123123\",\"creditorName\":\"John Smith\"");
+        assertThat(adaptiveDataToSign).hasSize(2);
+    }
+
+    @Test
+    public void testTransactionMessageMissingData() {
+        given(config.dataToSign()).willReturn(OS_Auth_ValidateTransactionNode.DataToSign.transactionMessage);
+        given(config.adaptiveDataToSign()).willReturn(Collections.emptyMap());
+        DataToSignPlan plan = DataToSignPlan.compile(config);
+
+        JsonValue sharedState = json(object(1));
+        sharedState.put(Constants.OSTID_DEFAULT_USERNAME, TestData.TEST_USERNAME);
+
+        assertThat(plan.appendDataToSign(sharedState, new StringBuilder())).isFalse();
+        assertThat(plan.appendAdaptiveAttributes(sharedState, new StringBuilder())).isFalse();
+    }
+
+    @Test
+    public void testFido() {
+        given(config.dataToSign()).willReturn(OS_Auth_ValidateTransactionNode.DataToSign.fido);
+        given(config.fidoDataToSign()).willReturn(ImmutableMap.of(
+                "fidoProtocol", "fidoProtocol",
+                "authenticationResponse", "authenticationResponse"
+        ));
+        DataToSignPlan plan = DataToSignPlan.compile(config);
+
+        JsonValue sharedState = json(object(1));
+        StringBuilder dataJSON = new StringBuilder();
+        assertThat(plan.appendDataToSign(sharedState, dataJSON)).isFalse();
+
+        sharedState.put("fidoProtocol", "FIDO2");
+        sharedState.put("authenticationResponse", "response");
+        sharedState.put(Constants.OSTID_REQUEST_ID, "request");
+        assertThat(plan.appendDataToSign(sharedState, dataJSON)).isTrue();
+        assertThat(dataJSON.toString()).isEqualTo(String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_FIDO,
+                "FIDO2", "response", String.format(Constants.OSTID_JSON_ADAPTIVE_REQUESTID, "request")));
+    }
+
+    @Test
+    public void testSecureChannel() {
+        given(config.dataToSign()).willReturn(OS_Auth_ValidateTransactionNode.DataToSign.secureChannel);
+        DataToSignPlan plan = DataToSignPlan.compile(config);
+
+        JsonValue sharedState = json(object(1));
+        sharedState.put(Constants.OSTID_REQUEST_ID, "request");
+        sharedState.put("signature", "signed");
+        StringBuilder dataJSON = new StringBuilder();
+
+        assertThat(plan.appendDataToSign(sharedState, dataJSON)).isTrue();
+        assertThat(dataJSON.toString()).isEqualTo(String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_SECURECHANNEL, "request", "signed"));
+    }
+
+    private static String dataField(String key, String value) {
+        return String.format(Constants.OSTID_JSON_ADAPTIVE_DATATOSIGN_TRANSACTIONMESSAGE_DATAFIELDS, key, value);
+    }
+}
@@ -0,0 +1,105 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.config.PathTemplate;
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+import com.os.tid.forgerock.openam.utils.StringUtils;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@Test
+public class EndpointDescriptorTest {
+    @Mock
+    private OSConfigurationsService configurationsService;
+
+    @BeforeMethod
+    public void before() {
+        initMocks(this);
+        given(configurationsService.tenantNameToLowerCase()).willReturn(TestData.TENANT_NAME.toLowerCase());
+        given(configurationsService.environment()).willReturn(TestData.ENVIRONMENT);
+    }
+
+    @Test
+    public void testUrlsMatchStringFormat() {
+        // Given
+        String tenantName = TestData.TENANT_NAME.toLowerCase();
+        String baseUrl = StringUtils.getAPIEndpoint(tenantName, TestData.ENVIRONMENT.name());
+
+        // When
+        EndpointDescriptor endpoint = EndpointDescriptor.of(configurationsService);
+
+        // Then
+        assertThat(endpoint.getBaseUrl()).isEqualTo(baseUrl);
+        assertThat(endpoint.userUrl(EndpointDescriptor.USER_LOGIN, TestData.TEST_USERNAME))
+                .isEqualTo(baseUrl + String.format(Constants.OSTID_API_ADAPTIVE_USER_LOGIN, TestData.TEST_USERNAME, tenantName));
+        assertThat(endpoint.userUrl(EndpointDescriptor.SEND_TRANSACTION, TestData.TEST_USERNAME))
+                .isEqualTo(baseUrl + String.format(Constants.OSTID_API_ADAPTIVE_SEND_TRANSACTION, TestData.TEST_USERNAME, tenantName));
+        assertThat(endpoint.url(EndpointDescriptor.CHECK_SESSION_STATUS, TestData.TEST_SESSION_ID))
+                .isEqualTo(baseUrl + String.format(Constants.OSTID_API_CHECK_SESSION_STATUS, TestData.TEST_SESSION_ID));
+        assertThat(endpoint.url(EndpointDescriptor.VISUAL_CODE_RENDER, "CRONTO", TestData.TEST_CRONTO_MSG))
+                .isEqualTo(baseUrl + String.format(Constants.OSTID_API_ADAPTIVE_CRTONTO_RENDER, "CRONTO", TestData.TEST_CRONTO_MSG));
+        assertThat(endpoint.url(EndpointDescriptor.RISK_SEND_TRANSACTION))
+                .isEqualTo(baseUrl + Constants.OSTID_API_RISK_SEND_TRANSACTION);
+    }
+
+    @Test
+    public void testDescriptorCachedUntilEnvironmentChanges() {
+        // Given
+        EndpointDescriptor endpoint = EndpointDescriptor.of(configurationsService);
+
+        // When
+        EndpointDescriptor cached = EndpointDescriptor.of(configurationsService);
+        given(configurationsService.environment()).willReturn(OSConfigurationsService.EnvOptions.prod);
+        EndpointDescriptor rebuilt = EndpointDescriptor.of(configurationsService);
+
+        // Then
+        assertThat(cached).isSameAs(endpoint);
+        assertThat(rebuilt).isNotSameAs(endpoint);
+        assertThat(rebuilt.getBaseUrl()).isEqualTo(StringUtils.getAPIEndpoint(TestData.TENANT_NAME.toLowerCase(), "prod"));
+    }
+
+    @Test
+    public void testRealmsSharingATenantKeepTheirDescriptors() {
+        // Given
+        EndpointDescriptor endpoint = EndpointDescriptor.of(configurationsService);
+        given(configurationsService.baseEndpoints()).willReturn(Collections.singletonList("https://eu.onespan.example"));
+        EndpointDescriptor other = EndpointDescriptor.of(configurationsService);
+
+        // When
+        given(configurationsService.baseEndpoints()).willReturn(null);
+        EndpointDescriptor cached = EndpointDescriptor.of(configurationsService);
+
+        // Then
+        assertThat(other).isNotSameAs(endpoint);
+        assertThat(cached).isSameAs(endpoint);
+        assertThat(other.getBaseUrl()).isEqualTo("https://eu.onespan.example");
+    }
+
+    @Test
+    public void testConfiguredBaseEndpoint() {
+        // Given
+        given(configurationsService.baseEndpoints()).willReturn(Collections.singletonList("https://eu.onespan.example/"));
+
+        // When
+        EndpointDescriptor endpoint = EndpointDescriptor.of(configurationsService);
+
+        // Then
+        assertThat(endpoint.getBaseUrl()).isEqualTo("https://eu.onespan.example");
+        assertThat(endpoint.url(EndpointDescriptor.CHECK_SESSION_STATUS, TestData.TEST_SESSION_ID))
+                .isEqualTo("https://eu.onespan.example" + String.format(Constants.OSTID_API_CHECK_SESSION_STATUS, TestData.TEST_SESSION_ID));
+    }
+
+    @Test
+    public void testUnsupportedPlaceholder() {
+        assertThatThrownBy(() -> PathTemplate.parse("/v1/users/%s")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,199 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.config.EndpointRouter;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class EndpointRouterTest {
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final AtomicInteger fastProbes = new AtomicInteger();
+    private final List<EndpointRouter> routers = new ArrayList<>();
+    private HttpServer fast;
+    private HttpServer slow;
+
+    @BeforeMethod
+    public void before() throws IOException {
+        fastProbes.set(0);
+        fast = start(0, fastProbes);
+        slow = start(200, new AtomicInteger());
+    }
+
+    @AfterMethod
+    public void after() {
+        routers.forEach(EndpointRouter::close);
+        routers.clear();
+        fast.stop(0);
+        slow.stop(0);
+    }
+
+    @Test
+    public void testFailoverAndRecovery() throws InterruptedException {
+        // Given
+        String first = baseUrl(fast);
+        String second = baseUrl(slow);
+        EndpointRouter router = router(Arrays.asList(first, second), 1);
+
+        // When
+        String initial = router.select();
+        for (int i = 0; i < 3; i++) {
+            EndpointRouter.record(first + "/v1/sessions/abc", 503);
+        }
+        String failedOver = router.select();
+
+        // Then
+        assertThat(initial).isEqualTo(first);
+        assertThat(failedOver).isEqualTo(second);
+        assertThat(awaitSelected(router, first)).isTrue();
+    }
+
+    @Test
+    public void testEndpointsOnTheSameHostAreTrackedApart() throws InterruptedException {
+        // Given
+        String first = baseUrl(fast) + "/eu";
+        String second = baseUrl(fast) + "/us";
+        EndpointRouter router = router(Arrays.asList(first, second, baseUrl(slow)), 60);
+        awaitProbes(2);
+        Thread.sleep(200);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            EndpointRouter.record(first + "/v1/sessions/abc?x=1", 503);
+        }
+
+        // Then
+        assertThat(router.select()).isEqualTo(second);
+    }
+
+    @Test
+    public void testClientErrorsDoNotResetFailures() throws InterruptedException {
+        // Given
+        String first = baseUrl(fast);
+        EndpointRouter router = router(Arrays.asList(first, baseUrl(slow)), 60);
+        awaitProbes(1);
+        Thread.sleep(200);
+
+        // When
+        EndpointRouter.record(first + "/v1/sessions/abc", 503);
+        EndpointRouter.record(first + "/v1/sessions/abc", 503);
+        EndpointRouter.record(first + "/v1/sessions/abc", 404);
+        EndpointRouter.record(first + "/v1/sessions/abc", 503);
+
+        // Then
+        assertThat(router.select()).isEqualTo(baseUrl(slow));
+    }
+
+    @Test
+    public void testFasterEndpointWins() throws InterruptedException {
+        // Given
+        EndpointRouter router = router(Arrays.asList(baseUrl(slow), baseUrl(fast)), 1);
+
+        // Then
+        assertThat(awaitSelected(router, baseUrl(fast))).isTrue();
+    }
+
+    @Test
+    public void testClosedRouterStopsProbing() throws InterruptedException {
+        // Given
+        EndpointRouter router = EndpointRouter.of(Arrays.asList(baseUrl(fast), baseUrl(slow)), 1);
+        awaitProbes(1);
+
+        // When
+        router.close();
+        Thread.sleep(200);
+        int probes = fastProbes.get();
+        Thread.sleep(1500);
+
+        // Then
+        assertThat(fastProbes.get()).isEqualTo(probes);
+    }
+
+    @Test
+    public void testEndpointStillUsedIsProbed() throws InterruptedException {
+        // Given
+        EndpointRouter replaced = EndpointRouter.of(Arrays.asList(baseUrl(fast), baseUrl(slow)), 1);
+        router(Arrays.asList(baseUrl(slow), baseUrl(fast)), 1);
+
+        // When
+        replaced.close();
+        int probes = fastProbes.get();
+
+        // Then
+        assertThat(awaitProbes(probes + 2)).isTrue();
+    }
+
+    @Test
+    public void testProbesAtTheIntervalOfTheLastRouter() throws InterruptedException {
+        // Given
+        router(Arrays.asList(baseUrl(fast), baseUrl(slow)), 60);
+        awaitProbes(1);
+
+        // When
+        router(Arrays.asList(baseUrl(fast), baseUrl(slow)), 1);
+
+        // Then
+        assertThat(awaitProbes(3)).isTrue();
+    }
+
+    private EndpointRouter router(List<String> baseUrls, long probeIntervalSeconds) {
+        EndpointRouter router = EndpointRouter.of(baseUrls, probeIntervalSeconds);
+        routers.add(router);
+        return router;
+    }
+
+    private boolean awaitProbes(int probes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (fastProbes.get() >= probes) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private boolean awaitSelected(EndpointRouter router, String baseUrl) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (router.select().equals(baseUrl)) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private static HttpServer start(long latencyMillis, AtomicInteger probes) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            probes.incrementAndGet();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private static String baseUrl(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
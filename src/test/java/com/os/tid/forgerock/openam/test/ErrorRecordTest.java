@@ -0,0 +1,80 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
+import org.forgerock.json.JsonValue;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+@Test
+public class ErrorRecordTest {
+
+    @Test
+    public void testBoundsThePayload() {
+        // Given
+        StringBuilder fingerprint = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            fingerprint.append("{\"name\":\"plugin").append(i).append("\"},");
+        }
+        String requestJSON = "POST https://tenant.sdb.tid.onespan.cloud/v1/adaptive/actions/users/john/login : {\"fingerprintRaw\":[" + fingerprint + "]}";
+
+        // When
+        ErrorRecord errorRecord = ErrorRecord.of("Validation failed", 400, "corr-id", "Unknown user", requestJSON);
+
+        // Then
+        assertThat(errorRecord.getPayload()).hasSize(256);
+        assertThat(requestJSON).startsWith(errorRecord.getPayload());
+        assertThat(errorRecord.getPayloadLength()).isEqualTo(requestJSON.length());
+        assertThat(errorRecord.getPayloadSha256()).hasSize(64);
+        assertThat(errorRecord.toString().length()).isLessThan(600);
+    }
+
+    @Test
+    public void testRoundTripsThroughSharedState() {
+        // Given
+        JsonValue sharedState = json(object(1));
+        ErrorRecord.of("Validation failed", 400, "corr-id", null, "POST url : {}").putInto(sharedState);
+
+        // When
+        ErrorRecord errorRecord = ErrorRecord.from(sharedState.get(Constants.OSTID_ERROR_RECORD));
+
+        // Then
+        assertThat(errorRecord).isNotNull();
+        assertThat(errorRecord.lines()).containsExactly(
+                "Error Message: Validation failed;",
+                "Error Code: 400;",
+                "Request Payload: POST url : {};",
+                "Log Correction ID: corr-id;");
+        assertThat(sharedState.isDefined(Constants.OSTID_ERROR_MESSAGE)).isFalse();
+    }
+
+    @Test
+    public void testRedactsTheCredentials() {
+        // Given
+        String requestJSON = "POST https://tenant.sdb.tid.onespan.cloud/v1/adaptive/actions/users/john/login : "
+                + "{\"objectType\":\"IAAUserLoginInput\",\"credentials\":{\"passKey\":\"Test1234\",\"OTP\":\"123456\"}}";
+
+        // When
+        ErrorRecord errorRecord = ErrorRecord.of("Validation failed", 400, "corr-id", null, requestJSON);
+
+        // Then
+        assertThat(errorRecord.getPayload()).doesNotContain("Test1234").doesNotContain("123456").contains("\"passKey\":\"***\"");
+        assertThat(errorRecord.toString()).doesNotContain("Test1234");
+    }
+
+    @Test
+    public void testIgnoresPlainMessages() {
+        // Given
+        JsonValue sharedState = json(object(1));
+        sharedState.put(Constants.OSTID_ERROR_MESSAGE, "some dummy error message!");
+
+        // When
+        ErrorRecord errorRecord = ErrorRecord.from(sharedState.get(Constants.OSTID_ERROR_RECORD));
+
+        // Then
+        assertThat(errorRecord).isNull();
+    }
+}
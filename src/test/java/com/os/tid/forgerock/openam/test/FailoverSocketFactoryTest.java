@@ -0,0 +1,82 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.FailoverSocketFactory;
+import com.os.tid.forgerock.openam.utils.HostResolver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class FailoverSocketFactoryTest {
+    private static final String HOST = "mytenant.sdb.tid.onespan.cloud";
+
+    private ServerSocket server;
+    private InetAddress bad;
+    private InetAddress good;
+    private HostResolver resolver;
+    private FailoverSocketFactory factory;
+
+    @BeforeMethod
+    public void before() throws IOException {
+        good = InetAddress.getByName("127.0.0.1");
+        bad = InetAddress.getByName("127.0.0.2");
+        server = new ServerSocket(0, 50, good);
+        resolver = new HostResolver(60, host -> new InetAddress[]{bad, good});
+        factory = new FailoverSocketFactory((SSLSocketFactory) SSLSocketFactory.getDefault(), resolver, 200);
+    }
+
+    @AfterMethod
+    public void after() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testConnectWalksAddresses() throws IOException {
+        // When
+        try (Socket socket = factory.createSocket()) {
+            socket.connect(InetSocketAddress.createUnresolved(HOST, server.getLocalPort()), 5000);
+
+            // Then
+            assertThat(socket.isConnected()).isTrue();
+            assertThat(socket.getInetAddress()).isEqualTo(good);
+        }
+        assertThat(resolver.getFailures(bad)).isEqualTo(1);
+        assertThat(resolver.getFailures(good)).isEqualTo(0);
+    }
+
+    @Test
+    public void testFailedAddressTriedLast() throws IOException {
+        // Given
+        resolver.failed(bad);
+
+        // When
+        try (Socket socket = factory.createSocket()) {
+            socket.connect(InetSocketAddress.createUnresolved(HOST, server.getLocalPort()), 5000);
+        }
+
+        // Then
+        assertThat(resolver.addresses(HOST)).containsExactly(good, bad);
+        assertThat(resolver.getFailures(bad)).isEqualTo(1);
+    }
+
+    @Test
+    public void testRecordsServedUntilRefreshed() throws IOException {
+        // Given
+        HostResolver expired = new HostResolver(0, host -> new InetAddress[]{good});
+
+        // When
+        expired.addresses(HOST);
+
+        // Then
+        assertThat(expired.addresses(HOST)).containsExactly(good);
+    }
+}
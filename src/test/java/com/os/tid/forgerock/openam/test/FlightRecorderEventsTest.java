@@ -0,0 +1,118 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.nodes.OS_Sample_ErrorDisplayNode;
+import com.os.tid.forgerock.openam.utils.RestUtils;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.forgerock.json.JsonValue;
+import org.forgerock.openam.auth.node.api.ExternalRequestContext.Builder;
+import org.forgerock.openam.auth.node.api.TreeContext;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+@Test
+public class FlightRecorderEventsTest {
+    private static final String NODE_PROCESS = "com.onespan.auth.NodeProcess";
+    private static final String API_CALL = "com.onespan.auth.ApiCall";
+    private static final byte[] RESPONSE = "{\"requestID\":\"abc\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private Recording recording;
+
+    @BeforeMethod
+    public void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(201, RESPONSE.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(RESPONSE);
+            }
+        });
+        server.start();
+        recording = new Recording();
+        recording.enable(NODE_PROCESS).withThreshold(Duration.ZERO);
+        recording.enable(API_CALL).withThreshold(Duration.ZERO);
+    }
+
+    @AfterMethod
+    public void after() {
+        server.stop(0);
+        recording.close();
+    }
+
+    @Test
+    public void testApiCallEvent() throws IOException {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/users/john@tenant/login";
+        recording.start();
+
+        RestUtils.doPostJSON(url, "{\"objectType\":\"AdaptiveLoginInput\"}");
+
+        List<RecordedEvent> events = stop(API_CALL);
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("method")).isEqualTo("POST");
+        assertThat(event.getString("endpoint")).isEqualTo(Constants.OSTID_API_ADAPTIVE_USER_LOGIN);
+        assertThat(event.getString("host")).isEqualTo("127.0.0.1");
+        assertThat(event.getInt("status")).isEqualTo(201);
+        assertThat(event.getLong("bytesOut")).isEqualTo(35);
+        assertThat(event.getLong("bytesIn")).isEqualTo(RESPONSE.length);
+        assertThat(event.getDuration("timeToFirstByte")).isPositive();
+        assertThat(event.getString("error")).isNull();
+    }
+
+    @Test
+    public void testNodeProcessEvent() throws IOException {
+        OS_Sample_ErrorDisplayNode node = new OS_Sample_ErrorDisplayNode();
+        JsonValue sharedState = json(object(1));
+        sharedState.put(Constants.OSTID_ERROR_MESSAGE, "some dummy error message!");
+        recording.start();
+
+        node.process(getContext(sharedState));
+        node.process(getContext(json(object(1))));
+
+        List<RecordedEvent> events = stop(NODE_PROCESS);
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getString("node")).isEqualTo("OS_Sample_ErrorDisplayNode");
+        assertThat(events.get(0).getString("outcome")).isNull();
+        assertThat(events.get(0).getInt("callbacks")).isEqualTo(1);
+        assertThat(events.get(1).getString("outcome")).isEqualTo("outcome");
+        assertThat(events.get(1).getInt("callbacks")).isEqualTo(0);
+    }
+
+    private List<RecordedEvent> stop(String eventName) throws IOException {
+        recording.stop();
+        Path file = Files.createTempFile("onespan", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(eventName))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private TreeContext getContext(JsonValue sharedState) {
+        return new TreeContext("managed/user", sharedState, json(object(1)), new Builder().build(), Collections.emptyList(), null);
+    }
+}
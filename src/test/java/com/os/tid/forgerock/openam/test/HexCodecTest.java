@@ -0,0 +1,68 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.HexCodec;
+import com.os.tid.forgerock.openam.utils.StringUtils;
+import org.apache.commons.codec.binary.Hex;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Test
+public class HexCodecTest {
+
+    @Test
+    public void testStringToHexMatchesBigIntegerFormat() {
+        String[] inputs = {
+                "",
+                "a",
+                "\u0000\u0001",
+                "\u0000\u0000\u0000abc",
+                "02;user11021;111;hanyuchen9102-gmail;3zE6RNH5;hanyuchen9102-gmail",
+                "8f238505-b9f8-4614-97b9-78304c29b086",
+                "été"
+        };
+        for (String input : inputs) {
+            String expected = String.format("%040x", new BigInteger(1, input.getBytes(StandardCharsets.UTF_8)));
+            assertThat(StringUtils.stringToHex(input)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testRandomInputsMatchCommonsCodecAndBigIntegerFormat() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            byte[] data = new byte[random.nextInt(64)];
+            random.nextBytes(data);
+            if (data.length > 0 && random.nextBoolean()) {
+                data[0] = 0;
+            }
+
+            String hex = HexCodec.encode(data);
+            assertThat(hex).isEqualTo(Hex.encodeHexString(data));
+            assertThat(HexCodec.decode(hex)).isEqualTo(data);
+            assertThat(HexCodec.decode(hex.toUpperCase())).isEqualTo(Hex.decodeHex(hex.toCharArray()));
+            assertThat(HexCodec.encodeUnsigned(data, 40)).isEqualTo(String.format("%040x", new BigInteger(1, data)));
+        }
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        byte[] data = {0, 1, 0x7f, (byte) 0x80, (byte) 0xff};
+
+        assertThat(HexCodec.encode(data)).isEqualTo("00017f80ff");
+        assertThat(HexCodec.decode("00017F80ff")).isEqualTo(data);
+        assertThat(StringUtils.hexToString(TestData.TEST_SESSION_ID)).isEqualTo("8f238505-b9f8-4614-97b9-78304c29b086");
+    }
+
+    @Test
+    public void testDecodeInvalid() {
+        assertThatThrownBy(() -> HexCodec.decode("abc")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HexCodec.decode("zz")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(StringUtils.hexToString("0g")).isEmpty();
+    }
+}
@@ -0,0 +1,43 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.Histogram;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class HistogramTest {
+
+    @Test
+    public void testPercentileStaysCloseToTheRecordedValues() {
+        // Given
+        Histogram histogram = new Histogram("test");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i < 95 ? 20 : 40);
+        }
+
+        // When
+        long p95 = histogram.getPercentile(95);
+
+        // Then
+        assertThat(p95).isLessThanOrEqualTo(45L);
+        assertThat(40L <= p95).isTrue();
+        assertThat(histogram.getPercentile(50)).isLessThanOrEqualTo(22L);
+    }
+
+    @Test
+    public void testPercentileInterpolatesWithinABucket() {
+        // Given
+        Histogram histogram = new Histogram("test");
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        // When
+        long p95 = histogram.getPercentile(95);
+
+        // Then
+        assertThat(Math.abs(p95 - 950) <= 10).isTrue();
+        assertThat(histogram.getPercentile(100)).isLessThanOrEqualTo(1023L);
+    }
+}
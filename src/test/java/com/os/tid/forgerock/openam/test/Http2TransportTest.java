@@ -0,0 +1,154 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.ApiTimeouts;
+import com.os.tid.forgerock.openam.utils.Http2Transport;
+import com.os.tid.forgerock.openam.utils.PollingClient;
+import com.os.tid.forgerock.openam.utils.RequestHedger;
+import com.os.tid.forgerock.openam.utils.RestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class Http2TransportTest {
+    private static final String LOGIN_PATH = "/v1/users/john@tenant/login";
+    private static final String RESPONSE = "{\"requestID\":\"abc\",\"sessionStatus\":\"accepted\"}";
+    private static final byte[] FIELD = PollingClient.fieldName("sessionStatus");
+    private static final byte[][] VALUES = {"pending".getBytes(StandardCharsets.UTF_8), "accepted".getBytes(StandardCharsets.UTF_8)};
+    private static final int SAMPLES = 20;
+
+    private volatile int slowRequest;
+    private ApiStandIn api;
+
+    @BeforeMethod
+    public void before() {
+        slowRequest = -1;
+        Http2Transport.setEnabled(true);
+        Http2Transport.reset();
+    }
+
+    @AfterMethod
+    public void after() throws IOException {
+        Http2Transport.setEnabled(false);
+        Http2Transport.reset();
+        ApiTimeouts.clear();
+        if (api != null) {
+            api.close();
+        }
+    }
+
+    @Test
+    public void testMultiplexesConcurrentCallsOverFewConnections() throws Exception {
+        // Given
+        api = new ApiStandIn(true, RESPONSE, request -> 20);
+        String url = api.url(LOGIN_PATH);
+        for (int i = 0; i < Constants.OSTID_DEFAULT_HTTP2_CONNECTIONS; i++) {
+            assertThat(Http2Transport.send("POST", url, "{}".getBytes(StandardCharsets.UTF_8)).version()).isEqualTo(HttpClient.Version.HTTP_2);
+        }
+        api.resetCounts();
+        ExecutorService journeys = Executors.newFixedThreadPool(100);
+        List<Callable<HttpEntity>> calls = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            calls.add(() -> RestUtils.doPostJSON(url, "{}"));
+        }
+
+        // When
+        List<Future<HttpEntity>> responses = journeys.invokeAll(calls);
+        journeys.shutdown();
+
+        // Then
+        for (Future<HttpEntity> response : responses) {
+            assertThat(response.get().getHttpStatus()).isEqualTo(200);
+        }
+        assertThat(api.getConnectionCount()).isLessThanOrEqualTo(Constants.OSTID_DEFAULT_HTTP2_CONNECTIONS);
+        assertThat(api.getHttp2RequestCount()).isEqualTo(100 + Constants.OSTID_DEFAULT_HTTP2_CONNECTIONS);
+    }
+
+    @Test
+    public void testFallsBackToHttp1() throws Exception {
+        // Given
+        api = new ApiStandIn(false, RESPONSE, request -> 0);
+        String url = api.url(LOGIN_PATH);
+
+        // When
+        HttpEntity first = RestUtils.doPostJSON(url, "{}");
+        HttpEntity second = RestUtils.doPostJSON(url, "{}");
+
+        // Then
+        assertThat(first.getHttpStatus()).isEqualTo(200);
+        assertThat(second.getHttpStatus()).isEqualTo(200);
+        assertThat(Http2Transport.handles(url)).isFalse();
+        assertThat(api.getHttp2RequestCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testTimesOutAStalledStream() throws Exception {
+        // Given
+        api = new ApiStandIn(true, RESPONSE, request -> request == 1 ? 5000 : 0);
+        String url = api.url(LOGIN_PATH);
+        ApiTimeouts.register(url, 1, 1);
+
+        // When
+        long start = System.nanoTime();
+        Exception failure = null;
+        try {
+            Http2Transport.send("POST", url, "{}".getBytes(StandardCharsets.UTF_8));
+        } catch (HttpTimeoutException e) {
+            failure = e;
+        }
+
+        // Then
+        assertThat(failure).isNotNull();
+        assertThat(System.nanoTime() - start).isLessThan(3_000_000_000L);
+        assertThat(Http2Transport.send("POST", url, "{}".getBytes(StandardCharsets.UTF_8)).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testCancelsTheStreamOfTheLosingHedge() throws Exception {
+        // Given
+        api = new ApiStandIn(true, RESPONSE, request -> request == slowRequest ? 3000 : 5);
+        String url = api.url("/v1/sessions/abc");
+        RequestHedger hedger = new RequestHedger(true, 95, 20, 4);
+        try {
+            for (int i = 0; i < SAMPLES; i++) {
+                poll(hedger, url);
+            }
+            slowRequest = api.getRequestCount() + 1;
+
+            // When
+            long start = System.nanoTime();
+            int matched = poll(hedger, url);
+
+            // Then
+            assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+            assertThat(matched).isEqualTo(1);
+            assertThat(hedger.getHedgesWon()).isEqualTo(1);
+            long deadline = System.nanoTime() + 1_000_000_000L;
+            while (api.getResetCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(api.getResetCount()).isEqualTo(1);
+        } finally {
+            hedger.close();
+        }
+    }
+
+    private static int poll(RequestHedger hedger, String url) throws IOException {
+        return hedger.send(url, connector -> PollingClient.get(url, FIELD, VALUES, connector).getMatched());
+    }
+}
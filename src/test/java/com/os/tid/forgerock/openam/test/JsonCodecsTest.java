@@ -0,0 +1,101 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.os.tid.forgerock.openam.models.AddDeviceOutput;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
+import com.os.tid.forgerock.openam.models.GeneralResponseOutput;
+import com.os.tid.forgerock.openam.models.GenerateChallengeOutput;
+import com.os.tid.forgerock.openam.models.JsonCodecs;
+import com.os.tid.forgerock.openam.models.UserRegisterOutputEx;
+import com.os.tid.forgerock.openam.utils.JsonCodec;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class JsonCodecsTest {
+    private static final String RESPONSE = "{\"requestID\":\"0b7e0b6b4c7c4d3c\",\"sessionStatus\":\"accepted\",\"challenge\":\"1234\",\"uafStatusCode\":1200,\"unknown\":true}";
+
+    @Test
+    public void testDecodesLikeFastjson() {
+        // Given
+        JSONObject responseJSON = JSON.parseObject(RESPONSE);
+
+        // When
+        GeneralResponseOutput generated = JsonCodecs.forType(GeneralResponseOutput.class).decode(responseJSON);
+        GeneralResponseOutput reflective = JSON.toJavaObject(responseJSON, GeneralResponseOutput.class);
+
+        // Then
+        assertThat(generated).isEqualToComparingFieldByField(reflective);
+        assertThat(generated.getRequestID()).isEqualTo("0b7e0b6b4c7c4d3c");
+        assertThat(generated.getUafStatusCode()).isEqualTo(1200);
+        assertThat(generated.getRiskResponseCode()).isEqualTo(-1);
+    }
+
+    @Test
+    public void testMatchesKeysLikeFastjson() {
+        // Then
+        assertDecodesLikeFastjson(UserRegisterOutputEx.class,
+                "{\"activation_password\":\"pwd\",\"RISKRESPONSECODE\":0,\"serial-number\":\"VDS1234567\",\"registrationId\":\"reg-id\"}");
+        assertDecodesLikeFastjson(AddDeviceOutput.class,
+                "{\"activation_type\":\"online\",\"DeviceStatus\":\"activated\",\"device-type\":\"DP4Mobile\",\"userId\":\"john\"}");
+        assertDecodesLikeFastjson(GenerateChallengeOutput.class, "{\"Challenge\":\"1234\",\"request_id\":\"0b7e0b6b4c7c4d3c\"}");
+        GeneralResponseOutput output = assertDecodesLikeFastjson(GeneralResponseOutput.class,
+                "{\"RequestID\":\"0b7e0b6b4c7c4d3c\",\"session_status\":\"accepted\",\"UAF-STATUS-CODE\":1200,\"request_message\":\"Login accepted\"}");
+        assertThat(output.getRequestID()).isEqualTo("0b7e0b6b4c7c4d3c");
+        assertThat(output.getSessionStatus()).isEqualTo("accepted");
+        assertThat(output.getUafStatusCode()).isEqualTo(1200);
+        assertThat(output.getRequestMessage()).isEqualTo("Login accepted");
+    }
+
+    @Test
+    public void testPrefersTheExactKey() {
+        // When
+        GenerateChallengeOutput output = JsonCodecs.forType(GenerateChallengeOutput.class)
+                .decode(JSON.parseObject("{\"challenge_\":\"other\",\"challenge\":\"1234\"}"));
+
+        // Then
+        assertThat(output.getChallenge()).isEqualTo("1234");
+    }
+
+    @Test
+    public void testConvertsNumbersToStrings() {
+        // When
+        UserRegisterOutputEx output = JsonCodecs.forType(UserRegisterOutputEx.class)
+                .decode(JSON.parseObject("{\"activationPassword\":\"pwd\",\"riskResponseCode\":0}"));
+
+        // Then
+        assertThat(output.getActivationPassword()).isEqualTo("pwd");
+        assertThat(output.getRiskResponseCode()).isEqualTo("0");
+    }
+
+    @Test
+    public void testEncodesWithoutNullFields() {
+        // Given
+        JsonCodec<AddDeviceOutput> codec = JsonCodecs.forType(AddDeviceOutput.class);
+        AddDeviceOutput output = new AddDeviceOutput("message2", "online", "activated", "DP4Mobile", "tenant", "reg-id", "serial", "john");
+        output.setDomain(null);
+
+        // When
+        JSONObject json = codec.encode(output);
+
+        // Then
+        assertThat(json).doesNotContainKey("domain").containsEntry("serialNumber", "serial");
+        assertThat(codec.decode(json)).isEqualToComparingFieldByField(output);
+    }
+
+    @Test
+    public void testCoversEveryModel() {
+        // Then
+        assertThat(JsonCodecs.forType(GenerateChallengeOutput.class)).isNotNull();
+        assertThat(JsonCodecs.forType(ErrorRecord.class)).isNull();
+    }
+
+    private static <T> T assertDecodesLikeFastjson(Class<T> type, String response) {
+        JSONObject responseJSON = JSON.parseObject(response);
+        T generated = JsonCodecs.forType(type).decode(responseJSON);
+        assertThat(generated).isEqualToComparingFieldByField(JSON.toJavaObject(responseJSON, type));
+        return generated;
+    }
+}
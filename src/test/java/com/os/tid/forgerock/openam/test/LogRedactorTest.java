@@ -0,0 +1,57 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.utils.LogRedactor;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class LogRedactorTest {
+
+    @Test
+    public void testRedactRequestPayload() {
+        // Given
+        String payload = String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN, "IAAUserLoginInput",
+                String.format(Constants.OSTID_JSON_ADAPTIVE_CREDENTIALS_PASSKEY, TestData.TEST_PASS_KEY),
+                String.format(Constants.OSTID_JSON_ADAPTIVE_CREDENTIALS_AUTHENTICATOR, "123456"),
+                "", "", "",
+                String.format(Constants.OSTID_JSON_ADAPTIVE_USER_LOGIN_IAA, TestData.TEST_CDDC_IP, TestData.TEST_CDDC_HASH,
+                        TestData.TEST_CDDC_JSON, TestData.TEST_USERNAME, TestData.TEST_SESSION_ID, TestData.APPLICATION_REF),
+                "");
+
+        // When
+        String redacted = LogRedactor.redact(payload);
+
+        // Then
+        assertThat(redacted).doesNotContain(TestData.TEST_PASS_KEY).doesNotContain("123456").doesNotContain("userAgent");
+        assertThat(redacted).contains("\"passKey\":\"***\"").contains("\"OTP\":\"***\"").contains("\"fingerprintRaw\":\"***\"");
+        assertThat(redacted).contains(TestData.TEST_CDDC_HASH).contains(TestData.TEST_SESSION_ID).endsWith("\"objectType\":\"IAAUserLoginInput\"}");
+    }
+
+    @Test
+    public void testRedactSharedState() {
+        String state = "{\"" + Constants.OSTID_CDDC_JSON + "\":\"{\\\"browser\\\":{}}\",\"" + Constants.OSTID_DEFAULT_PASSKEY + "\":\"" + TestData.TEST_PASS_KEY + "\",\"username\":\"" + TestData.TEST_USERNAME + "\"}";
+
+        assertThat(LogRedactor.redact(state))
+                .isEqualTo("{\"" + Constants.OSTID_CDDC_JSON + "\":\"***\",\"" + Constants.OSTID_DEFAULT_PASSKEY + "\":\"***\",\"username\":\"" + TestData.TEST_USERNAME + "\"}");
+    }
+
+    @Test
+    public void testRedactActivationAndSignature() {
+        String response = "{\"" + Constants.OSTID_ACTIVATION_CODE2 + "\":\"s3cr3t\",\"" + Constants.OSTID_SIGNATURE + "\":\"0123456789\",\""
+                + Constants.OSTID_ACTIVATION_CODE + "\":\"s3cr3t\",\"username\":\"" + TestData.TEST_USERNAME + "\"}";
+
+        assertThat(LogRedactor.redact(response))
+                .isEqualTo("{\"" + Constants.OSTID_ACTIVATION_CODE2 + "\":\"***\",\"" + Constants.OSTID_SIGNATURE + "\":\"***\",\""
+                        + Constants.OSTID_ACTIVATION_CODE + "\":\"***\",\"username\":\"" + TestData.TEST_USERNAME + "\"}");
+    }
+
+    @Test
+    public void testNothingToRedact() {
+        String payload = "{\"deviceCode\":\"abc\"}";
+
+        assertThat(LogRedactor.redact(payload)).isSameAs(payload);
+        assertThat(LogRedactor.redact(null)).isNull();
+    }
+}
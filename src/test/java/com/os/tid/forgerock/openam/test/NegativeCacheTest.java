@@ -0,0 +1,80 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.alibaba.fastjson.JSON;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.NegativeCache;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class NegativeCacheTest {
+    private static final String TENANT = "tenant";
+    private static final String USER = "user";
+
+    @BeforeMethod
+    public void before() {
+        NegativeCache.clear();
+    }
+
+    @Test
+    public void testCachesUnknownUser() {
+        HttpEntity httpEntity = new HttpEntity(JSON.parseObject("{\"message\":\"Not found\",\"validationErrors\":[{\"message\":\"User not registered\"}]}"), 404, "corr-id");
+
+        assertThat(NegativeCache.put(TENANT, EndpointDescriptor.USER_LOGIN, USER, httpEntity, 30)).isNotNull();
+
+        NegativeCache.Rejection rejection = NegativeCache.get(TENANT, EndpointDescriptor.USER_LOGIN, USER);
+        assertThat(rejection).isNotNull();
+        ErrorRecord errorRecord = rejection.toErrorRecord("POST url : {}");
+        assertThat(errorRecord.getMessage()).isEqualTo("Not found");
+        assertThat(errorRecord.getValidationMessage()).isEqualTo("User not registered");
+        assertThat(errorRecord.getLogCorrelationId()).isEqualTo("corr-id");
+        assertThat(errorRecord.getErrorCode()).isEqualTo(404);
+        assertThat(errorRecord.getPayload()).isEqualTo("POST url : {}");
+        assertThat(NegativeCache.get("other", EndpointDescriptor.USER_LOGIN, USER)).isNull();
+        assertThat(NegativeCache.getHits()).isEqualTo(1);
+        assertThat(NegativeCache.getMisses()).isEqualTo(1);
+        assertThat(NegativeCache.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testKeepsTheRejectionsOfEachApiApart() {
+        HttpEntity notFound = new HttpEntity(JSON.parseObject("{\"message\":\"Not found\"}"), 404, "corr-id");
+
+        NegativeCache.put(TENANT, EndpointDescriptor.USER_LOGIN, USER, notFound, 30);
+
+        assertThat(NegativeCache.get(TENANT, EndpointDescriptor.EVENT_VALIDATION, USER)).isNull();
+        assertThat(NegativeCache.get(TENANT, EndpointDescriptor.USER_LOGIN, USER)).isNotNull();
+    }
+
+    @Test
+    public void testSkipsResponsesNotOwnedByTheUser() {
+        HttpEntity validationError = new HttpEntity(JSON.parseObject("{\"message\":\"Validation failed\",\"validationErrors\":[{\"message\":\"Invalid CDDC\"}]}"), 400, "corr-id");
+        HttpEntity unauthorized = new HttpEntity(JSON.parseObject("{\"message\":\"Unauthorized\"}"), 401, "corr-id");
+        HttpEntity serverError = new HttpEntity(JSON.parseObject("{\"message\":\"Internal error\"}"), 500, "corr-id");
+        HttpEntity notFound = new HttpEntity(JSON.parseObject("{\"message\":\"Not found\"}"), 404, "corr-id");
+
+        assertThat(NegativeCache.put(TENANT, EndpointDescriptor.USER_LOGIN, USER, validationError, 30)).isNull();
+        assertThat(NegativeCache.put(TENANT, EndpointDescriptor.USER_LOGIN, USER, unauthorized, 30)).isNull();
+        assertThat(NegativeCache.put(TENANT, EndpointDescriptor.USER_LOGIN, USER, serverError, 30)).isNull();
+        assertThat(NegativeCache.put(TENANT, EndpointDescriptor.USER_LOGIN, USER, notFound, 0)).isNull();
+        assertThat(NegativeCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testInvalidate() {
+        HttpEntity notFound = new HttpEntity(JSON.parseObject("{\"message\":\"Not found\"}"), 404, "corr-id");
+        NegativeCache.put(TENANT, EndpointDescriptor.USER_LOGIN, USER, notFound, 30);
+        NegativeCache.put(TENANT, EndpointDescriptor.EVENT_VALIDATION, USER, notFound, 30);
+        NegativeCache.put(TENANT, EndpointDescriptor.USER_LOGIN, "other", notFound, 30);
+
+        NegativeCache.invalidate(TENANT, USER);
+
+        assertThat(NegativeCache.get(TENANT, EndpointDescriptor.USER_LOGIN, USER)).isNull();
+        assertThat(NegativeCache.get(TENANT, EndpointDescriptor.EVENT_VALIDATION, USER)).isNull();
+        assertThat(NegativeCache.size()).isEqualTo(1);
+    }
+}
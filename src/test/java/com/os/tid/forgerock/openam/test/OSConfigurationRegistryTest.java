@@ -0,0 +1,73 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.iplanet.sso.SSOException;
+import com.os.tid.forgerock.openam.config.OSConfigurationRegistry;
+import com.os.tid.forgerock.openam.config.OSConfigurationSnapshot;
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+import com.sun.identity.sm.SMSException;
+import org.forgerock.openam.core.realms.Realm;
+import org.forgerock.openam.sm.AnnotatedServiceRegistry;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@Test
+public class OSConfigurationRegistryTest {
+    @Mock
+    private OSConfigurationsService configurationsService;
+
+    @Mock
+    private Realm realm;
+
+    @Mock
+    private AnnotatedServiceRegistry annotatedServiceRegistry;
+
+    @BeforeMethod
+    public void before() throws SMSException, SSOException {
+        initMocks(this);
+        given(configurationsService.tenantNameToLowerCase()).willReturn(TestData.TENANT_NAME.toLowerCase());
+        given(configurationsService.environment()).willReturn(TestData.ENVIRONMENT);
+        given(configurationsService.applicationRef()).willReturn(TestData.APPLICATION_REF);
+
+        given(annotatedServiceRegistry.getRealmSingleton(OSConfigurationsService.class, realm)).willReturn(Optional.of(configurationsService));
+    }
+
+    @Test
+    public void testSnapshotCachedPerRealm() throws SMSException, SSOException {
+        // When
+        OSConfigurationSnapshot snapshot = OSConfigurationRegistry.getSnapshot(realm, annotatedServiceRegistry);
+        OSConfigurationSnapshot cached = OSConfigurationRegistry.getSnapshot(realm, annotatedServiceRegistry);
+
+        // Then
+        assertThat(cached).isSameAs(snapshot);
+        assertThat(snapshot.tenantNameToLowerCase()).isEqualTo(TestData.TENANT_NAME.toLowerCase());
+        assertThat(snapshot.environment()).isEqualTo(TestData.ENVIRONMENT);
+        assertThat(snapshot.applicationRef()).isEqualTo(TestData.APPLICATION_REF);
+        assertThat(snapshot.getEndpoint().getTenantName()).isEqualTo(TestData.TENANT_NAME.toLowerCase());
+        verify(annotatedServiceRegistry, times(1)).getRealmSingleton(OSConfigurationsService.class, realm);
+    }
+
+    @Test
+    public void testInvalidateReloadsConfiguration() throws SMSException, SSOException {
+        // Given
+        OSConfigurationSnapshot snapshot = OSConfigurationRegistry.getSnapshot(realm, annotatedServiceRegistry);
+        given(configurationsService.environment()).willReturn(OSConfigurationsService.EnvOptions.prod);
+
+        // When
+        OSConfigurationRegistry.invalidate();
+        OSConfigurationSnapshot reloaded = OSConfigurationRegistry.getSnapshot(realm, annotatedServiceRegistry);
+
+        // Then
+        assertThat(reloaded).isNotSameAs(snapshot);
+        assertThat(reloaded.environment()).isEqualTo(OSConfigurationsService.EnvOptions.prod);
+        assertThat(snapshot.environment()).isEqualTo(TestData.ENVIRONMENT);
+    }
+}
@@ -3,6 +3,7 @@ package com.os.tid.forgerock.openam.test;
 import com.google.common.collect.ImmutableList;
 import com.os.tid.forgerock.openam.config.Constants;
 import com.os.tid.forgerock.openam.nodes.OS_Risk_CDDCNode;
+import com.os.tid.forgerock.openam.utils.CDDCStore;
 import com.sun.identity.authentication.callbacks.HiddenValueCallback;
 import com.sun.identity.authentication.callbacks.ScriptTextOutputCallback;
 import org.forgerock.json.JsonValue;
@@ -77,6 +78,29 @@ public class OS_Risk_CDDCNodeTest {
         assertThat(result.sharedState.keys()).contains(Constants.OSTID_CDDC_IP);
     }
 
+    @Test
+    public void testProcessWithServerSideStore() throws NodeProcessException {
+        // Given
+        given(config.pushCDDCJsAsCallback()).willReturn(true);
+        given(config.storeCDDCJsonServerSide()).willReturn(true);
+        given(config.CDDCJsonStoreTtl()).willReturn(Constants.OSTID_DEFAULT_CDDC_STORE_TTL_SECONDS);
+        OS_Risk_CDDCNode node = new OS_Risk_CDDCNode(config);
+        TreeContext context = getContext(json(object(1)), json(object(1)), ImmutableList.of(
+                new HiddenValueCallback(Constants.OSTID_CDDC_JSON, TestData.TEST_CDDC_JSON),
+                new HiddenValueCallback(Constants.OSTID_CDDC_HASH, TestData.TEST_CDDC_HASH)
+        ));
+
+        // When
+        Action result = node.process(context);
+
+        // Then
+        assertThat(result.outcome).isEqualTo("outcome");
+        assertThat(result.sharedState.keys()).doesNotContain(Constants.OSTID_CDDC_JSON);
+        assertThat(result.sharedState.keys()).contains(Constants.OSTID_CDDC_REF);
+        assertThat(result.sharedState.keys()).contains(Constants.OSTID_CDDC_HASH);
+        assertThat(CDDCStore.resolve(result.sharedState).asString()).isEqualTo(TestData.TEST_CDDC_JSON);
+    }
+
     private TreeContext getContext(JsonValue sharedState, JsonValue transientState, List<Callback> callbackList) {
         return new TreeContext("managed/user", sharedState, transientState, new Builder().build(), callbackList,null);
     }
@@ -1,6 +1,7 @@
 package com.os.tid.forgerock.openam.test;
 
 import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.models.ErrorRecord;
 import com.os.tid.forgerock.openam.nodes.OS_Sample_ErrorDisplayNode;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.auth.node.api.Action;
@@ -43,6 +44,25 @@ public class OS_Sample_ErrorDisplayNodeTest {
         assertThat(result.callbacks.get(0)).isInstanceOf(TextOutputCallback.class);
     }
 
+    @Test
+    public void testProcessErrorRecordDisplay() {
+        // Given
+        OS_Sample_ErrorDisplayNode node = new OS_Sample_ErrorDisplayNode();
+        JsonValue sharedState = json(object(1));
+        ErrorRecord.of("Validation failed", 400, "corr-id", "Unknown user", "POST url : {}").putInto(sharedState);
+        TreeContext context = getContext(sharedState,json(object(1)),Collections.emptyList());
+
+        // When
+        Action result = node.process(context);
+
+        // Then
+        assertThat(result.outcome).isEqualTo(null);
+        assertThat(result.callbacks).hasSize(5);
+        assertThat(((TextOutputCallback) result.callbacks.get(0)).getMessage()).isEqualTo("Error Message: Validation failed;");
+        assertThat(((TextOutputCallback) result.callbacks.get(4)).getMessage()).isEqualTo("Log Correction ID: corr-id;");
+        assertThat(result.sharedState.keys()).doesNotContain(Constants.OSTID_ERROR_MESSAGE, Constants.OSTID_ERROR_RECORD);
+    }
+
     @Test
     public void testProcessNext() {
         // Given
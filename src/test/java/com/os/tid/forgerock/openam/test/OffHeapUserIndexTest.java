@@ -0,0 +1,65 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.OffHeapUserIndex;
+import com.os.tid.forgerock.openam.utils.UserStatusStore;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class OffHeapUserIndexTest {
+
+    @Test
+    public void testPutGetRemove() {
+        OffHeapUserIndex index = new OffHeapUserIndex(4096);
+        long key = UserStatusStore.key("tenant", "alice");
+
+        assertThat(index.get(key, -1L)).isEqualTo(-1L);
+        index.put(key, Long.MAX_VALUE);
+        index.put(0L, 42L);
+        assertThat(index.get(key, -1L)).isEqualTo(Long.MAX_VALUE);
+        assertThat(index.get(0L, -1L)).isEqualTo(42L);
+        assertThat(index.size()).isEqualTo(2);
+
+        index.remove(key);
+        assertThat(index.get(key, -1L)).isEqualTo(-1L);
+        index.clear();
+        assertThat(index.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testZeroKeyDoesNotCollide() {
+        // Given
+        OffHeapUserIndex index = new OffHeapUserIndex(4096);
+
+        // When
+        index.put(0L, 42L);
+        index.put(1L, 7L);
+
+        // Then
+        assertThat(index.get(0L, -1L)).isEqualTo(42L);
+        assertThat(index.get(1L, -1L)).isEqualTo(7L);
+        assertThat(index.size()).isEqualTo(2);
+
+        index.remove(1L);
+        assertThat(index.get(0L, -1L)).isEqualTo(42L);
+        index.remove(0L);
+        assertThat(index.get(0L, -1L)).isEqualTo(-1L);
+        assertThat(index.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMemoryLimitAndEviction() {
+        OffHeapUserIndex index = new OffHeapUserIndex(5000);
+
+        assertThat(index.memoryBytes()).isEqualTo(4096);
+        assertThat(index.capacity()).isEqualTo(256);
+
+        for (long i = 1; i <= 10000; i++) {
+            index.put(UserStatusStore.key("tenant", "user" + i), i);
+        }
+        assertThat(index.size()).isEqualTo(256);
+        assertThat(index.getEvictions()).isEqualTo(10000 - 256);
+        assertThat(index.get(UserStatusStore.key("tenant", "user10000"), -1L)).isEqualTo(10000L);
+    }
+}
@@ -0,0 +1,36 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.utils.PluginWarmUp;
+import com.os.tid.forgerock.openam.utils.ScriptUtils;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class PluginWarmUpTest {
+
+    @Test
+    public void testRunReportsEveryPhase() {
+        PluginWarmUp.Report report = PluginWarmUp.run(Collections.emptySet(), 10, 1);
+
+        assertThat(report.getPhases()).containsOnlyKeys("models", "scripts", "payloads", "connections");
+        assertThat(report.getTotalMillis()).isGreaterThanOrEqualTo(0);
+        assertThat(report.getConnections()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDefaultsOnlyLoadClassesAndResources() {
+        assertThat(Constants.OSTID_DEFAULT_WARMUP_ITERATIONS).isEqualTo(0);
+        assertThat(Constants.OSTID_DEFAULT_WARMUP_CONNECTIONS).isEqualTo(0);
+    }
+
+    @Test
+    public void testScriptsAreLoadedOnce() throws Exception {
+        PluginWarmUp.run(Collections.emptySet(), 1, 1);
+
+        assertThat(ScriptUtils.getScriptFromFile("/js/Json2.js")).isSameAs(ScriptUtils.getScriptFromFile("/js/Json2.js"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.PollingClient;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class PollingClientTest {
+    private static final byte[] FIELD = PollingClient.fieldName("sessionStatus");
+    private static final byte[][] VALUES = {bytes("pending"), bytes("accepted"), bytes("refused")};
+
+    @Test
+    public void testScanMatchesValue() {
+        assertThat(scan("{\"sessionStatus\":\"pending\"}")).isEqualTo(0);
+        assertThat(scan("{\"requestID\":\"abc\", \"sessionStatus\" : \"accepted\"}")).isEqualTo(1);
+        assertThat(scan("{\n  \"sessionStatus\":\t\"refused\"\n}")).isEqualTo(2);
+    }
+
+    @Test
+    public void testScanRejectsOtherValues() {
+        assertThat(scan("{\"sessionStatus\":\"pendingX\"}")).isEqualTo(-1);
+        assertThat(scan("{\"sessionStatus\":\"accept\"}")).isEqualTo(-1);
+        assertThat(scan("{\"sessionStatus\":null}")).isEqualTo(-1);
+        assertThat(scan("{\"status\":\"pending\"}")).isEqualTo(-1);
+        assertThat(scan("{\"sessionStatus\":\"pending")).isEqualTo(-1);
+        assertThat(scan("")).isEqualTo(-1);
+    }
+
+    @Test
+    public void testScanSkipsFieldNameInValues() {
+        assertThat(scan("{\"message\":\"\\\"sessionStatus\\\"\", \"sessionStatus\":\"accepted\"}")).isEqualTo(1);
+    }
+
+    @Test
+    public void testScanHonoursLength() {
+        byte[] body = bytes("{\"sessionStatus\":\"pending\"}   ");
+        assertThat(PollingClient.scan(body, body.length - 3, FIELD, VALUES)).isEqualTo(0);
+        assertThat(PollingClient.scan(body, 20, FIELD, VALUES)).isEqualTo(-1);
+    }
+
+    private static int scan(String body) {
+        byte[] bytes = bytes(body);
+        return PollingClient.scan(bytes, bytes.length, FIELD, VALUES);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,56 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.RegistrationStatusCache;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class RegistrationStatusCacheTest {
+    private static final String TENANT = "tenant";
+    private static final String USER = "user";
+
+    @BeforeMethod
+    public void before() {
+        RegistrationStatusCache.clear();
+    }
+
+    @Test
+    public void testKeepsTheLatestStatus() {
+        // When
+        RegistrationStatusCache.markRegistered(TENANT, USER, 60);
+        RegistrationStatusCache.markUnregistered(TENANT, USER, 60);
+
+        // Then
+        assertThat(RegistrationStatusCache.get(TENANT, USER)).isEqualTo(RegistrationStatusCache.UNREGISTERED);
+        assertThat(RegistrationStatusCache.get("other", USER)).isEqualTo(0);
+        assertThat(RegistrationStatusCache.getHits()).isEqualTo(1);
+        assertThat(RegistrationStatusCache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testStatusExpires() throws Exception {
+        // Given
+        RegistrationStatusCache.markRegistered(TENANT, USER, 1);
+
+        // When
+        Thread.sleep(2100);
+
+        // Then
+        assertThat(RegistrationStatusCache.get(TENANT, USER)).isEqualTo(0);
+        assertThat(RegistrationStatusCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testZeroTtlForgetsTheStatus() {
+        // Given
+        RegistrationStatusCache.markRegistered(TENANT, USER, 60);
+
+        // When
+        RegistrationStatusCache.markUnregistered(TENANT, USER, 0);
+
+        // Then
+        assertThat(RegistrationStatusCache.get(TENANT, USER)).isEqualTo(0);
+    }
+}
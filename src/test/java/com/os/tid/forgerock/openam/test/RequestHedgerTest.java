@@ -0,0 +1,117 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.PollingClient;
+import com.os.tid.forgerock.openam.utils.RequestHedger;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class RequestHedgerTest {
+    private static final byte[] FIELD = PollingClient.fieldName("sessionStatus");
+    private static final byte[][] VALUES = {"pending".getBytes(StandardCharsets.UTF_8), "accepted".getBytes(StandardCharsets.UTF_8)};
+    private static final byte[] RESPONSE = "{\"sessionStatus\":\"accepted\"}".getBytes(StandardCharsets.UTF_8);
+    private static final int SAMPLES = 20;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int slowRequest;
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String url;
+
+    @BeforeMethod
+    public void before() throws IOException {
+        requests.set(0);
+        slowRequest = -1;
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            if (requests.incrementAndGet() == slowRequest) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(RESPONSE);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/sessions/abc";
+    }
+
+    @AfterMethod
+    public void after() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void testSlowRequestIsHedged() throws IOException {
+        RequestHedger hedger = new RequestHedger(true, 95, 20, 4);
+        try {
+            for (int i = 0; i < SAMPLES; i++) {
+                poll(hedger);
+            }
+            slowRequest = SAMPLES + 1;
+
+            long start = System.nanoTime();
+            PollingClient.Response response = poll(hedger);
+
+            assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+            assertThat(response.getMatched()).isEqualTo(1);
+            assertThat(requests.get()).isEqualTo(SAMPLES + 2);
+            assertThat(hedger.getHedgesSent()).isEqualTo(1);
+            assertThat(hedger.getHedgesWon()).isEqualTo(1);
+        } finally {
+            hedger.close();
+        }
+    }
+
+    @Test
+    public void testNoHedgeWithoutEnoughSamples() throws IOException {
+        RequestHedger hedger = new RequestHedger(true, 95, 20, 4);
+        try {
+            slowRequest = 1;
+            poll(hedger);
+
+            assertThat(requests.get()).isEqualTo(1);
+            assertThat(hedger.getHedgesSent()).isEqualTo(0);
+        } finally {
+            hedger.close();
+        }
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+        RequestHedger hedger = new RequestHedger(false, 95, 20, 4);
+        try {
+            for (int i = 0; i < SAMPLES + 1; i++) {
+                poll(hedger);
+            }
+
+            assertThat(requests.get()).isEqualTo(SAMPLES + 1);
+            assertThat(hedger.getHedgesSent()).isEqualTo(0);
+        } finally {
+            hedger.close();
+        }
+    }
+
+    private PollingClient.Response poll(RequestHedger hedger) throws IOException {
+        return hedger.send(url, connector -> PollingClient.get(url, FIELD, VALUES, connector));
+    }
+}
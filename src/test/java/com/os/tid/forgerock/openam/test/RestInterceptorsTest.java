@@ -0,0 +1,93 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.alibaba.fastjson.JSONObject;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.RestInterceptor;
+import com.os.tid.forgerock.openam.utils.RestInterceptors;
+import com.os.tid.forgerock.openam.utils.RestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Test
+public class RestInterceptorsTest {
+    //nothing listens on the port, so only an interceptor can answer
+    private static final String BASE_URL = "http://127.0.0.1:9";
+    private static final String URL = BASE_URL + "/v1/adaptive/actions/users/john@tenant/login";
+
+    @AfterMethod
+    public void after() {
+        RestInterceptors.clear();
+    }
+
+    @Test
+    public void testRunsInterceptorsInOrder() throws IOException {
+        // Given
+        List<String> calls = new ArrayList<>();
+        RestInterceptor first = (exchange, chain) -> {
+            calls.add("first " + exchange.getPayload());
+            return chain.proceed(exchange.withPayload("{\"rewritten\":true}"));
+        };
+        RestInterceptor second = (exchange, chain) -> {
+            calls.add("second " + exchange.getPayload());
+            return new HttpEntity(new JSONObject(), 200, "corr-id");
+        };
+        RestInterceptors.register(BASE_URL, Arrays.asList(first, second));
+
+        // When
+        HttpEntity httpEntity = RestUtils.doPostJSON(URL, "{}");
+
+        // Then
+        assertThat(httpEntity.getHttpStatus()).isEqualTo(200);
+        assertThat(calls).containsExactly("first {}", "second {\"rewritten\":true}");
+    }
+
+    @Test
+    public void testRateLimitAnswersWithoutCallingTheApi() throws IOException {
+        // Given
+        RestInterceptors.register(BASE_URL, RestInterceptors.parse(Arrays.asList("rate:1", "fault:100")));
+
+        // When
+        IOException fault = null;
+        try {
+            RestUtils.doPostJSON(URL, "{}");
+        } catch (IOException e) {
+            fault = e;
+        }
+        HttpEntity limited = RestUtils.doPostJSON(URL, "{}");
+
+        // Then
+        assertThat(fault).hasMessageContaining("Injected fault");
+        assertThat(limited.getHttpStatus()).isEqualTo(429);
+        assertThat(limited.getResponseJSON().getString("message")).isNotEmpty();
+    }
+
+    @Test
+    public void testSkipsUnknownEntries() {
+        // When
+        List<RestInterceptor> interceptors = RestInterceptors.parse(Arrays.asList("metrics", "unknown", "rate:soon", " "));
+
+        // Then
+        assertThat(interceptors).hasSize(1);
+    }
+
+    @Test
+    public void testRemovedInterceptorsNoLongerApply() {
+        // Given
+        RestInterceptors.register(BASE_URL, Collections.singletonList((exchange, chain) -> new HttpEntity(new JSONObject(), 200, "")));
+
+        // When
+        RestInterceptors.register(BASE_URL, Collections.emptyList());
+
+        // Then
+        assertThatThrownBy(() -> RestUtils.doPostJSON(URL, "{}")).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,31 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.SessionIdGenerator;
+import com.os.tid.forgerock.openam.utils.StringUtils;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class SessionIdGeneratorTest {
+
+    @Test
+    public void testSessionIdIsHexEncodedRandomUUID() {
+        for (int i = 0; i < 100; i++) {
+            String sessionId = SessionIdGenerator.generate();
+            String uuid = StringUtils.hexToString(sessionId);
+
+            assertThat(sessionId).hasSize(SessionIdGenerator.SESSION_ID_LENGTH).hasSize(TestData.TEST_SESSION_ID.length());
+            assertThat(UUID.fromString(uuid).version()).isEqualTo(4);
+            assertThat(UUID.fromString(uuid).toString()).isEqualTo(uuid);
+            assertThat(StringUtils.stringToHex(uuid)).isEqualTo(sessionId);
+        }
+    }
+
+    @Test
+    public void testSessionIdsAreUnique() {
+        assertThat(SessionIdGenerator.generate()).isNotEqualTo(SessionIdGenerator.generate());
+    }
+}
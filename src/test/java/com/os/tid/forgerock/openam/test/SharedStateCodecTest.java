@@ -0,0 +1,66 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.nodes.OSConfigurationsService;
+import com.os.tid.forgerock.openam.utils.HexCodec;
+import com.os.tid.forgerock.openam.utils.SharedStateCodec;
+import org.forgerock.json.JsonValue;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@Test
+public class SharedStateCodecTest {
+    private static final String REQUEST_MESSAGE = requestMessage();
+
+    @Mock
+    private OSConfigurationsService configurationsService;
+
+    @BeforeMethod
+    public void before() {
+        initMocks(this);
+    }
+
+    @Test
+    public void testCompressedAboveThreshold() {
+        // Given
+        given(configurationsService.sharedStateCompressionThreshold()).willReturn(256);
+        JsonValue sharedState = json(object(1));
+
+        // When
+        SharedStateCodec.put(sharedState, "command", REQUEST_MESSAGE, configurationsService);
+
+        // Then
+        assertThat(sharedState.get("command").asString()).startsWith(SharedStateCodec.PREFIX);
+        assertThat(sharedState.get("command").asString().length()).isLessThan(REQUEST_MESSAGE.length() * 3 / 4);
+        assertThat(SharedStateCodec.get(sharedState, "command").asString()).isEqualTo(REQUEST_MESSAGE);
+    }
+
+    @Test
+    public void testUnchangedWhenDisabledOrBelowThreshold() {
+        // Given
+        given(configurationsService.sharedStateCompressionThreshold()).willReturn(0);
+        JsonValue sharedState = json(object(1));
+
+        // When
+        SharedStateCodec.put(sharedState, "command", REQUEST_MESSAGE, configurationsService);
+
+        // Then
+        assertThat(sharedState.get("command").asString()).isEqualTo(REQUEST_MESSAGE);
+        assertThat(SharedStateCodec.encode("Fail to Login!", 256)).isEqualTo("Fail to Login!");
+        assertThat(SharedStateCodec.get(sharedState, "missing").isNull()).isTrue();
+    }
+
+    private static String requestMessage() {
+        byte[] message = new byte[1024];
+        new Random(42).nextBytes(message);
+        return HexCodec.encode(message);
+    }
+}
@@ -0,0 +1,239 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.os.tid.forgerock.openam.config.Constants;
+import com.os.tid.forgerock.openam.config.EndpointDescriptor;
+import com.os.tid.forgerock.openam.models.HttpEntity;
+import com.os.tid.forgerock.openam.utils.NodeProcessEvent;
+import com.os.tid.forgerock.openam.utils.OtlpSpanExporter;
+import com.os.tid.forgerock.openam.utils.RestUtils;
+import com.os.tid.forgerock.openam.utils.Span;
+import com.os.tid.forgerock.openam.utils.TraceContext;
+import com.os.tid.forgerock.openam.utils.Tracing;
+import com.sun.net.httpserver.HttpServer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.openam.auth.node.api.ExternalRequestContext.Builder;
+import org.forgerock.openam.auth.node.api.NodeProcessException;
+import org.forgerock.openam.auth.node.api.TreeContext;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+@Test
+public class TracingTest {
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    private final List<Span> spans = new CopyOnWriteArrayList<>();
+    private final List<String> receivedTraceparents = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+
+    @BeforeMethod
+    public void before() throws IOException {
+        spans.clear();
+        receivedTraceparents.clear();
+        Tracing.setEnabled(true);
+        Tracing.setExporter(spans::add);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            receivedTraceparents.add(exchange.getRequestHeaders().getFirst(Constants.OSTID_TRACEPARENT_HEADER));
+            byte[] body = "{\"requestID\":\"abc\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add(Constants.OSTID_LOG_CORRELATION_ID, "corr-id");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterMethod
+    public void after() {
+        server.stop(0);
+        Tracing.detach();
+        Tracing.setEnabled(false);
+        Tracing.setTrustIncoming(false);
+        Tracing.setExporter(null);
+    }
+
+    @Test
+    public void testParseTraceparent() {
+        TraceContext context = TraceContext.parse(TRACEPARENT);
+        assertThat(context).isNotNull();
+        assertThat(context.getTraceId()).isEqualTo("4bf92f3577b34da6a3ce929d0e0e4736");
+        assertThat(context.getSpanId()).isEqualTo("00f067aa0ba902b7");
+        assertThat(context.isSampled()).isTrue();
+        assertThat(context.toHeader()).isEqualTo(TRACEPARENT);
+
+        assertThat(TraceContext.parse(null)).isNull();
+        assertThat(TraceContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01")).isNull();
+        assertThat(TraceContext.parse("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01")).isNull();
+        assertThat(TraceContext.parse("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")).isNull();
+        assertThat(TraceContext.parse(TRACEPARENT + "-extra")).isNull();
+    }
+
+    @Test
+    public void testNewChildKeepsTrace() {
+        TraceContext root = TraceContext.newRoot();
+        TraceContext child = root.newChild();
+
+        assertThat(TraceContext.parse(root.toHeader())).isNotNull();
+        assertThat(child.getTraceId()).isEqualTo(root.getTraceId());
+        assertThat(child.getSpanId()).isNotEqualTo(root.getSpanId()).hasSize(16);
+    }
+
+    @Test
+    public void testTemplateOf() {
+        assertThat(EndpointDescriptor.templateOf("https://tenant.sdb.tid.onespan.cloud/v1/users/john@tenant/login"))
+                .isSameAs(EndpointDescriptor.USER_LOGIN);
+        assertThat(EndpointDescriptor.templateOf("https://tenant.sdb.tid.onespan.cloud/v1/users/john@tenant/unregister"))
+                .isSameAs(EndpointDescriptor.USER_UNREGISTER);
+        assertThat(EndpointDescriptor.templateOf("https://tenant.sdb.tid.onespan.cloud/v1/users/register"))
+                .isSameAs(EndpointDescriptor.USER_REGISTER);
+        assertThat(EndpointDescriptor.templateOf("https://tenant.sdb.tid.onespan.cloud/v1/sessions/abc"))
+                .isSameAs(EndpointDescriptor.CHECK_SESSION_STATUS);
+        assertThat(EndpointDescriptor.templateOf("https://tenant.sdb.tid.onespan.cloud/v1/users/@tenant/login")).isNull();
+        assertThat(EndpointDescriptor.templateOf("https://tenant.sdb.tid.onespan.cloud/v2/other")).isNull();
+    }
+
+    @Test
+    public void testCallSpanIsChildOfNode() throws IOException {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/users/john@tenant/login";
+        attachJourney(json(object(1)), TRACEPARENT);
+        String nodeSpanId = Tracing.current().getSpanId();
+
+        HttpEntity httpEntity = RestUtils.doPostJSON(url, "{}");
+
+        assertThat(httpEntity.getHttpStatus()).isEqualTo(200);
+        assertThat(spans).hasSize(1);
+        Span span = spans.get(0);
+        assertThat(span.getName()).isEqualTo("POST " + Constants.OSTID_API_ADAPTIVE_USER_LOGIN);
+        assertThat(span.getKind()).isEqualTo(Span.KIND_CLIENT);
+        assertThat(span.getContext().getTraceId()).isEqualTo("4bf92f3577b34da6a3ce929d0e0e4736");
+        assertThat(span.getParentSpanId()).isEqualTo(nodeSpanId);
+        assertThat(span.getAttributes())
+                .containsEntry(Tracing.ATTRIBUTE_HTTP_STATUS, 200)
+                .containsEntry(Tracing.ATTRIBUTE_CORRELATION_ID, "corr-id")
+                .containsEntry(Tracing.ATTRIBUTE_URL_TEMPLATE, Constants.OSTID_API_ADAPTIVE_USER_LOGIN)
+                .containsEntry(Tracing.ATTRIBUTE_NODE, "OS_Auth_UserLoginNode");
+        assertThat(span.getAttributes().toString()).doesNotContain("john");
+        assertThat(receivedTraceparents).containsExactly(span.getContext().toHeader());
+
+        Tracing.detach();
+
+        assertThat(spans).hasSize(2);
+        Span nodeSpan = spans.get(1);
+        assertThat(nodeSpan.getName()).isEqualTo("OS_Auth_UserLoginNode");
+        assertThat(nodeSpan.getKind()).isEqualTo(Span.KIND_INTERNAL);
+        assertThat(nodeSpan.getContext().getSpanId()).isEqualTo(nodeSpanId);
+        assertThat(nodeSpan.getParentSpanId()).isEqualTo("00f067aa0ba902b7");
+    }
+
+    @Test
+    public void testJourneyStartedByTheNodeGetsASpan() {
+        // Given
+        JsonValue sharedState = json(object(1));
+
+        // When
+        attachJourney(sharedState, null);
+        Tracing.detach();
+
+        // Then
+        TraceContext journey = TraceContext.parse(sharedState.get(Constants.OSTID_TRACEPARENT).asString());
+        assertThat(spans).hasSize(2);
+        assertThat(spans.get(0).getName()).isEqualTo(Tracing.JOURNEY_SPAN_NAME);
+        assertThat(spans.get(0).getContext().getSpanId()).isEqualTo(journey.getSpanId());
+        assertThat(spans.get(0).getParentSpanId()).isNull();
+        assertThat(spans.get(1).getParentSpanId()).isEqualTo(journey.getSpanId());
+    }
+
+    @Test
+    public void testIncomingTraceparentOnlyContinuedWhenTrusted() {
+        // Given
+        JsonValue untrusted = json(object(1));
+        JsonValue trusted = json(object(1));
+        JsonValue continued = json(object(1));
+        continued.put(Constants.OSTID_TRACEPARENT, TRACEPARENT);
+
+        // When
+        boolean untrustedStored = attachRequest(untrusted);
+        Tracing.setTrustIncoming(true);
+        boolean trustedStored = attachRequest(trusted);
+        boolean continuedStored = attachRequest(continued);
+
+        // Then
+        assertThat(untrustedStored).isTrue();
+        assertThat(TraceContext.parse(untrusted.get(Constants.OSTID_TRACEPARENT).asString()).getTraceId()).isNotEqualTo("4bf92f3577b34da6a3ce929d0e0e4736");
+        assertThat(trustedStored).isTrue();
+        assertThat(trusted.get(Constants.OSTID_TRACEPARENT).asString()).isEqualTo(TRACEPARENT);
+        assertThat(continuedStored).isFalse();
+    }
+
+    @Test
+    public void testNodeProcessDetachesTheJourney() {
+        // When
+        assertThatThrownBy(() -> NodeProcessEvent.record(getClass(), () -> {
+            attachJourney(json(object(1)), TRACEPARENT);
+            throw new NodeProcessException("node failed");
+        })).isInstanceOf(NodeProcessException.class);
+
+        // Then
+        assertThat(Tracing.current()).isNull();
+        assertThat(spans).hasSize(1);
+        assertThat(spans.get(0).getParentSpanId()).isEqualTo("00f067aa0ba902b7");
+    }
+
+    @Test
+    public void testDisabledTracingSendsNoHeader() throws IOException {
+        Tracing.setEnabled(false);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/users/register";
+
+        RestUtils.doPostJSON(url, "{}");
+
+        assertThat(spans).isEmpty();
+        assertThat(receivedTraceparents).containsExactly((String) null);
+    }
+
+    @Test
+    public void testOtlpJSON() throws IOException {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/transactions";
+        RestUtils.doPostJSON(url, "{}");
+
+        JSONObject request = OtlpSpanExporter.toJSON(ImmutableList.of(spans.get(0)));
+        JSONObject spanJSON = request.getJSONArray("resourceSpans").getJSONObject(0)
+                .getJSONArray("scopeSpans").getJSONObject(0)
+                .getJSONArray("spans").getJSONObject(0);
+        assertThat(spanJSON.getString("traceId")).hasSize(32);
+        assertThat(spanJSON.getString("parentSpanId")).isNull();
+        assertThat(spanJSON.getString("name")).isEqualTo("POST " + Constants.OSTID_API_RISK_SEND_TRANSACTION);
+        assertThat(spanJSON.getIntValue("kind")).isEqualTo(3);
+        assertThat(spanJSON.toJSONString()).contains("\"http.response.status_code\"").contains("\"intValue\":\"200\"");
+    }
+
+    private boolean attachRequest(JsonValue sharedState) {
+        return Tracing.attach(new TreeContext("managed/user", sharedState, json(object(1)),
+                new Builder().headers(ImmutableListMultimap.of(Constants.OSTID_TRACEPARENT_HEADER, TRACEPARENT)).build(),
+                Collections.emptyList(), null), "OS_Auth_CheckSessionStatusNode");
+    }
+
+    private void attachJourney(JsonValue sharedState, String traceparent) {
+        if (traceparent != null) {
+            sharedState.put(Constants.OSTID_TRACEPARENT, traceparent);
+        }
+        Tracing.attach(new TreeContext("managed/user", sharedState, json(object(1)), new Builder().build(), Collections.emptyList(), null), "OS_Auth_UserLoginNode");
+    }
+}
@@ -0,0 +1,65 @@
+package com.os.tid.forgerock.openam.test;
+
+import com.os.tid.forgerock.openam.utils.HeapUserStatusStore;
+import com.os.tid.forgerock.openam.utils.OffHeapUserStatusStore;
+import com.os.tid.forgerock.openam.utils.RegistrationStatusCache;
+import com.os.tid.forgerock.openam.utils.UserStatusStore;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class UserStatusStoreTest {
+
+    @DataProvider
+    public Object[][] stores() {
+        return new Object[][]{
+                {new HeapUserStatusStore(1000)},
+                {new OffHeapUserStatusStore(1000)}
+        };
+    }
+
+    @Test(dataProvider = "stores")
+    public void testPutGetRemove(UserStatusStore store) {
+        long alice = UserStatusStore.key("tenant", "alice");
+        long bob = UserStatusStore.key("tenant", "bob");
+
+        store.put(alice, RegistrationStatusCache.REGISTERED);
+        store.put(bob, RegistrationStatusCache.UNREGISTERED);
+        store.put(bob, RegistrationStatusCache.REGISTERED);
+
+        assertThat(store.get(alice)).isEqualTo(RegistrationStatusCache.REGISTERED);
+        assertThat(store.get(bob)).isEqualTo(RegistrationStatusCache.REGISTERED);
+        assertThat(store.get(UserStatusStore.key("other", "alice"))).isEqualTo(0);
+        assertThat(store.size()).isEqualTo(2);
+
+        store.remove(alice);
+        assertThat(store.get(alice)).isEqualTo(0);
+
+        store.clear();
+        assertThat(store.size()).isEqualTo(0);
+    }
+
+    @Test(dataProvider = "stores")
+    public void testBounded(UserStatusStore store) {
+        for (int i = 0; i < 10000; i++) {
+            store.put(UserStatusStore.key("tenant", "user" + i), RegistrationStatusCache.REGISTERED);
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(1024);
+        assertThat(store.get(UserStatusStore.key("tenant", "user9999"))).isEqualTo(RegistrationStatusCache.REGISTERED);
+    }
+
+    @Test
+    public void testHeapStoreEvictsLeastRecentlyUsed() {
+        HeapUserStatusStore store = new HeapUserStatusStore(2);
+        store.put(1L, RegistrationStatusCache.REGISTERED);
+        store.put(2L, RegistrationStatusCache.REGISTERED);
+        store.get(1L);
+        store.put(3L, RegistrationStatusCache.REGISTERED);
+
+        assertThat(store.get(1L)).isEqualTo(RegistrationStatusCache.REGISTERED);
+        assertThat(store.get(2L)).isEqualTo(0);
+    }
+}